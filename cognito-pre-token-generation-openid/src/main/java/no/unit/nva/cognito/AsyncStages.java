@@ -0,0 +1,111 @@
+package no.unit.nva.cognito;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Runs the stages of one request on virtual threads, so that stages that do not depend on each other run in
+ * parallel. A stage that depends on other stages waits for them on its own thread. All stages share one deadline.
+ * When a stage fails or the deadline passes, all outstanding stages are cancelled and the failure is rethrown to
+ * whoever awaits a result, even when it awaits a stage that was cancelled because of the failure. Call
+ * {@link #close()} when the request is done to cancel anything that is left.
+ */
+@SuppressWarnings("PMD.DoNotUseThreads")
+public class AsyncStages implements AutoCloseable {
+
+    public static final String DEADLINE_EXCEEDED_MESSAGE = "Deadline exceeded while waiting for %s ms";
+    public static final String INTERRUPTED_MESSAGE = "Interrupted while waiting for stage";
+    private static final ExecutorService STAGE_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Instant deadline;
+    private final Clock clock;
+    private final List<Future<?>> stages = new CopyOnWriteArrayList<>();
+    private final AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+
+    public AsyncStages(Instant deadline, Clock clock) {
+        this.deadline = deadline;
+        this.clock = clock;
+    }
+
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    public <T> Future<T> submit(Callable<T> stage) {
+        var future = STAGE_EXECUTOR.submit(() -> {
+            try {
+                return stage.call();
+            } catch (Exception e) {
+                fail(e);
+                throw e;
+            }
+        });
+        stages.add(future);
+        return future;
+    }
+
+    public <A, T> Future<T> submitAfter(Future<A> dependency, Function<A, T> stage) {
+        return submit(() -> stage.apply(await(dependency)));
+    }
+
+    public <A, B, T> Future<T> submitAfter(Future<A> first, Future<B> second, BiFunction<A, B, T> stage) {
+        return submit(() -> stage.apply(await(first), await(second)));
+    }
+
+    /**
+     * Waits for a stage until the shared deadline. If any stage has failed, the first failure is rethrown, unchecked
+     * exceptions as is.
+     */
+    public <T> T await(Future<T> stage) {
+        var remaining = Duration.between(clock.instant(), deadline);
+        try {
+            return stage.get(Math.max(remaining.toMillis(), 0), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw fail(new IllegalStateException(INTERRUPTED_MESSAGE, e));
+        } catch (TimeoutException e) {
+            throw fail(new IllegalStateException(DEADLINE_EXCEEDED_MESSAGE.formatted(remaining.toMillis()), e));
+        } catch (ExecutionException e) {
+            throw fail(e.getCause());
+        } catch (CancellationException e) {
+            throw fail(e);
+        }
+    }
+
+    public Duration remainingTime() {
+        return Duration.between(clock.instant(), deadline);
+    }
+
+    @Override
+    public void close() {
+        cancelAll();
+    }
+
+    private RuntimeException fail(Throwable cause) {
+        firstFailure.compareAndSet(null, cause);
+        cancelAll();
+        var failure = firstFailure.get();
+        if (failure instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        if (failure instanceof Error error) {
+            throw error;
+        }
+        return new IllegalStateException(failure);
+    }
+
+    private void cancelAll() {
+        stages.forEach(stage -> stage.cancel(true));
+    }
+}
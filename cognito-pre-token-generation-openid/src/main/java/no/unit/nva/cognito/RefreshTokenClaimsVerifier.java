@@ -0,0 +1,224 @@
+package no.unit.nva.cognito;
+
+import static no.unit.nva.cognito.CognitoClaims.ACCESS_RIGHTS_CLAIM;
+import static no.unit.nva.cognito.CognitoClaims.ALLOWED_CUSTOMERS_CLAIM;
+import static no.unit.nva.cognito.CognitoClaims.CLAIMS_EXPIRE_AT;
+import static no.unit.nva.cognito.CognitoClaims.CURRENT_CUSTOMER_CLAIM;
+import static no.unit.nva.cognito.CognitoClaims.CURRENT_TERMS;
+import static no.unit.nva.cognito.CognitoClaims.CUSTOMER_ACCEPTED_TERMS;
+import static no.unit.nva.cognito.CognitoClaims.ELEMENTS_DELIMITER;
+import static no.unit.nva.cognito.CognitoClaims.EMPTY_CLAIM;
+import static no.unit.nva.cognito.CognitoClaims.FEIDE_ID;
+import static no.unit.nva.cognito.CognitoClaims.FIRST_NAME_CLAIM;
+import static no.unit.nva.cognito.CognitoClaims.IMPERSONATED_BY_CLAIM;
+import static no.unit.nva.cognito.CognitoClaims.IMPERSONATING_CLAIM;
+import static no.unit.nva.cognito.CognitoClaims.LAST_NAME_CLAIM;
+import static no.unit.nva.cognito.CognitoClaims.NVA_USERNAME_CLAIM;
+import static no.unit.nva.cognito.CognitoClaims.PERSON_AFFILIATION_CLAIM;
+import static no.unit.nva.cognito.CognitoClaims.PERSON_CRISTIN_ID_CLAIM;
+import static no.unit.nva.cognito.CognitoClaims.ROLES_CLAIM;
+import static no.unit.nva.cognito.CognitoClaims.TOP_ORG_CRISTIN_ID;
+import static no.unit.nva.cognito.CognitoClaims.VIEWING_SCOPE_EXCLUDED_CLAIM;
+import static no.unit.nva.cognito.CognitoClaims.VIEWING_SCOPE_INCLUDED_CLAIM;
+import static nva.commons.core.StringUtils.isBlank;
+import static nva.commons.core.attempt.Try.attempt;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import no.unit.nva.customer.model.CustomerDto;
+import no.unit.nva.customer.service.CustomerService;
+import no.unit.nva.database.IdentityService;
+import no.unit.nva.database.TermsAndConditionsService;
+import no.unit.nva.useraccessservice.model.RoleDto;
+import no.unit.nva.useraccessservice.model.RoleName;
+import no.unit.nva.useraccessservice.model.UserDto;
+import no.unit.nva.useraccessservice.model.ViewingScope;
+import nva.commons.apigateway.AccessRight;
+import nva.commons.apigateway.exceptions.NotFoundException;
+import nva.commons.core.paths.UriWrapper;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.AttributeType;
+
+/**
+ * Decides whether the claims stored on the Cognito user by the last full login can be reused when tokens are
+ * refreshed. The stored claims for the current customer are compared with what the current user and customer items
+ * would produce now. Reuse is refused when they differ, when terms have not been accepted, or when the user is
+ * impersonating.
+ *
+ * <p>Employments and the allowed customers come from Cristin, which is only read on a full login. The stored claims
+ * therefore carry an expiry, and reuse is refused once it has passed, so that ended employments are picked up within
+ * {@link #CLAIMS_MAX_AGE} rather than within the lifetime of the refresh token.
+ */
+public class RefreshTokenClaimsVerifier {
+
+    public static final Duration CLAIMS_MAX_AGE = Duration.ofHours(2);
+
+    private static final List<String> ATTRIBUTES_WRITTEN_ON_LOGIN = List.of(FIRST_NAME_CLAIM,
+                                                                            LAST_NAME_CLAIM,
+                                                                            ACCESS_RIGHTS_CLAIM,
+                                                                            ROLES_CLAIM,
+                                                                            ALLOWED_CUSTOMERS_CLAIM,
+                                                                            PERSON_CRISTIN_ID_CLAIM,
+                                                                            IMPERSONATED_BY_CLAIM,
+                                                                            CURRENT_TERMS,
+                                                                            CUSTOMER_ACCEPTED_TERMS,
+                                                                            CURRENT_CUSTOMER_CLAIM,
+                                                                            TOP_ORG_CRISTIN_ID,
+                                                                            NVA_USERNAME_CLAIM,
+                                                                            PERSON_AFFILIATION_CLAIM,
+                                                                            VIEWING_SCOPE_INCLUDED_CLAIM,
+                                                                            VIEWING_SCOPE_EXCLUDED_CLAIM,
+                                                                            CLAIMS_EXPIRE_AT);
+    // Written as an empty string when there is nothing to store. Cognito keeps no empty attributes, and login skips
+    // writing an empty value over a missing one, so these are read as empty when they are missing.
+    private static final Set<String> ATTRIBUTES_THAT_MAY_BE_EMPTY = Set.of(ACCESS_RIGHTS_CLAIM,
+                                                                           ROLES_CLAIM,
+                                                                           IMPERSONATED_BY_CLAIM,
+                                                                           CUSTOMER_ACCEPTED_TERMS);
+    private static final String VIEWING_SCOPE_DELIMITER = ",";
+
+    private final CustomerService customerService;
+    private final IdentityService identityService;
+    private final TermsAndConditionsService termsService;
+
+    public RefreshTokenClaimsVerifier(CustomerService customerService,
+                                      IdentityService identityService,
+                                      TermsAndConditionsService termsService) {
+        this.customerService = customerService;
+        this.identityService = identityService;
+        this.termsService = termsService;
+    }
+
+    /**
+     * Returns the stored claims if they are still current.
+     *
+     * @param storedAttributes the user attributes Cognito passed in the trigger event
+     * @return the stored claims and groups, or empty when a full login is needed
+     */
+    public Optional<VerifiedClaims> verify(Map<String, String> storedAttributes) {
+        if (!hasCompleteLoginForCurrentTerms(storedAttributes)
+            || isImpersonating(storedAttributes)
+            || hasExpired(storedAttributes)) {
+            return Optional.empty();
+        }
+        var user = attempt(() -> fetchUser(storedAttributes.get(NVA_USERNAME_CLAIM))).toOptional();
+        var customer = attempt(() -> customerService.getCustomerWithoutWaiting(
+            URI.create(storedAttributes.get(CURRENT_CUSTOMER_CLAIM)))).toOptional();
+        if (user.isEmpty() || customer.isEmpty()
+            || !isCurrent(storedAttributes, user.get(), customer.get())) {
+            return Optional.empty();
+        }
+        return Optional.of(new VerifiedClaims(toAttributeTypes(storedAttributes),
+                                              groups(user.get(), customer.get())));
+    }
+
+    /**
+     * Returns when the claims written by a full login stop being reused. A stored expiry is kept while more than half
+     * of {@link #CLAIMS_MAX_AGE} is left, so that a login that changes nothing else does not have to write to Cognito.
+     */
+    public static Instant claimsExpireAt(Map<String, String> storedAttributes, Instant now) {
+        return storedExpiry(storedAttributes)
+                   .filter(expiry -> Duration.between(now, expiry).compareTo(CLAIMS_MAX_AGE.dividedBy(2)) > 0)
+                   .filter(expiry -> !expiry.isAfter(now.plus(CLAIMS_MAX_AGE)))
+                   .orElse(now.plus(CLAIMS_MAX_AGE));
+    }
+
+    private static boolean hasExpired(Map<String, String> storedAttributes) {
+        return storedExpiry(storedAttributes).filter(Instant.now()::isBefore).isEmpty();
+    }
+
+    private static Optional<Instant> storedExpiry(Map<String, String> storedAttributes) {
+        return Optional.ofNullable(storedAttributes.get(CLAIMS_EXPIRE_AT))
+                   .flatMap(value -> attempt(() -> Instant.parse(value)).toOptional());
+    }
+
+    private boolean hasCompleteLoginForCurrentTerms(Map<String, String> storedAttributes) {
+        var currentTerms = termsService.getCurrentTermsAndConditions().termsConditionsUri().toString();
+        return ATTRIBUTES_WRITTEN_ON_LOGIN.stream()
+                   .allMatch(name -> storedAttributes.containsKey(name) || ATTRIBUTES_THAT_MAY_BE_EMPTY.contains(name))
+               && !EMPTY_CLAIM.equals(storedAttributes.get(CURRENT_CUSTOMER_CLAIM))
+               && !EMPTY_CLAIM.equals(storedAttributes.get(NVA_USERNAME_CLAIM))
+               && currentTerms.equals(storedAttributes.get(CURRENT_TERMS))
+               && currentTerms.equals(storedAttributes.get(CUSTOMER_ACCEPTED_TERMS));
+    }
+
+    private static boolean isImpersonating(Map<String, String> storedAttributes) {
+        return !isBlank(storedAttributes.get(IMPERSONATING_CLAIM))
+               || !isBlank(storedAttributes.get(IMPERSONATED_BY_CLAIM));
+    }
+
+    private UserDto fetchUser(String username) throws NotFoundException {
+        return identityService.getUser(UserDto.newBuilder().withUsername(username).build());
+    }
+
+    private static boolean isCurrent(Map<String, String> storedAttributes, UserDto user, CustomerDto customer) {
+        return customer.isActive()
+               && customer.getId().equals(user.getInstitution())
+               && Objects.equals(String.valueOf(user.getCristinId()), storedAttributes.get(PERSON_CRISTIN_ID_CLAIM))
+               && Objects.equals(String.valueOf(customer.getCristinId()), storedAttributes.get(TOP_ORG_CRISTIN_ID))
+               && Objects.equals(String.valueOf(user.getAffiliation()), storedAttributes.get(PERSON_AFFILIATION_CLAIM))
+               && elements(storedAttributes.get(ROLES_CLAIM), ELEMENTS_DELIMITER).equals(roleNames(user))
+               && elements(storedAttributes.get(ACCESS_RIGHTS_CLAIM), ELEMENTS_DELIMITER).equals(accessRights(user))
+               && elements(storedAttributes.get(VIEWING_SCOPE_INCLUDED_CLAIM), VIEWING_SCOPE_DELIMITER)
+                      .equals(viewingScope(user, ViewingScope::getIncludedUnits))
+               && elements(storedAttributes.get(VIEWING_SCOPE_EXCLUDED_CLAIM), VIEWING_SCOPE_DELIMITER)
+                      .equals(viewingScope(user, ViewingScope::getExcludedUnits));
+    }
+
+    private static Set<String> roleNames(UserDto user) {
+        return user.getRoles().stream()
+                   .map(RoleDto::getRoleName)
+                   .map(RoleName::getValue)
+                   .collect(Collectors.toSet());
+    }
+
+    private static Set<String> accessRights(UserDto user) {
+        return user.getAccessRights().stream()
+                   .map(AccessRight::toPersistedString)
+                   .collect(Collectors.toSet());
+    }
+
+    private static Set<String> viewingScope(UserDto user, Function<ViewingScope, Set<URI>> unitExtractor) {
+        return Optional.ofNullable(user.getViewingScope())
+                   .map(unitExtractor)
+                   .stream()
+                   .flatMap(Collection::stream)
+                   .map(UriWrapper::fromUri)
+                   .map(UriWrapper::getLastPathElement)
+                   .collect(Collectors.toSet());
+    }
+
+    private static Set<String> elements(String claim, String delimiter) {
+        if (isBlank(claim) || EMPTY_CLAIM.equals(claim)) {
+            return Set.of();
+        }
+        return Arrays.stream(claim.split(delimiter)).collect(Collectors.toSet());
+    }
+
+    private static List<String> groups(UserDto user, CustomerDto customer) {
+        return UserAccessRightForCustomer.fromUser(user, Set.of(customer), true).stream()
+                   .map(UserAccessRightForCustomer::toString)
+                   .toList();
+    }
+
+    private static List<AttributeType> toAttributeTypes(Map<String, String> storedAttributes) {
+        return Stream.concat(ATTRIBUTES_WRITTEN_ON_LOGIN.stream(), Stream.of(FEIDE_ID))
+                   .filter(storedAttributes::containsKey)
+                   .map(name -> AttributeType.builder().name(name).value(storedAttributes.get(name)).build())
+                   .toList();
+    }
+
+    public record VerifiedClaims(List<AttributeType> userAttributes, List<String> groups) {
+
+    }
+}
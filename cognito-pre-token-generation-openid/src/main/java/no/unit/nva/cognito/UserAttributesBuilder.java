@@ -1,6 +1,7 @@
 package no.unit.nva.cognito;
 
 import java.net.URI;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -22,6 +23,7 @@ import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 import static no.unit.nva.cognito.CognitoClaims.ACCESS_RIGHTS_CLAIM;
 import static no.unit.nva.cognito.CognitoClaims.ALLOWED_CUSTOMERS_CLAIM;
+import static no.unit.nva.cognito.CognitoClaims.CLAIMS_EXPIRE_AT;
 import static no.unit.nva.cognito.CognitoClaims.CURRENT_CUSTOMER_CLAIM;
 import static no.unit.nva.cognito.CognitoClaims.CURRENT_TERMS;
 import static no.unit.nva.cognito.CognitoClaims.CUSTOMER_ACCEPTED_TERMS;
@@ -51,6 +53,7 @@ public class UserAttributesBuilder {
     private String impersonatedBy;
     private UserDto currentUser;
     private List<String> accessRightsPersistedFormat;
+    private Instant claimsExpireAt;
     private static final String EMPTY_STRING = "";
 
     public UserAttributesBuilder withPerson(Person person) {
@@ -103,6 +106,11 @@ public class UserAttributesBuilder {
         return this;
     }
 
+    public UserAttributesBuilder withClaimsExpireAt(Instant claimsExpireAt) {
+        this.claimsExpireAt = claimsExpireAt;
+        return this;
+    }
+
     public List<AttributeType> build() {
         var userAttributes = new ArrayList<AttributeType>();
         userAttributes.add(createAttribute(FIRST_NAME_CLAIM, person.getFirstname()));
@@ -150,6 +158,8 @@ public class UserAttributesBuilder {
         userAttributes.add(
             createAttribute(VIEWING_SCOPE_EXCLUDED_CLAIM, uriSetToCommaSeparatedString(viewingScopeExcluded)));
 
+        userAttributes.add(createAttribute(CLAIMS_EXPIRE_AT, claimsExpireAt.toString()));
+
         return userAttributes;
     }
 
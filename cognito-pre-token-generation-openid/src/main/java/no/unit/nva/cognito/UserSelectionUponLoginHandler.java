@@ -17,11 +17,14 @@ import no.unit.nva.customer.model.CustomerDto;
 import no.unit.nva.customer.service.CustomerService;
 import no.unit.nva.database.IdentityService;
 import no.unit.nva.database.TermsAndConditionsService;
+import no.unit.nva.useraccessservice.metrics.MetricsLogger;
+import no.unit.nva.useraccessservice.metrics.StageTimer;
 import no.unit.nva.useraccessservice.model.TermsConditionsResponse;
 import no.unit.nva.useraccessservice.model.UserDto;
 import no.unit.nva.useraccessservice.usercreation.UserCreationContext;
 import no.unit.nva.useraccessservice.usercreation.UserEntriesCreatorForPerson;
 import no.unit.nva.useraccessservice.usercreation.person.Affiliation;
+import no.unit.nva.useraccessservice.usercreation.person.CachingPersonRegistry;
 import no.unit.nva.useraccessservice.usercreation.person.NationalIdentityNumber;
 import no.unit.nva.useraccessservice.usercreation.person.Person;
 import no.unit.nva.useraccessservice.usercreation.person.PersonRegistry;
@@ -31,7 +34,6 @@ import nva.commons.apigateway.AccessRight;
 import nva.commons.core.Environment;
 import nva.commons.core.JacocoGenerated;
 import nva.commons.core.SingletonCollector;
-import nva.commons.core.attempt.Failure;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.auth.credentials.EnvironmentVariableCredentialsProvider;
@@ -42,16 +44,23 @@ import software.amazon.awssdk.services.cognitoidentityprovider.model.AdminUpdate
 import software.amazon.awssdk.services.cognitoidentityprovider.model.AttributeType;
 
 import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
+import static java.util.Objects.requireNonNullElse;
 import static no.unit.nva.cognito.CognitoClaims.CLAIMS_TO_BE_INCLUDED_IN_ACCESS_TOKEN;
 import static no.unit.nva.cognito.CognitoClaims.CLAIMS_TO_BE_SUPPRESSED_FROM_PUBLIC;
 import static no.unit.nva.cognito.CognitoClaims.CURRENT_CUSTOMER_CLAIM;
@@ -62,6 +71,13 @@ import static no.unit.nva.cognito.CognitoClaims.NIN_FOR_NON_FEIDE_USERS;
 import static no.unit.nva.customer.Constants.defaultCustomerService;
 import static no.unit.nva.database.DatabaseConfig.DEFAULT_DYNAMO_CLIENT;
 import static no.unit.nva.database.IdentityService.defaultIdentityService;
+import static no.unit.nva.useraccessservice.metrics.Stage.CLAIMS_VERIFICATION;
+import static no.unit.nva.useraccessservice.metrics.Stage.CLAIM_BUILD;
+import static no.unit.nva.useraccessservice.metrics.Stage.COGNITO_WRITE;
+import static no.unit.nva.useraccessservice.metrics.Stage.CUSTOMER_RESOLUTION;
+import static no.unit.nva.useraccessservice.metrics.Stage.PERSON_FETCH;
+import static no.unit.nva.useraccessservice.metrics.Stage.TERMS_LOOKUP;
+import static no.unit.nva.useraccessservice.metrics.Stage.USER_CREATION;
 import static nva.commons.apigateway.AccessRight.ACT_AS;
 import static nva.commons.core.StringUtils.isBlank;
 import static nva.commons.core.attempt.Try.attempt;
@@ -78,27 +94,41 @@ public class UserSelectionUponLoginHandler
     private static final Logger LOGGER = LoggerFactory.getLogger(UserSelectionUponLoginHandler.class);
     private static final String CUSTOMER_IS_INACTIVE_ERROR_MESSAGE
         = "Customer is inactive {} when logging in as {} with the following affiliations: {}";
-    private static final String FAILED_TO_RETRIEVE_CUSTOMER_FOR_ACTIVE_AFFILIATION
-        = "Failed to retrieve customer for active affiliation %s when logging in as %s with the following "
-          + "affiliations: %s";
+    private static final String NO_CUSTOMER_FOR_ACTIVE_AFFILIATION
+        = "No customer found for active affiliation %s when logging in as %s with the following affiliations: %s";
     public static final String TRIGGER_SOURCE_REFRESH_TOKENS = "TokenGeneration_RefreshTokens";
     // private static final String N_A = "N/A";
     private static final String WHITESPACE_REGEX = "\\s+";
     private static final int ONE = 1;
+    private static final int ZERO = 0;
+    private static final String EMPTY_STRING = "";
+    private static final String TRIGGER_SOURCE_DIMENSION = "TriggerSource";
+    private static final String IMPERSONATING_DIMENSION = "Impersonating";
+    private static final Duration COGNITO_TRIGGER_BUDGET = Duration.ofSeconds(5);
+    private static final Duration DEADLINE_SAFETY_MARGIN = Duration.ofMillis(500);
+    // Time left for the work that has to happen after the customer lookups (user creation, Cognito update).
+    private static final Duration RESERVED_FOR_REMAINING_WORK = Duration.ofMillis(1500);
+    private static final String COGNITO_ATTRIBUTE_WRITES_PERFORMED = "CognitoAttributeWritesPerformed";
+    private static final String COGNITO_ATTRIBUTE_WRITES_SKIPPED = "CognitoAttributeWritesSkipped";
+    private static final String COGNITO_ATTRIBUTES_WRITTEN = "CognitoAttributesWritten";
     private static final String ERROR_COULD_NOT_DECODE_FEIDE_NAME_VALUE = "Could not decode feide name value: {}";
     private final CustomerService customerService;
     private final CognitoIdentityProviderClient cognitoClient;
     private final UserEntriesCreatorForPerson userCreator;
     private final PersonRegistry personRegistry;
     private final TermsAndConditionsService termsService;
+    private final RefreshTokenClaimsVerifier refreshTokenClaimsVerifier;
 
     @JacocoGenerated
     public UserSelectionUponLoginHandler() {
+        var identityService = defaultIdentityService(DEFAULT_DYNAMO_CLIENT);
         this.cognitoClient = defaultCognitoClient();
         this.customerService = defaultCustomerService(DEFAULT_DYNAMO_CLIENT);
-        this.userCreator = new UserEntriesCreatorForPerson(defaultIdentityService(DEFAULT_DYNAMO_CLIENT));
+        this.userCreator = new UserEntriesCreatorForPerson(identityService);
         this.termsService = new TermsAndConditionsService();
-        this.personRegistry = CristinPersonRegistry.defaultPersonRegistry();
+        this.personRegistry = new CachingPersonRegistry(CristinPersonRegistry.defaultPersonRegistry());
+        this.refreshTokenClaimsVerifier = new RefreshTokenClaimsVerifier(customerService, identityService,
+                                                                         termsService);
     }
 
     @JacocoGenerated
@@ -122,6 +152,8 @@ public class UserSelectionUponLoginHandler
         this.personRegistry = personRegistry;
         this.userCreator = new UserEntriesCreatorForPerson(identityService);
         this.termsService = termsService;
+        this.refreshTokenClaimsVerifier = new RefreshTokenClaimsVerifier(customerService, identityService,
+                                                                         termsService);
     }
 
     private static NationalIdentityNumber extractNin(Map<String, String> userAttributes) {
@@ -141,57 +173,92 @@ public class UserSelectionUponLoginHandler
         return userAttributes.get(FEIDE_ID);
     }
 
-    private static void logIfDebug(String s, Instant start) {
-        if (LOGGER.isDebugEnabled()) {
-            LOGGER.debug(s, Instant.now().toEpochMilli() - start.toEpochMilli());
-        }
-    }
-
     @Override
     @SuppressWarnings("PMD.AvoidCatchingGenericException")
     public CognitoUserPoolPreTokenGenerationEventV2 handleRequest(
         CognitoUserPoolPreTokenGenerationEventV2 input, Context context) {
         try {
-            return processInput(input);
+            return processInput(input, context);
         } catch (Exception e) {
             LOGGER.error("Failed to process input due to", e);
             throw e;
         }
     }
 
-    private CognitoUserPoolPreTokenGenerationEventV2 processInput(CognitoUserPoolPreTokenGenerationEventV2 input) {
+    private CognitoUserPoolPreTokenGenerationEventV2 processInput(CognitoUserPoolPreTokenGenerationEventV2 input,
+                                                                  Context context) {
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("Entering request handler...");
         }
 
-        final var start = Instant.now();
-
-        final var authenticationDetails = extractAuthenticationDetails(input);
-
-        var startFetchingPerson = Instant.now();
-
-        var attributes = input.getRequest().getUserAttributes();
+        // Read-only snapshot: the stages read the attributes from worker threads while this thread goes on using them.
+        var attributes = Collections.unmodifiableMap(new HashMap<>(input.getRequest().getUserAttributes()));
         var impersonating = attributes.get(IMPERSONATING_CLAIM);
-        var nin = getCurrentNin(impersonating, authenticationDetails);
+        var stageTimer = StageTimer.defaultStageTimer()
+                             .withDimension(TRIGGER_SOURCE_DIMENSION, input.getTriggerSource())
+                             .withDimension(IMPERSONATING_DIMENSION, String.valueOf(!isBlank(impersonating)));
+        try (var stages = new AsyncStages(deadline(context), Clock.systemUTC())) {
+            return processInput(input, attributes, impersonating, stageTimer, stages);
+        } finally {
+            personRegistry.putCacheMetrics(stageTimer.metrics());
+            stageTimer.finish();
+        }
+    }
 
-        var person = personRegistry.fetchPersonByNin(nin)
-                         .or(() -> createPerson(attributes, nin)).orElseThrow();
+    private static Instant deadline(Context context) {
+        var remainingTime = Duration.ofMillis(context.getRemainingTimeInMillis()).minus(DEADLINE_SAFETY_MARGIN);
+        var timeAvailable = remainingTime.isPositive() && remainingTime.compareTo(COGNITO_TRIGGER_BUDGET) < 0
+                                ? remainingTime
+                                : COGNITO_TRIGGER_BUDGET;
+        return Instant.now().plus(timeAvailable);
+    }
+
+    private CognitoUserPoolPreTokenGenerationEventV2 processInput(CognitoUserPoolPreTokenGenerationEventV2 input,
+                                                                  Map<String, String> attributes,
+                                                                  String impersonating,
+                                                                  StageTimer stageTimer,
+                                                                  AsyncStages stages) {
+        if (TRIGGER_SOURCE_REFRESH_TOKENS.equals(input.getTriggerSource())) {
+            var verifiedClaims = stageTimer.time(CLAIMS_VERIFICATION,
+                                                 () -> refreshTokenClaimsVerifier.verify(attributes));
+            if (verifiedClaims.isPresent()) {
+                input.setResponse(Response.builder()
+                                      .withClaimsAndScopeOverrideDetails(
+                                          buildOverrideClaims(verifiedClaims.get().groups(),
+                                                              verifiedClaims.get().userAttributes()))
+                                      .build());
+                return input;
+            }
+        }
 
-        logIfDebug("Got person details from registry in {} ms.", startFetchingPerson);
+        final var authenticationDetails = extractAuthenticationDetails(input);
+        var nin = getCurrentNin(impersonating, authenticationDetails, stages);
+
+        var currentTermsStage = stages.submit(() -> stageTimer.time(
+            TERMS_LOOKUP, this::getCurrentTerms));
+        var personStage = stages.submit(() -> stageTimer.time(
+            PERSON_FETCH, () -> fetchOrCreatePerson(attributes, nin)));
+        var acceptedTermsStage = stages.submitAfter(personStage, person -> stageTimer.time(
+            TERMS_LOOKUP, () -> getAcceptedTerms(person)));
+        var customersStage = stages.submitAfter(personStage, person -> stageTimer.time(
+            CUSTOMER_RESOLUTION, () -> fetchCustomersWithActiveAffiliations(person, stages)));
+        var usersStage = stages.submitAfter(personStage, customersStage, (person, customers) -> stageTimer.time(
+            USER_CREATION, () -> createUsers(person, customers, authenticationDetails)));
 
         var impersonatedBy = getImpersonatedBy(impersonating, authenticationDetails);
 
-        var customersForPerson = fetchCustomersWithActiveAffiliations(person);
-        var currentCustomer = getCurrentCustomer(authenticationDetails, customersForPerson,
-                                                 input.getTriggerSource(), attributes);
+        var person = stages.await(personStage);
+        var customersForPerson = stages.await(customersStage);
+        var currentCustomer = stageTimer.time(CUSTOMER_RESOLUTION,
+                                              () -> getCurrentCustomer(authenticationDetails, customersForPerson,
+                                                                       input.getTriggerSource(), attributes));
 
-        var users = createUsers(person, customersForPerson, authenticationDetails);
-        var currentTerms = termsService
-                               .getCurrentTermsAndConditions()
-                               .termsConditionsUri();
-        var acceptedTerms = getAcceptedTerms(person);
+        var users = stages.await(usersStage);
+        var currentTerms = stages.await(currentTermsStage);
+        var acceptedTerms = stages.await(acceptedTermsStage);
         var hasAcceptedTerms = currentTerms.equals(acceptedTerms);
 
+        var claimBuild = stageTimer.start(CLAIM_BUILD);
         var currentUser = getCurrentUser(currentCustomer, users);
 
         var userAccessRights = createAccessRightForCustomer(users, customersForPerson, currentCustomer,
@@ -215,19 +282,33 @@ public class UserSelectionUponLoginHandler
                                                  .withImpersonatedBy(impersonatedBy)
                                                  .withCurrentUser(currentUser)
                                                  .withAccessRightsPersistedFormat(accessRightsPersistedFormat)
+                                                 .withClaimsExpireAt(
+                                                     RefreshTokenClaimsVerifier.claimsExpireAt(attributes,
+                                                                                               Instant.now()))
                                                  .build();
+        claimBuild.stop();
+
+        stageTimer.time(COGNITO_WRITE, () -> updateCognitoUserAttributes(userAttributes,
+                                                                         attributes,
+                                                                         authenticationDetails.getUserPoolId(),
+                                                                         authenticationDetails.getUsername(),
+                                                                         stageTimer.metrics()));
+
+        stageTimer.time(CLAIM_BUILD, () -> input.setResponse(
+            Response.builder()
+                .withClaimsAndScopeOverrideDetails(buildOverrideClaims(accessRightsResponseStrings, userAttributes))
+                .build()));
+        return input;
+    }
 
-        updateCognitoUserAttributes(userAttributes,
-                                    authenticationDetails.getUserPoolId(),
-                                    authenticationDetails.getUsername()
-        );
+    private URI getCurrentTerms() {
+        return termsService.getCurrentTermsAndConditions().termsConditionsUri();
+    }
 
-        input.setResponse(Response.builder()
-                              .withClaimsAndScopeOverrideDetails(
-                                  buildOverrideClaims(accessRightsResponseStrings, userAttributes))
-                              .build());
-        logIfDebug("Leaving request handler having spent {} ms.", start);
-        return input;
+    private Person fetchOrCreatePerson(Map<String, String> attributes, NationalIdentityNumber nin) {
+        return personRegistry.fetchPersonByNin(nin)
+                   .or(() -> createPerson(attributes, nin))
+                   .orElseThrow();
     }
 
     private Optional<Person> createPerson(Map<String, String> attributes, NationalIdentityNumber nin) {
@@ -250,9 +331,10 @@ public class UserSelectionUponLoginHandler
     }
 
     private static IllegalStateException getIllegalStateException(String message, Map<String, String> attributes) {
-        attributes.remove(NIN_FOR_FEIDE_USERS);
-        attributes.remove(NIN_FOR_NON_FEIDE_USERS);
-        LOGGER.error(attempt(() -> JsonUtils.dtoObjectMapper.writeValueAsString(attributes)).orElseThrow());
+        var attributesWithoutNin = new HashMap<>(attributes);
+        attributesWithoutNin.remove(NIN_FOR_FEIDE_USERS);
+        attributesWithoutNin.remove(NIN_FOR_NON_FEIDE_USERS);
+        LOGGER.error(attempt(() -> JsonUtils.dtoObjectMapper.writeValueAsString(attributesWithoutNin)).orElseThrow());
         return new IllegalStateException(message.formatted(attributes.getOrDefault(CognitoClaims.NAME_CLAIM, null)));
     }
 
@@ -324,7 +406,7 @@ public class UserSelectionUponLoginHandler
     }
 
     private NationalIdentityNumber getCurrentNin(
-        String impersonating, AuthenticationDetails authenticationDetails) {
+        String impersonating, AuthenticationDetails authenticationDetails, AsyncStages stages) {
 
         if (isNull(impersonating)) {
             return authenticationDetails.getNin();
@@ -336,7 +418,7 @@ public class UserSelectionUponLoginHandler
                     authenticationDetails.getUsername(),
                     impersonating);
 
-        var customerForImpersonators = fetchCustomersWithActiveAffiliations(impersonator);
+        var customerForImpersonators = fetchCustomersWithActiveAffiliations(impersonator, stages);
         var usersForImpersonator = createUsers(impersonator, customerForImpersonators, authenticationDetails);
         var impersonatorsAccessRights = usersForImpersonator
                                             .stream()
@@ -441,10 +523,18 @@ public class UserSelectionUponLoginHandler
                || feideDomain.equalsIgnoreCase(customer.getFeideOrganizationDomain());
     }
 
-    private Set<CustomerDto> fetchCustomersWithActiveAffiliations(final Person person) {
-        return person.getAffiliations().stream()
-                   .map(Affiliation::getInstitutionId)
-                   .map(institutionId -> getCustomerByCristinIdOrLogError(institutionId, person))
+    /**
+     * Affiliations whose customer lookup fails or does not finish in time are logged and skipped, like affiliations
+     * without a customer, so that the login can go on with the customers that were found.
+     */
+    private Set<CustomerDto> fetchCustomersWithActiveAffiliations(final Person person, AsyncStages stages) {
+        var institutionIds = person.getAffiliations().stream()
+                                 .map(Affiliation::getInstitutionId)
+                                 .collect(Collectors.toCollection(LinkedHashSet::new));
+        var customers = customerService.getCustomersByCristinIds(institutionIds, customerLookupTimeout(stages));
+        return institutionIds.stream()
+                   .map(institutionId -> Optional.ofNullable(customers.get(institutionId))
+                                             .or(() -> logMissingCustomer(institutionId, person)))
                    .flatMap(Optional::stream)
                    .filter(customer -> logInactiveInstitutions(customer, person))
                    .collect(Collectors.toSet());
@@ -457,26 +547,47 @@ public class UserSelectionUponLoginHandler
         return customerDto.isActive();
     }
 
-    private Optional<CustomerDto> getCustomerByCristinIdOrLogError(URI organizationId, Person person) {
-        return attempt(() -> customerService.getCustomerByCristinId(organizationId))
-                   .map(Optional::of)
-                   .orElse(fail -> logFailure(fail, organizationId, person));
+    // Leaves time for the rest of the login, so that lookups that are too slow are skipped rather than failing it.
+    private static Duration customerLookupTimeout(AsyncStages stages) {
+        var remainingTime = stages.remainingTime();
+        var timeAvailable = remainingTime.minus(RESERVED_FOR_REMAINING_WORK);
+        return timeAvailable.isPositive() ? timeAvailable : remainingTime;
     }
 
-    private Optional<CustomerDto> logFailure(Failure<Optional<CustomerDto>> fail, URI organizationId, Person person) {
-        var message = String.format(FAILED_TO_RETRIEVE_CUSTOMER_FOR_ACTIVE_AFFILIATION,
-                                    organizationId,
-                                    person.getId(),
-                                    person.getAffiliations());
-        LOGGER.info(message, fail.getException());
+    private Optional<CustomerDto> logMissingCustomer(URI organizationId, Person person) {
+        if (LOGGER.isInfoEnabled()) {
+            LOGGER.info(String.format(NO_CUSTOMER_FOR_ACTIVE_AFFILIATION,
+                                      organizationId,
+                                      person.getId(),
+                                      person.getAffiliations()));
+        }
         return Optional.empty();
     }
 
     private void updateCognitoUserAttributes(Collection<AttributeType> userAttributes,
-                                             String userPoolId, String username) {
-        final var updateUserAttributesRequest =
-            createUpdateUserAttributesRequest(userAttributes, userPoolId, username);
-        cognitoClient.adminUpdateUserAttributes(updateUserAttributesRequest);
+                                             Map<String, String> storedAttributes,
+                                             String userPoolId, String username, MetricsLogger metrics) {
+        var changedAttributes = userAttributes.stream()
+                                    .filter(attribute -> hasChanged(attribute, storedAttributes))
+                                    .toList();
+        var isWriteNeeded = !changedAttributes.isEmpty();
+        if (isWriteNeeded) {
+            final var updateUserAttributesRequest =
+                createUpdateUserAttributesRequest(changedAttributes, userPoolId, username);
+            cognitoClient.adminUpdateUserAttributes(updateUserAttributesRequest);
+        }
+        metrics.putCount(COGNITO_ATTRIBUTE_WRITES_PERFORMED, isWriteNeeded ? ONE : ZERO)
+            .putCount(COGNITO_ATTRIBUTE_WRITES_SKIPPED, isWriteNeeded ? ZERO : ONE)
+            .putCount(COGNITO_ATTRIBUTES_WRITTEN, changedAttributes.size());
+    }
+
+    /**
+     * A missing attribute counts as empty, since Cognito keeps no empty attributes. The refresh path reads missing
+     * attributes the same way, see {@link RefreshTokenClaimsVerifier}.
+     */
+    private static boolean hasChanged(AttributeType attribute, Map<String, String> storedAttributes) {
+        return !Objects.equals(requireNonNullElse(attribute.value(), EMPTY_STRING),
+                               requireNonNullElse(storedAttributes.get(attribute.name()), EMPTY_STRING));
     }
 
     private AdminUpdateUserAttributesRequest createUpdateUserAttributesRequest(Collection<AttributeType> userAttributes,
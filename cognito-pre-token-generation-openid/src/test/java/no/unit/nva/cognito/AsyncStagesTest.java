@@ -0,0 +1,104 @@
+package no.unit.nva.cognito;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AsyncStagesTest {
+
+    private static final Duration DEADLINE = Duration.ofSeconds(5);
+
+    @Test
+    void shouldRunIndependentStagesInParallel() {
+        var bothStarted = new CountDownLatch(2);
+        try (var stages = newStages(DEADLINE)) {
+            var first = stages.submit(() -> awaitOther(bothStarted));
+            var second = stages.submit(() -> awaitOther(bothStarted));
+
+            assertThat(stages.await(first), is(equalTo(true)));
+            assertThat(stages.await(second), is(equalTo(true)));
+        }
+    }
+
+    @Test
+    void shouldPassResultsOfDependenciesToDependentStage() {
+        try (var stages = newStages(DEADLINE)) {
+            var first = stages.submit(() -> 2);
+            var second = stages.submitAfter(first, value -> value * 3);
+            var third = stages.submitAfter(first, second, Integer::sum);
+
+            assertThat(stages.await(third), is(equalTo(8)));
+        }
+    }
+
+    @Test
+    void shouldRethrowOriginalFailureWhenAwaitingStageThatDependsOnFailedStage() {
+        try (var stages = newStages(DEADLINE)) {
+            var failing = stages.<Integer>submit(() -> {
+                throw new IllegalArgumentException("failed");
+            });
+            var dependent = stages.submitAfter(failing, value -> value + 1);
+
+            var exception = assertThrows(IllegalArgumentException.class, () -> stages.await(dependent));
+            assertThat(exception.getMessage(), is(equalTo("failed")));
+        }
+    }
+
+    @Test
+    void shouldCancelOutstandingStagesWhenStageFails() throws InterruptedException {
+        var started = new CountDownLatch(1);
+        var interrupted = new CountDownLatch(1);
+        try (var stages = newStages(DEADLINE)) {
+            stages.submit(() -> {
+                started.countDown();
+                return sleepUntilInterrupted(interrupted);
+            });
+            var failing = stages.submit(() -> {
+                started.await();
+                throw new IllegalArgumentException("failed");
+            });
+
+            assertThrows(IllegalArgumentException.class, () -> stages.await(failing));
+            assertThat(interrupted.await(DEADLINE.toMillis(), TimeUnit.MILLISECONDS), is(equalTo(true)));
+        }
+    }
+
+    @Test
+    void shouldFailWhenDeadlineHasPassed() {
+        try (var stages = newStages(Duration.ofMillis(50))) {
+            var slow = stages.submit(() -> sleepUntilInterrupted(new CountDownLatch(1)));
+
+            var exception = assertThrows(IllegalStateException.class, () -> stages.await(slow));
+            assertThat(exception.getMessage(), containsString("Deadline exceeded"));
+        }
+    }
+
+    private static AsyncStages newStages(Duration deadline) {
+        return new AsyncStages(Instant.now().plus(deadline), Clock.systemUTC());
+    }
+
+    private static boolean awaitOther(CountDownLatch bothStarted) throws InterruptedException {
+        bothStarted.countDown();
+        return bothStarted.await(DEADLINE.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private static boolean sleepUntilInterrupted(CountDownLatch interrupted) {
+        try {
+            Thread.sleep(DEADLINE.multipliedBy(2));
+            return false;
+        } catch (InterruptedException e) {
+            interrupted.countDown();
+            return true;
+        }
+    }
+}
@@ -8,6 +8,7 @@ import static no.unit.nva.RandomUserDataGenerator.randomRoleName;
 import static no.unit.nva.RandomUserDataGenerator.randomRoleNameButNot;
 import static no.unit.nva.cognito.CognitoClaims.ACCESS_RIGHTS_CLAIM;
 import static no.unit.nva.cognito.CognitoClaims.ALLOWED_CUSTOMERS_CLAIM;
+import static no.unit.nva.cognito.CognitoClaims.CLAIMS_EXPIRE_AT;
 import static no.unit.nva.cognito.CognitoClaims.CURRENT_CUSTOMER_CLAIM;
 import static no.unit.nva.cognito.CognitoClaims.CURRENT_TERMS;
 import static no.unit.nva.cognito.CognitoClaims.CUSTOMER_ACCEPTED_TERMS;
@@ -45,15 +46,18 @@ import static no.unit.nva.useraccessservice.usercreation.person.cristin.CristinP
 import static no.unit.nva.useraccessservice.usercreation.person.cristin.CristinPersonRegistry.CRISTIN_USERNAME_SECRET_KEY;
 import static nva.commons.core.attempt.Try.attempt;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.emptyString;
 import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasItems;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
 import static org.hamcrest.collection.IsIn.in;
 import static org.hamcrest.core.Is.is;
@@ -77,6 +81,7 @@ import com.github.tomakehurst.wiremock.junit5.WireMockTest;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -744,6 +749,18 @@ class UserSelectionUponLoginHandlerTest {
         assertThrows(IllegalStateException.class, () -> handler.handleRequest(event, context));
     }
 
+    @Test
+    void shouldLeaveEventAttributesUnchangedWhenNameCannotBeExtracted() {
+        var mockPerson = mockPersonRegistry.mockResponseForPersonNotFound();
+        var event = feideLogin(mockPerson.nin());
+        event.getRequest().getUserAttributes().put(FIRST_NAME_CLAIM, "   ");
+        var attributesBeforeLogin = Map.copyOf(event.getRequest().getUserAttributes());
+
+        assertThrows(IllegalStateException.class, () -> handler.handleRequest(event, context));
+
+        assertThat(event.getRequest().getUserAttributes(), is(equalTo(attributesBeforeLogin)));
+    }
+
     @Test
     void shouldHandleFeideOrgRegardlessOfCase() throws NotFoundException {
         var mockPerson = scenarios.personWithExactlyOneActiveEmployment();
@@ -849,9 +866,13 @@ class UserSelectionUponLoginHandlerTest {
         userAttributes.put(CURRENT_CUSTOMER_CLAIM, customer.get().toString());
         event.getRequest().setUserAttributes(userAttributes);
         event.setTriggerSource(TRIGGER_SOURCE_REFRESH_TOKENS);
-        handler.handleRequest(event, context);
+        var response = handler.handleRequest(event, context);
 
-        final var customerId = extractClaimFromCognitoUpdateRequest(CURRENT_CUSTOMER_CLAIM);
+        final var customerId = response.getResponse()
+                                   .getClaimsAndScopeOverrideDetails()
+                                   .getAccessTokenGeneration()
+                                   .getClaimsToAddOrOverride()
+                                   .get(CURRENT_CUSTOMER_CLAIM);
         assertThat(customerId, is(not(equalTo(EMPTY_CLAIM))));
     }
 
@@ -874,6 +895,155 @@ class UserSelectionUponLoginHandlerTest {
         assertThat(allowedCustomers, is(equalTo(EMPTY_CLAIM)));
     }
 
+    @ParameterizedTest(name = "should reuse stored claims when refreshing tokens and nothing has changed")
+    @EnumSource(LoginEventType.class)
+    void shouldReuseStoredClaimsWithoutUpdatingCognitoWhenRefreshingTokensAndNothingHasChanged(
+        LoginEventType loginEventType) throws InvalidInputException, ConflictException, NotFoundException {
+        var personLoggingIn = scenarios.personWithExactlyOneActiveEmployment().nin();
+        var user = scenarios.createUsersForAllActiveAffiliations(personLoggingIn, identityService).stream()
+                       .collect(SingletonCollector.collect());
+        termsAndConditionsService.updateTermsAndConditions(user.getCristinId(), TERMS_URI, user.getUsername());
+        assignExistingRoleToUser(user, persistRoleToDatabase(randomAccessRights()));
+        var login = newLoginEvent(personLoggingIn, loginEventType);
+        var loginGroups = groupsToOverride(handler.handleRequest(login, context));
+        var storedAttributes = cognitoClient.getAdminUpdateUserRequest();
+
+        var refresh = refreshEventWithStoredAttributes(login, storedAttributes);
+        var refreshGroups = groupsToOverride(handler.handleRequest(refresh, context));
+
+        assertThat(cognitoClient.getAdminUpdateUserRequest(), is(sameInstance(storedAttributes)));
+        verify(personRegistry, times(1)).fetchPersonByNin(any());
+        assertThat(refreshGroups, containsInAnyOrder(loginGroups.toArray()));
+    }
+
+    @ParameterizedTest(name = "should reuse stored claims when refreshing tokens after a full login")
+    @EnumSource(LoginEventType.class)
+    void shouldReuseStoredClaimsWhenRefreshingTokensAfterFullLoginWithEmptyAttributes(LoginEventType loginEventType)
+        throws NotFoundException {
+        var personLoggingIn = scenarios.personWithExactlyOneActiveEmployment().nin();
+        var cristinPersonId = mockPersonRegistry.getCristinIdForPerson(personLoggingIn);
+        termsAndConditionsService.updateTermsAndConditions(cristinPersonId, TERMS_URI, randomString());
+        var login = newLoginEvent(personLoggingIn, loginEventType);
+        handler.handleRequest(login, context);
+        var storedAttributes = cognitoClient.getAdminUpdateUserRequest();
+
+        var refresh = refreshEventWithStoredAttributes(login, storedAttributes);
+        refresh.getRequest().getUserAttributes().values().removeIf(String::isEmpty);
+        handler.handleRequest(refresh, context);
+
+        assertThat(refresh.getRequest().getUserAttributes().containsKey(IMPERSONATED_BY_CLAIM), is(false));
+        assertThat(cognitoClient.getAdminUpdateUserRequest(), is(sameInstance(storedAttributes)));
+        verify(personRegistry, times(1)).fetchPersonByNin(any());
+    }
+
+    @ParameterizedTest(name = "should do a full login when refreshing tokens after the stored claims have expired")
+    @EnumSource(LoginEventType.class)
+    void shouldDoFullLoginWhenRefreshingTokensAfterStoredClaimsHaveExpired(LoginEventType loginEventType)
+        throws NotFoundException {
+        var personLoggingIn = scenarios.personWithExactlyOneActiveEmployment().nin();
+        var cristinPersonId = mockPersonRegistry.getCristinIdForPerson(personLoggingIn);
+        termsAndConditionsService.updateTermsAndConditions(cristinPersonId, TERMS_URI, randomString());
+        var login = newLoginEvent(personLoggingIn, loginEventType);
+        handler.handleRequest(login, context);
+        var storedAttributes = cognitoClient.getAdminUpdateUserRequest();
+
+        var refresh = refreshEventWithStoredAttributes(login, storedAttributes);
+        refresh.getRequest().getUserAttributes().put(CLAIMS_EXPIRE_AT, Instant.now().minusSeconds(1).toString());
+        handler.handleRequest(refresh, context);
+
+        verify(personRegistry, times(2)).fetchPersonByNin(any());
+        var claimsExpireAt = Instant.parse(extractClaimFromCognitoUpdateRequest(CLAIMS_EXPIRE_AT));
+        assertThat(claimsExpireAt, is(greaterThan(Instant.now())));
+    }
+
+    @ParameterizedTest(name = "should do a full login when refreshing tokens after the user's roles have changed")
+    @EnumSource(LoginEventType.class)
+    void shouldDoFullLoginWhenRefreshingTokensAfterUsersRolesHaveChanged(LoginEventType loginEventType)
+        throws InvalidInputException, ConflictException, NotFoundException {
+        var personLoggingIn = scenarios.personWithExactlyOneActiveEmployment().nin();
+        var user = scenarios.createUsersForAllActiveAffiliations(personLoggingIn, identityService).stream()
+                       .collect(SingletonCollector.collect());
+        termsAndConditionsService.updateTermsAndConditions(user.getCristinId(), TERMS_URI, user.getUsername());
+        var login = newLoginEvent(personLoggingIn, loginEventType);
+        handler.handleRequest(login, context);
+        var storedAttributes = cognitoClient.getAdminUpdateUserRequest();
+
+        var assignedAccessRights = randomAccessRights();
+        assignExistingRoleToUser(identityService.getUser(user), persistRoleToDatabase(assignedAccessRights));
+        handler.handleRequest(refreshEventWithStoredAttributes(login, storedAttributes), context);
+
+        assertThat(cognitoClient.getAdminUpdateUserRequest(), is(not(sameInstance(storedAttributes))));
+        verify(personRegistry, times(2)).fetchPersonByNin(any());
+        assertThatAccessRightsArePersistedInCognitoEntry(assignedAccessRights);
+    }
+
+    @ParameterizedTest(name = "should not write to Cognito when login produces the attributes already stored")
+    @EnumSource(LoginEventType.class)
+    void shouldNotWriteToCognitoWhenLoginProducesTheAttributesAlreadyStored(LoginEventType loginEventType) {
+        var personLoggingIn = scenarios.personWithExactlyOneActiveEmployment().nin();
+        var login = newLoginEvent(personLoggingIn, loginEventType);
+        handler.handleRequest(login, context);
+        var storedAttributes = cognitoClient.getAdminUpdateUserRequest();
+
+        var secondLogin = refreshEventWithStoredAttributes(login, storedAttributes);
+        secondLogin.setTriggerSource(login.getTriggerSource());
+        var response = handler.handleRequest(secondLogin, context);
+
+        assertThat(cognitoClient.getAdminUpdateUserRequest(), is(sameInstance(storedAttributes)));
+        assertThat(response.getResponse()
+                       .getClaimsAndScopeOverrideDetails()
+                       .getAccessTokenGeneration()
+                       .getClaimsToAddOrOverride()
+                       .get(CURRENT_CUSTOMER_CLAIM),
+                   is(equalTo(extractClaim(storedAttributes, CURRENT_CUSTOMER_CLAIM))));
+    }
+
+    @ParameterizedTest(name = "should write only changed attributes to Cognito")
+    @EnumSource(LoginEventType.class)
+    void shouldWriteOnlyChangedAttributesToCognito(LoginEventType loginEventType) {
+        var personLoggingIn = scenarios.personWithExactlyOneActiveEmployment().nin();
+        var login = newLoginEvent(personLoggingIn, loginEventType);
+        handler.handleRequest(login, context);
+        var storedAttributes = cognitoClient.getAdminUpdateUserRequest();
+
+        var secondLogin = refreshEventWithStoredAttributes(login, storedAttributes);
+        secondLogin.setTriggerSource(login.getTriggerSource());
+        secondLogin.getRequest().getUserAttributes().put(ROLES_CLAIM, randomString());
+        handler.handleRequest(secondLogin, context);
+
+        var writtenAttributes = cognitoClient.getAdminUpdateUserRequest().userAttributes().stream()
+                                    .map(AttributeType::name)
+                                    .toList();
+        assertThat(writtenAttributes, contains(ROLES_CLAIM));
+    }
+
+    private static String extractClaim(AdminUpdateUserAttributesRequest request, String claimName) {
+        return request.userAttributes().stream()
+                   .filter(attribute -> attribute.name().equals(claimName))
+                   .map(AttributeType::value)
+                   .collect(SingletonCollector.collect());
+    }
+
+    private static CognitoUserPoolPreTokenGenerationEventV2 refreshEventWithStoredAttributes(
+        CognitoUserPoolPreTokenGenerationEventV2 login, AdminUpdateUserAttributesRequest storedAttributes) {
+        var userAttributes = new HashMap<>(login.getRequest().getUserAttributes());
+        storedAttributes.userAttributes()
+            .forEach(attribute -> userAttributes.put(attribute.name(), attribute.value()));
+        var refresh = new CognitoUserPoolPreTokenGenerationEventV2();
+        refresh.setTriggerSource(TRIGGER_SOURCE_REFRESH_TOKENS);
+        refresh.setUserPoolId(login.getUserPoolId());
+        refresh.setUserName(login.getUserName());
+        refresh.setRequest(Request.builder().withUserAttributes(userAttributes).build());
+        return refresh;
+    }
+
+    private static List<String> groupsToOverride(CognitoUserPoolPreTokenGenerationEventV2 response) {
+        return Arrays.asList(response.getResponse()
+                                 .getClaimsAndScopeOverrideDetails()
+                                 .getGroupOverrideDetails()
+                                 .getGroupsToOverride());
+    }
+
     private void assertThatCustomerSelectionClaimsAreCleared() {
         final var customerId = extractClaimFromCognitoUpdateRequest(CURRENT_CUSTOMER_CLAIM);
         assertThat(customerId, is(equalTo(EMPTY_CLAIM)));
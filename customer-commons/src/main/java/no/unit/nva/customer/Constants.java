@@ -3,6 +3,7 @@ package no.unit.nva.customer;
 import nva.commons.apigateway.MediaType;
 import java.net.URI;
 import no.unit.nva.customer.service.CustomerService;
+import no.unit.nva.customer.service.impl.CachingCustomerService;
 import no.unit.nva.customer.service.impl.DynamoDBCustomerService;
 import nva.commons.apigateway.MediaTypes;
 import nva.commons.core.JacocoGenerated;
@@ -28,13 +29,25 @@ public final class Constants {
     private Constants() {
     }
 
+    /**
+     * The customer service of the process, whose customer snapshot is shared by every handler in the container.
+     */
     @JacocoGenerated
     public static CustomerService defaultCustomerService() {
-        return defaultCustomerService(DEFAULT_DYNAMO_CLIENT);
+        return DefaultCustomerService.INSTANCE;
     }
 
     @JacocoGenerated
     public static CustomerService defaultCustomerService(DynamoDbClient client) {
-        return new DynamoDBCustomerService(client);
+        return DEFAULT_DYNAMO_CLIENT.equals(client)
+                   ? DefaultCustomerService.INSTANCE
+                   : new CachingCustomerService(new DynamoDBCustomerService(client));
+    }
+
+    @JacocoGenerated
+    private static final class DefaultCustomerService {
+
+        private static final CustomerService INSTANCE =
+            new CachingCustomerService(new DynamoDBCustomerService(DEFAULT_DYNAMO_CLIENT));
     }
 }
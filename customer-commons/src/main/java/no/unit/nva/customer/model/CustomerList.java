@@ -1,5 +1,6 @@
 package no.unit.nva.customer.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import no.unit.nva.identityservice.json.JsonConfig;
@@ -23,8 +24,12 @@ import static nva.commons.core.attempt.Try.attempt;
 public class CustomerList {
 
     public static final String CUSTOMERS = "customers";
+    public static final String NEXT_RESULTS = "nextResults";
     @JsonProperty(CUSTOMERS)
     private List<CustomerReference> customers;
+    @JsonProperty(NEXT_RESULTS)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private URI nextResults;
 
     public CustomerList() {
 
@@ -34,6 +39,16 @@ public class CustomerList {
         this.customers = extractCustomers(customers);
     }
 
+    /**
+     * A page of a longer list, with a link to the next page when there is one.
+     */
+    public static CustomerList page(List<CustomerReference> customers, URI nextResults) {
+        var customerList = new CustomerList();
+        customerList.setCustomers(customers);
+        customerList.setNextResults(nextResults);
+        return customerList;
+    }
+
     private List<CustomerReference> extractCustomers(List<CustomerDto> customers) {
         return Optional.ofNullable(customers)
             .stream()
@@ -51,7 +66,7 @@ public class CustomerList {
     @Override
     @JacocoGenerated
     public int hashCode() {
-        return Objects.hash(getId(), getCustomers(), getContext());
+        return Objects.hash(getId(), getCustomers(), getNextResults(), getContext());
     }
 
     @JsonProperty(LINKED_DATA_CONTEXT)
@@ -72,6 +87,14 @@ public class CustomerList {
         this.customers = customers;
     }
 
+    public URI getNextResults() {
+        return nextResults;
+    }
+
+    public void setNextResults(URI nextResults) {
+        this.nextResults = nextResults;
+    }
+
     @Override
     @JacocoGenerated
     public boolean equals(Object o) {
@@ -84,6 +107,7 @@ public class CustomerList {
         CustomerList that = (CustomerList) o;
         return Objects.equals(getId(), that.getId())
             && Objects.equals(customers, that.customers)
+            && Objects.equals(nextResults, that.nextResults)
             && Objects.equals(getContext(), that.getContext());
     }
 
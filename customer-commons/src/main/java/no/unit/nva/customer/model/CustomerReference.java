@@ -5,10 +5,25 @@ import java.net.URI;
 import java.time.Instant;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import nva.commons.core.JacocoGenerated;
 
 public class CustomerReference {
 
+    public static final String ID_FIELD = "id";
+    public static final String CRISTIN_ID_FIELD = "cristinId";
+    public static final String DISPLAY_NAME_FIELD = "displayName";
+    public static final String CREATED_DATE_FIELD = "createdDate";
+    public static final String ACTIVE_FIELD = "active";
+    public static final String DOI_PREFIX_FIELD = "doiPrefix";
+    public static final String NVI_INSTITUTION_FIELD = "nviInstitution";
+    public static final String SERVICE_CENTER_URI_FIELD = "serviceCenterUri";
+    public static final String SECTOR_FIELD = "sector";
+    public static final String RBO_INSTITUTION_FIELD = "rboInstitution";
+    public static final Set<String> FIELDS = Set.of(ID_FIELD, CRISTIN_ID_FIELD, DISPLAY_NAME_FIELD, CREATED_DATE_FIELD,
+                                                    ACTIVE_FIELD, DOI_PREFIX_FIELD, NVI_INSTITUTION_FIELD,
+                                                    SERVICE_CENTER_URI_FIELD, SECTOR_FIELD, RBO_INSTITUTION_FIELD);
+
     private URI id;
     private URI cristinId;
     private String displayName;
@@ -35,6 +50,13 @@ public class CustomerReference {
         return customerReference;
     }
 
+    /**
+     * Returns a reference that is written with only the given fields, which must be among {@link #FIELDS}.
+     */
+    public CustomerReference withFields(Set<String> fields) {
+        return new ProjectedCustomerReference(this, fields);
+    }
+
     @JacocoGenerated
     @Override
     public int hashCode() {
@@ -0,0 +1,61 @@
+package no.unit.nva.customer.model;
+
+import static java.util.Objects.nonNull;
+import com.fasterxml.jackson.annotation.JsonValue;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * A customer reference that is written with only the requested fields, in the order of
+ * {@link CustomerReference#FIELDS}. Fields without a value are left out.
+ */
+final class ProjectedCustomerReference extends CustomerReference {
+
+    private static final Map<String, Function<CustomerReference, Object>> FIELD_VALUES = fieldValues();
+
+    private final Set<String> fields;
+
+    ProjectedCustomerReference(CustomerReference customerReference, Set<String> fields) {
+        super();
+        this.fields = Set.copyOf(fields);
+        setId(customerReference.getId());
+        setCristinId(customerReference.getCristinId());
+        setDisplayName(customerReference.getDisplayName());
+        setCreatedDate(customerReference.getCreatedDate());
+        setActive(customerReference.isActive());
+        setDoiPrefix(customerReference.getDoiPrefix());
+        setNviInstitution(customerReference.isNviInstitution());
+        setServiceCenterUri(customerReference.getServiceCenterUri());
+        setSector(customerReference.getSector());
+        setRboInstitution(customerReference.isRboInstitution());
+    }
+
+    @JsonValue
+    public Map<String, Object> toJsonObject() {
+        var jsonObject = new LinkedHashMap<String, Object>();
+        FIELD_VALUES.forEach((field, value) -> {
+            var fieldValue = fields.contains(field) ? value.apply(this) : null;
+            if (nonNull(fieldValue)) {
+                jsonObject.put(field, fieldValue);
+            }
+        });
+        return jsonObject;
+    }
+
+    private static Map<String, Function<CustomerReference, Object>> fieldValues() {
+        var fieldValues = new LinkedHashMap<String, Function<CustomerReference, Object>>();
+        fieldValues.put(ID_FIELD, CustomerReference::getId);
+        fieldValues.put(CRISTIN_ID_FIELD, CustomerReference::getCristinId);
+        fieldValues.put(DISPLAY_NAME_FIELD, CustomerReference::getDisplayName);
+        fieldValues.put(CREATED_DATE_FIELD, CustomerReference::getCreatedDate);
+        fieldValues.put(ACTIVE_FIELD, CustomerReference::isActive);
+        fieldValues.put(DOI_PREFIX_FIELD, CustomerReference::getDoiPrefix);
+        fieldValues.put(NVI_INSTITUTION_FIELD, CustomerReference::isNviInstitution);
+        fieldValues.put(SERVICE_CENTER_URI_FIELD, CustomerReference::getServiceCenterUri);
+        fieldValues.put(SECTOR_FIELD, CustomerReference::getSector);
+        fieldValues.put(RBO_INSTITUTION_FIELD, CustomerReference::isRboInstitution);
+        return fieldValues;
+    }
+}
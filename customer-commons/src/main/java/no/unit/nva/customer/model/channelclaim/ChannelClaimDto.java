@@ -13,6 +13,9 @@ import nva.commons.core.paths.UriWrapper;
 @JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "type")
 @JsonTypeName("ChannelClaim")
 public record ChannelClaimDto(URI channel, ChannelConstraintDto constraint) implements JsonSerializable {
+
+    private static final int CHANNEL_TYPE_INDEX_FROM_END = 1;
+
     @JacocoGenerated
     @Override
     public String toString() {
@@ -24,4 +27,12 @@ public record ChannelClaimDto(URI channel, ChannelConstraintDto constraint) impl
         var lastPathElement = UriWrapper.fromUri(channel()).getLastPathElement();
         return UUID.fromString(lastPathElement);
     }
+
+    /**
+     * The type of the channel, such as "publisher" or "serial-publication", as given by the channel path.
+     */
+    @JsonIgnore
+    public String channelType() {
+        return UriWrapper.fromUri(channel()).getPath().getPathElementByIndexFromEnd(CHANNEL_TYPE_INDEX_FROM_END);
+    }
 }
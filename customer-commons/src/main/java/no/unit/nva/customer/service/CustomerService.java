@@ -1,8 +1,10 @@
 package no.unit.nva.customer.service;
 
 import java.net.URI;
+import java.time.Duration;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import no.unit.nva.customer.exception.InputException;
@@ -15,10 +17,20 @@ import nva.commons.apigateway.exceptions.NotFoundException;
 
 public interface CustomerService {
 
+    Duration DEFAULT_CUSTOMER_LOOKUP_TIMEOUT = Duration.ofSeconds(10);
+
     CustomerDto getCustomer(URI id) throws NotFoundException;
 
     CustomerDto getCustomer(UUID identifier) throws NotFoundException;
 
+    /**
+     * Returns the customer like {@link #getCustomer(URI)}, but never waits for more than the read of this customer.
+     * Services that keep a snapshot of all customers only use it when it is fresh, and do not reload it first.
+     */
+    default CustomerDto getCustomerWithoutWaiting(URI id) throws NotFoundException {
+        return getCustomer(id);
+    }
+
     CustomerDto getCustomerByOrgDomain(String orgDomain) throws NotFoundException;
 
     List<CustomerDto> getCustomers();
@@ -29,6 +41,16 @@ public interface CustomerService {
 
     CustomerDto getCustomerByCristinId(URI cristinId) throws NotFoundException;
 
+    default Map<URI, CustomerDto> getCustomersByCristinIds(Collection<URI> cristinIds) {
+        return getCustomersByCristinIds(cristinIds, DEFAULT_CUSTOMER_LOOKUP_TIMEOUT);
+    }
+
+    /**
+     * Returns the customers of the Cristin ids, keyed by Cristin id. Ids without a single matching customer are left
+     * out, and so are ids whose lookup fails or does not finish within the timeout.
+     */
+    Map<URI, CustomerDto> getCustomersByCristinIds(Collection<URI> cristinIds, Duration timeout);
+
     List<CustomerDto> refreshCustomers();
 
     void createChannelClaim(UUID customerIdentifier, ChannelClaimDto channelClaim) throws NotFoundException,
@@ -38,8 +60,12 @@ public interface CustomerService {
 
     Collection<ChannelClaimWithClaimer> getChannelClaims();
 
+    Collection<ChannelClaimWithClaimer> getChannelClaims(String channelType);
+
     Collection<ChannelClaimWithClaimer> getChannelClaimsForCustomer(URI cristinId);
 
+    Collection<ChannelClaimWithClaimer> getChannelClaimsForCustomer(URI cristinId, String channelType);
+
     Optional<ChannelClaimWithClaimer> getChannelClaim(UUID identifier);
 
     void deleteChannelClaim(UUID identifier) throws NotFoundException, InputException;
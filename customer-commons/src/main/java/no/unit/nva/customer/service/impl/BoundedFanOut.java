@@ -0,0 +1,105 @@
+package no.unit.nva.customer.service.impl;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+import nva.commons.core.attempt.FunctionWithException;
+
+/**
+ * Runs independent lookups concurrently on virtual threads, with at most a fixed number in flight and a shared
+ * timeout. A lookup that fails, or that has not finished when the timeout passes, is handed to the failure handler
+ * and left out of the result, without affecting the other lookups. Lookups still running when the timeout passes, or
+ * when the calling thread is interrupted, are cancelled.
+ */
+@SuppressWarnings("PMD.DoNotUseThreads")
+public final class BoundedFanOut {
+
+    private static final ExecutorService VIRTUAL_THREADS = Executors.newVirtualThreadPerTaskExecutor();
+    private static final String TIMEOUT_MESSAGE = "Lookup for %s did not complete within %d ms";
+    private static final String INTERRUPTED_MESSAGE = "Interrupted while waiting for concurrent lookups";
+
+    private final int maxConcurrency;
+    private final Duration timeout;
+
+    public BoundedFanOut(int maxConcurrency, Duration timeout) {
+        this.maxConcurrency = maxConcurrency;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Looks up every key and returns the values found, keyed by the key they were found for, in the order of the keys.
+     * Keys that the lookup finds no value for are left out.
+     */
+    public <K, V> Map<K, V> resolveAll(Collection<K> keys,
+                                       FunctionWithException<K, Optional<V>, ? extends Exception> lookup,
+                                       BiConsumer<K, Exception> onFailure) {
+        var keyList = List.copyOf(keys);
+        var futures = submitAll(keyList, lookup);
+        var results = new LinkedHashMap<K, V>();
+        for (var index = 0; index < keyList.size(); index++) {
+            var key = keyList.get(index);
+            collectResult(futures.get(index), key, onFailure).ifPresent(value -> results.put(key, value));
+        }
+        return results;
+    }
+
+    private <K, V> List<Future<Optional<V>>> submitAll(List<K> keys,
+                                                       FunctionWithException<K, Optional<V>, ? extends Exception>
+                                                           lookup) {
+        var permits = new Semaphore(maxConcurrency);
+        var tasks = keys.stream()
+                        .map(key -> boundedLookup(key, lookup, permits))
+                        .toList();
+        try {
+            return VIRTUAL_THREADS.invokeAll(tasks, timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(INTERRUPTED_MESSAGE, e);
+        }
+    }
+
+    private static <K, V> Callable<Optional<V>> boundedLookup(
+        K key,
+        FunctionWithException<K, Optional<V>, ? extends Exception> lookup,
+        Semaphore permits) {
+        return () -> {
+            permits.acquire();
+            try {
+                return lookup.apply(key);
+            } finally {
+                permits.release();
+            }
+        };
+    }
+
+    private <K, V> Optional<V> collectResult(Future<Optional<V>> future, K key, BiConsumer<K, Exception> onFailure) {
+        try {
+            return future.get();
+        } catch (CancellationException e) {
+            onFailure.accept(key, new TimeoutException(String.format(TIMEOUT_MESSAGE, key, timeout.toMillis())));
+        } catch (ExecutionException e) {
+            onFailure.accept(key, asException(e.getCause()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(INTERRUPTED_MESSAGE, e);
+        }
+        return Optional.empty();
+    }
+
+    private static Exception asException(Throwable throwable) {
+        return throwable instanceof Exception exception ? exception : new IllegalStateException(throwable);
+    }
+}
@@ -0,0 +1,344 @@
+package no.unit.nva.customer.service.impl;
+
+import static java.util.Objects.nonNull;
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import no.unit.nva.customer.exception.InputException;
+import no.unit.nva.customer.model.CustomerDao;
+import no.unit.nva.customer.model.CustomerDto;
+import no.unit.nva.customer.model.channelclaim.ChannelClaimDto;
+import no.unit.nva.customer.model.channelclaim.ChannelClaimWithClaimer;
+import no.unit.nva.customer.service.CustomerService;
+import nva.commons.apigateway.exceptions.BadRequestException;
+import nva.commons.apigateway.exceptions.ConflictException;
+import nva.commons.apigateway.exceptions.NotFoundException;
+import nva.commons.core.Environment;
+import nva.commons.core.paths.UriWrapper;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+/**
+ * Serves customer reads from an in-memory snapshot of all customers. There are few customers and nearly every request
+ * looks one up, so the whole table is read once per time to live instead of once or more per request.
+ *
+ * <p>The snapshot is never changed after it is built. Customers are kept as stored items and a new
+ * {@link CustomerDto} is made for every read, so callers are free to change what they get. Lookups that miss the
+ * snapshot are passed on to the wrapped service, so customers created in other containers are found at once.
+ *
+ * <p>Writes go to the wrapped service and then drop the snapshot, so they are seen by the next read in this
+ * container. Writes in other containers are picked up after at most one time to live.
+ *
+ * <p>Lookups that must answer in time, such as those given a timeout, never wait for the snapshot to be read. When it
+ * is not fresh they go to the wrapped service, and the snapshot is read again on a background thread.
+ */
+public class CachingCustomerService implements CustomerService {
+
+    public static final String CUSTOMER_CATALOGUE_TIME_TO_LIVE_ENV_NAME = "CUSTOMER_CATALOGUE_TIME_TO_LIVE";
+    public static final Duration DEFAULT_CUSTOMER_CATALOGUE_TIME_TO_LIVE = Duration.ofSeconds(30);
+
+    private final CustomerService delegate;
+    private final Duration timeToLive;
+    private final Clock clock;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicBoolean reloading = new AtomicBoolean();
+    private final ExecutorService reloader = Executors.newSingleThreadExecutor(Thread.ofPlatform()
+                                                                                   .daemon()
+                                                                                   .name("customer-snapshot")
+                                                                                   .factory());
+    private volatile Snapshot snapshot;
+
+    public CachingCustomerService(CustomerService delegate) {
+        this(delegate, customerCatalogueTimeToLive(), Clock.systemUTC());
+    }
+
+    public CachingCustomerService(CustomerService delegate, Duration timeToLive, Clock clock) {
+        this.delegate = delegate;
+        this.timeToLive = timeToLive;
+        this.clock = clock;
+    }
+
+    @Override
+    public CustomerDto getCustomer(URI id) throws NotFoundException {
+        var customerIdentifier = UriWrapper.fromUri(id).getLastPathElement();
+        return getCustomer(UUID.fromString(customerIdentifier));
+    }
+
+    @Override
+    public CustomerDto getCustomer(UUID identifier) throws NotFoundException {
+        var customer = currentSnapshot().byIdentifier().get(identifier);
+        return nonNull(customer) ? toCustomerDto(customer) : delegate.getCustomer(identifier);
+    }
+
+    @Override
+    public CustomerDto getCustomerWithoutWaiting(URI id) throws NotFoundException {
+        var customerIdentifier = UUID.fromString(UriWrapper.fromUri(id).getLastPathElement());
+        var customer = freshSnapshot().map(current -> current.byIdentifier().get(customerIdentifier));
+        return customer.isPresent() ? toCustomerDto(customer.get()) : delegate.getCustomer(customerIdentifier);
+    }
+
+    @Override
+    public CustomerDto getCustomerByOrgDomain(String orgDomain) throws NotFoundException {
+        var customer = currentSnapshot().byOrgDomain().get(orgDomain);
+        return nonNull(customer) ? toCustomerDto(customer) : delegate.getCustomerByOrgDomain(orgDomain);
+    }
+
+    @Override
+    public List<CustomerDto> getCustomers() {
+        return currentSnapshot().customers().stream()
+                   .map(CachingCustomerService::toCustomerDto)
+                   .collect(Collectors.toList());
+    }
+
+    @Override
+    public CustomerDto createCustomer(CustomerDto customer) throws NotFoundException, ConflictException {
+        try {
+            return delegate.createCustomer(customer);
+        } finally {
+            invalidate();
+        }
+    }
+
+    @Override
+    public CustomerDto updateCustomer(UUID identifier, CustomerDto customer) throws InputException, NotFoundException {
+        try {
+            return delegate.updateCustomer(identifier, customer);
+        } finally {
+            invalidate();
+        }
+    }
+
+    @Override
+    public CustomerDto getCustomerByCristinId(URI cristinId) throws NotFoundException {
+        var customer = currentSnapshot().byCristinId().get(cristinId);
+        return nonNull(customer) ? toCustomerDto(customer) : delegate.getCustomerByCristinId(cristinId);
+    }
+
+    /**
+     * Looks the ids up in the snapshot, and only passes the ids that are not found there on to the wrapped service.
+     * When the snapshot is not fresh, all ids are passed on, so the timeout is never spent reading the snapshot.
+     */
+    @Override
+    public Map<URI, CustomerDto> getCustomersByCristinIds(Collection<URI> cristinIds, Duration timeout) {
+        var uniqueCristinIds = cristinIds.stream()
+                                   .filter(Objects::nonNull)
+                                   .collect(Collectors.toCollection(LinkedHashSet::new));
+        var byCristinId = freshSnapshot().map(Snapshot::byCristinId).orElse(Map.of());
+        var missing = uniqueCristinIds.stream().filter(cristinId -> !byCristinId.containsKey(cristinId)).toList();
+        var fetched = missing.isEmpty()
+                          ? Map.<URI, CustomerDto>of()
+                          : delegate.getCustomersByCristinIds(missing, timeout);
+        var customers = new LinkedHashMap<URI, CustomerDto>();
+        for (var cristinId : uniqueCristinIds) {
+            var customer = byCristinId.containsKey(cristinId)
+                               ? toCustomerDto(byCristinId.get(cristinId))
+                               : fetched.get(cristinId);
+            if (nonNull(customer)) {
+                customers.put(cristinId, customer);
+            }
+        }
+        return customers;
+    }
+
+    @Override
+    public List<CustomerDto> refreshCustomers() {
+        try {
+            return delegate.refreshCustomers();
+        } finally {
+            invalidate();
+        }
+    }
+
+    @Override
+    public void createChannelClaim(UUID customerIdentifier, ChannelClaimDto channelClaim)
+        throws NotFoundException, InputException, BadRequestException, ConflictException {
+        try {
+            delegate.createChannelClaim(customerIdentifier, channelClaim);
+        } finally {
+            invalidate();
+        }
+    }
+
+    @Override
+    public Collection<ChannelClaimWithClaimer> getChannelClaims() {
+        return currentSnapshot().channelClaims();
+    }
+
+    @Override
+    public Collection<ChannelClaimWithClaimer> getChannelClaims(String channelType) {
+        return currentSnapshot().channelClaims().stream()
+                   .filter(claim -> channelType.equals(claim.channelClaim().channelType()))
+                   .toList();
+    }
+
+    @Override
+    public Collection<ChannelClaimWithClaimer> getChannelClaimsForCustomer(URI cristinId) {
+        var current = currentSnapshot();
+        return current.byCristinId().containsKey(cristinId)
+                   ? current.channelClaimsByCristinId().getOrDefault(cristinId, List.of())
+                   : delegate.getChannelClaimsForCustomer(cristinId);
+    }
+
+    @Override
+    public Collection<ChannelClaimWithClaimer> getChannelClaimsForCustomer(URI cristinId, String channelType) {
+        return getChannelClaimsForCustomer(cristinId).stream()
+                   .filter(claim -> channelType.equals(claim.channelClaim().channelType()))
+                   .toList();
+    }
+
+    @Override
+    public Optional<ChannelClaimWithClaimer> getChannelClaim(UUID identifier) {
+        var channelClaim = currentSnapshot().channelClaimsByIdentifier().get(identifier);
+        return nonNull(channelClaim) ? Optional.of(channelClaim) : delegate.getChannelClaim(identifier);
+    }
+
+    @Override
+    public void deleteChannelClaim(UUID identifier) throws NotFoundException, InputException {
+        try {
+            delegate.deleteChannelClaim(identifier);
+        } finally {
+            invalidate();
+        }
+    }
+
+    /**
+     * Drops the snapshot. If a reload is in progress, this waits for it to finish, so that customers read before a
+     * write are never kept after the write.
+     */
+    public void invalidate() {
+        lock.lock();
+        try {
+            snapshot = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Snapshot currentSnapshot() {
+        var current = snapshot;
+        if (isFresh(current)) {
+            return current;
+        }
+        lock.lock();
+        try {
+            current = snapshot;
+            if (isFresh(current)) {
+                return current;
+            }
+            snapshot = Snapshot.of(delegate.getCustomers(), clock.instant().plus(timeToLive));
+            return snapshot;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Optional<Snapshot> freshSnapshot() {
+        var current = snapshot;
+        if (isFresh(current)) {
+            return Optional.of(current);
+        }
+        reloadInBackground();
+        return Optional.empty();
+    }
+
+    private void reloadInBackground() {
+        if (reloading.compareAndSet(false, true)) {
+            // Submitted rather than executed, so that a failed read ends up in the ignored future. The next lookup
+            // tries again.
+            reloader.submit(() -> {
+                try {
+                    currentSnapshot();
+                } finally {
+                    reloading.set(false);
+                }
+            });
+        }
+    }
+
+    private boolean isFresh(Snapshot current) {
+        return nonNull(current) && clock.instant().isBefore(current.expiresAt());
+    }
+
+    private static CustomerDto toCustomerDto(Map<String, AttributeValue> item) {
+        return CustomerDao.TABLE_SCHEMA.mapToItem(item).toCustomerDto();
+    }
+
+    private static Duration customerCatalogueTimeToLive() {
+        return new Environment().readEnvOpt(CUSTOMER_CATALOGUE_TIME_TO_LIVE_ENV_NAME)
+                   .map(Duration::parse)
+                   .orElse(DEFAULT_CUSTOMER_CATALOGUE_TIME_TO_LIVE);
+    }
+
+    /**
+     * All customers as stored items, with lookup maps by each key the service is asked for, and every channel claim
+     * with its claimer. Keys that more than one customer share are left out of the maps, so that such lookups go to
+     * the wrapped service and fail the way they do there.
+     */
+    private record Snapshot(List<Map<String, AttributeValue>> customers,
+                            Map<UUID, Map<String, AttributeValue>> byIdentifier,
+                            Map<URI, Map<String, AttributeValue>> byCristinId,
+                            Map<String, Map<String, AttributeValue>> byOrgDomain,
+                            List<ChannelClaimWithClaimer> channelClaims,
+                            Map<UUID, ChannelClaimWithClaimer> channelClaimsByIdentifier,
+                            Map<URI, List<ChannelClaimWithClaimer>> channelClaimsByCristinId,
+                            Instant expiresAt) {
+
+        private static Snapshot of(List<CustomerDto> customers, Instant expiresAt) {
+            var items = customers.stream()
+                            .map(customer -> CustomerDao.TABLE_SCHEMA.itemToMap(CustomerDao.fromCustomerDto(customer),
+                                                                                true))
+                            .toList();
+            var channelClaims = customers.stream()
+                                    .flatMap(customer -> customer.getChannelClaims().stream()
+                                                             .map(claim -> withClaimer(claim, customer)))
+                                    .toList();
+            return new Snapshot(items,
+                                uniqueBy(customers, items, CustomerDto::getIdentifier),
+                                uniqueBy(customers, items, CustomerDto::getCristinId),
+                                uniqueBy(customers, items, CustomerDto::getFeideOrganizationDomain),
+                                channelClaims,
+                                channelClaims.stream()
+                                    .collect(Collectors.toUnmodifiableMap(
+                                        ChannelClaimWithClaimer::channelClaimIdentifier, Function.identity(),
+                                        (first, second) -> first)),
+                                channelClaims.stream()
+                                    .filter(claim -> nonNull(claim.cristinId()))
+                                    .collect(Collectors.groupingBy(ChannelClaimWithClaimer::cristinId,
+                                                                   Collectors.toUnmodifiableList())),
+                                expiresAt);
+        }
+
+        private static <K> Map<K, Map<String, AttributeValue>> uniqueBy(List<CustomerDto> customers,
+                                                                        List<Map<String, AttributeValue>> items,
+                                                                        Function<CustomerDto, K> key) {
+            var itemsByKey = new LinkedHashMap<K, Map<String, AttributeValue>>();
+            var sharedKeys = new LinkedHashSet<K>();
+            for (int index = 0; index < customers.size(); index++) {
+                var value = key.apply(customers.get(index));
+                if (nonNull(value) && nonNull(itemsByKey.putIfAbsent(value, items.get(index)))) {
+                    sharedKeys.add(value);
+                }
+            }
+            sharedKeys.forEach(itemsByKey::remove);
+            return Map.copyOf(itemsByKey);
+        }
+
+        private static ChannelClaimWithClaimer withClaimer(ChannelClaimDto channelClaim, CustomerDto customer) {
+            return new ChannelClaimWithClaimer(channelClaim, customer.getId(), customer.getCristinId());
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package no.unit.nva.customer.service.impl;
+
+import static java.util.Objects.nonNull;
+import static no.unit.nva.customer.model.CustomerDao.IDENTIFIER;
+import static no.unit.nva.customer.model.interfaces.Typed.TYPE_FIELD;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import no.unit.nva.customer.model.CustomerDto;
+import no.unit.nva.customer.model.channelclaim.ChannelClaimDao;
+import no.unit.nva.customer.model.channelclaim.ChannelClaimDto;
+import no.unit.nva.customer.model.channelclaim.ChannelClaimWithClaimer;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.Delete;
+import software.amazon.awssdk.services.dynamodb.model.Put;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+
+/**
+ * Channel claims stored as items of their own in the customers table, keyed by the channel identifier. Each item
+ * points to the claiming customer and holds a copy of the claim, so that a claim is found with one key lookup. The
+ * claims are also kept on the customer, and the two are always written in the same transaction.
+ *
+ * <p>Claim items have none of the attributes the secondary indexes are keyed on, so they never show up in index
+ * queries. Scans of the table must leave them out with {@link #NOT_A_CHANNEL_CLAIM}. Listing all claims scans for
+ * the claim items only, with the channel type stored on each item so that it can be filtered on.
+ *
+ * <p>Claims made before the claim items existed only live on their customer until the customers are refreshed. The
+ * refresh stores a backfill marker next to the claim items when it is done, and until then claims must also be looked
+ * for on the customers.
+ */
+public final class ChannelClaimItems {
+
+    public static final String TYPE = "ChannelClaim";
+    public static final String CUSTOMER_IDENTIFIER_FIELD = "customerIdentifier";
+    public static final String CUSTOMER_ID_FIELD = "customerId";
+    public static final String CUSTOMER_CRISTIN_ID_FIELD = "customerCristinId";
+    public static final String CHANNEL_CLAIM_FIELD = "channelClaim";
+    public static final String CHANNEL_TYPE_FIELD = "channelType";
+    static final Expression NOT_A_CHANNEL_CLAIM = Expression.builder()
+                                                      .expression("NOT begins_with(#identifier, :claimPrefix)")
+                                                      .putExpressionName("#identifier", IDENTIFIER)
+                                                      .putExpressionValue(":claimPrefix",
+                                                                          AttributeValue.fromS(keyPrefix()))
+                                                      .build();
+    static final Expression IS_A_CHANNEL_CLAIM = Expression.builder()
+                                                     .expression("begins_with(#identifier, :claimPrefix) "
+                                                                 + "AND attribute_exists(#channelClaim)")
+                                                     .putExpressionName("#identifier", IDENTIFIER)
+                                                     .putExpressionName("#channelClaim", CHANNEL_CLAIM_FIELD)
+                                                     .putExpressionValue(":claimPrefix",
+                                                                         AttributeValue.fromS(keyPrefix()))
+                                                     .build();
+    private static final TableSchema<ChannelClaimDao> CHANNEL_CLAIM_SCHEMA =
+        TableSchema.fromBean(ChannelClaimDao.class);
+    private static final String CLAIM_DOES_NOT_EXIST = "attribute_not_exists(#identifier)";
+    private static final String CLAIMED_BY_CUSTOMER = "#customerIdentifier = :customerIdentifier";
+    private static final String BACKFILL_MARKER = "backfill";
+
+    private ChannelClaimItems() {
+    }
+
+    /**
+     * Returns true for images of the customers table that are channel claim items rather than customers.
+     */
+    public static boolean isChannelClaimItem(String type) {
+        return TYPE.equals(type);
+    }
+
+    static Map<String, AttributeValue> key(UUID channelIdentifier) {
+        return Map.of(IDENTIFIER, AttributeValue.fromS(keyPrefix() + channelIdentifier));
+    }
+
+    static Map<String, AttributeValue> backfillMarkerKey() {
+        return Map.of(IDENTIFIER, AttributeValue.fromS(keyPrefix() + BACKFILL_MARKER));
+    }
+
+    // The marker has the claim item type, so that customer scans and the stream producer skip it, but no claim.
+    static Map<String, AttributeValue> backfillMarker() {
+        var item = new HashMap<>(backfillMarkerKey());
+        item.put(TYPE_FIELD, AttributeValue.fromS(TYPE));
+        return item;
+    }
+
+    static Map<String, AttributeValue> item(ChannelClaimDto channelClaim, CustomerDto customer) {
+        var item = new HashMap<>(key(channelClaim.identifier()));
+        item.put(TYPE_FIELD, AttributeValue.fromS(TYPE));
+        item.put(CUSTOMER_IDENTIFIER_FIELD, AttributeValue.fromS(customer.getIdentifier().toString()));
+        item.put(CUSTOMER_ID_FIELD, AttributeValue.fromS(customer.getId().toString()));
+        if (nonNull(customer.getCristinId())) {
+            item.put(CUSTOMER_CRISTIN_ID_FIELD, AttributeValue.fromS(customer.getCristinId().toString()));
+        }
+        item.put(CHANNEL_TYPE_FIELD, AttributeValue.fromS(channelClaim.channelType()));
+        item.put(CHANNEL_CLAIM_FIELD,
+                 AttributeValue.fromM(CHANNEL_CLAIM_SCHEMA.itemToMap(ChannelClaimDao.fromDto(channelClaim), true)));
+        return item;
+    }
+
+    /**
+     * Matches the claim items of channels of the given type.
+     */
+    static Expression ofChannelType(String channelType) {
+        return Expression.join(IS_A_CHANNEL_CLAIM,
+                               Expression.builder()
+                                   .expression("#channelType = :channelType")
+                                   .putExpressionName("#channelType", CHANNEL_TYPE_FIELD)
+                                   .putExpressionValue(":channelType", AttributeValue.fromS(channelType))
+                                   .build(),
+                               " AND ");
+    }
+
+    static ChannelClaimWithClaimer toChannelClaimWithClaimer(Map<String, AttributeValue> item) {
+        var channelClaim = CHANNEL_CLAIM_SCHEMA.mapToItem(item.get(CHANNEL_CLAIM_FIELD).m()).toDto();
+        var cristinId = item.containsKey(CUSTOMER_CRISTIN_ID_FIELD)
+                            ? URI.create(item.get(CUSTOMER_CRISTIN_ID_FIELD).s())
+                            : null;
+        return new ChannelClaimWithClaimer(channelClaim, URI.create(item.get(CUSTOMER_ID_FIELD).s()), cristinId);
+    }
+
+    /**
+     * Writes the claim item, failing the transaction if the channel is already claimed.
+     */
+    static TransactWriteItem claim(String tableName, ChannelClaimDto channelClaim, CustomerDto customer) {
+        return TransactWriteItem.builder()
+                   .put(Put.builder()
+                            .tableName(tableName)
+                            .item(item(channelClaim, customer))
+                            .conditionExpression(CLAIM_DOES_NOT_EXIST)
+                            .expressionAttributeNames(Map.of("#identifier", IDENTIFIER))
+                            .build())
+                   .build();
+    }
+
+    /**
+     * Writes the claim item unless the channel is claimed by another customer. Used for claims that already exist on
+     * the customer, so that a channel found on two customers keeps the claim item of the first one written.
+     */
+    static PutItemRequest backfill(String tableName, ChannelClaimDto channelClaim, CustomerDto customer) {
+        return PutItemRequest.builder()
+                   .tableName(tableName)
+                   .item(item(channelClaim, customer))
+                   .conditionExpression(CLAIM_DOES_NOT_EXIST + " OR " + CLAIMED_BY_CUSTOMER)
+                   .expressionAttributeNames(Map.of("#identifier", IDENTIFIER,
+                                                    "#customerIdentifier", CUSTOMER_IDENTIFIER_FIELD))
+                   .expressionAttributeValues(
+                       Map.of(":customerIdentifier", AttributeValue.fromS(customer.getIdentifier().toString())))
+                   .build();
+    }
+
+    /**
+     * Deletes the claim item, failing the transaction if the channel is no longer claimed by the customer.
+     */
+    static TransactWriteItem unclaim(String tableName, ChannelClaimDto channelClaim, CustomerDto customer) {
+        return TransactWriteItem.builder()
+                   .delete(Delete.builder()
+                               .tableName(tableName)
+                               .key(key(channelClaim.identifier()))
+                               .conditionExpression(CLAIMED_BY_CUSTOMER)
+                               .expressionAttributeNames(Map.of("#customerIdentifier", CUSTOMER_IDENTIFIER_FIELD))
+                               .expressionAttributeValues(
+                                   Map.of(":customerIdentifier",
+                                          AttributeValue.fromS(customer.getIdentifier().toString())))
+                               .build())
+                   .build();
+    }
+
+    private static String keyPrefix() {
+        return TYPE + "#";
+    }
+}
@@ -1,10 +1,15 @@
 package no.unit.nva.customer.service.impl;
 
+import static no.unit.nva.customer.model.CustomerDao.IDENTIFIER;
 import static nva.commons.core.attempt.Try.attempt;
 import java.net.URI;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.function.Function;
@@ -27,10 +32,21 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
 import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.PutItemEnhancedRequest;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.ScanEnhancedRequest;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.Put;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
 
 public class DynamoDBCustomerService implements CustomerService {
 
@@ -42,11 +58,26 @@ public class DynamoDBCustomerService implements CustomerService {
     private static final String DYNAMODB_WARMUP_PROBLEM = "There was a problem during describe table to warm up "
                                                           + "DynamoDB connection";
     private static final String CUSTOMER_ALREADY_EXISTS_ERROR = "Customer with Institution ID %s already exists.";
+    private static final String CUSTOMER_IDENTIFIER_ALREADY_EXISTS_ERROR =
+        "Customer with identifier %s already exists.";
+    private static final Expression IDENTIFIER_DOES_NOT_EXIST = Expression.builder()
+                                                                    .expression("attribute_not_exists(#identifier)")
+                                                                    .putExpressionName("#identifier", IDENTIFIER)
+                                                                    .build();
     private static final Environment ENVIRONMENT = new Environment();
     public static final String CUSTOMERS_TABLE_NAME = ENVIRONMENT.readEnv("CUSTOMERS_TABLE_NAME");
     private static final Logger logger = LoggerFactory.getLogger(DynamoDBCustomerService.class);
     private static final String CHANNEL_ALREADY_CLAIMED_MESSAGE = "Channel is already claimed";
+    private static final String CONDITIONAL_CHECK_FAILED = "ConditionalCheckFailed";
+    private static final String FAILED_TO_QUERY_CUSTOMER_BY_CRISTIN_ID = "Failed to query customer by Cristin id {}";
+    private static final int MAX_CONCURRENT_INDEX_QUERIES = 10;
+    private static final String CHANNEL_CLAIMED_BY_OTHER_CUSTOMER =
+        "Channel {} is claimed by customer {}, but its claim item belongs to another customer";
+    private static final String SEVERAL_CUSTOMERS_WITH_CRISTIN_ID =
+        "Found {} customers with Cristin id {}. Returning the channel claims of all of them.";
+    private final DynamoDbClient client;
     private final DynamoDbTable<CustomerDao> table;
+    private volatile boolean channelClaimItemsComplete;
 
     /**
      * Constructor for DynamoDBCustomerService.
@@ -55,10 +86,11 @@ public class DynamoDBCustomerService implements CustomerService {
      */
 
     public DynamoDBCustomerService(DynamoDbClient client) {
-        this(createTable(client));
+        this(client, createTable(client));
     }
 
-    public DynamoDBCustomerService(DynamoDbTable<CustomerDao> table) {
+    public DynamoDBCustomerService(DynamoDbClient client, DynamoDbTable<CustomerDao> table) {
+        this.client = client;
         this.table = table;
         warmupDynamoDbConnection(table);
     }
@@ -85,7 +117,7 @@ public class DynamoDBCustomerService implements CustomerService {
 
     @Override
     public List<CustomerDto> getCustomers() {
-        return table.scan()
+        return table.scan(scanCustomers())
                    .stream()
                    .flatMap(page -> page.items().stream())
                    .map(CustomerDao::toCustomerDto)
@@ -96,8 +128,45 @@ public class DynamoDBCustomerService implements CustomerService {
     public CustomerDto createCustomer(CustomerDto customer) throws NotFoundException, ConflictException {
         checkForConflict(customer.getCristinId());
         var newCustomer = addInternalDetails(customer);
-        table.putItem(CustomerDao.fromCustomerDto(newCustomer));
-        return getCustomer(newCustomer.getIdentifier());
+        return newCustomer.getChannelClaims().isEmpty()
+                   ? putNewCustomer(CustomerDao.fromCustomerDto(newCustomer))
+                   : putNewCustomerWithChannelClaims(newCustomer);
+    }
+
+    private CustomerDto putNewCustomerWithChannelClaims(CustomerDto customer) throws ConflictException {
+        for (var channelClaim : customer.getChannelClaims()) {
+            if (getChannelClaim(channelClaim.identifier()).isPresent()) {
+                throw new ConflictException(CHANNEL_ALREADY_CLAIMED_MESSAGE);
+            }
+        }
+        var customerDao = CustomerDao.fromCustomerDto(customer);
+        var claims = customer.getChannelClaims().stream()
+                         .map(claim -> ChannelClaimItems.claim(table.tableName(), claim, customer));
+        var writes = Stream.concat(Stream.of(newCustomerWrite(customerDao)), claims).toList();
+        try {
+            client.transactWriteItems(TransactWriteItemsRequest.builder().transactItems(writes).build());
+        } catch (TransactionCanceledException e) {
+            if (conditionFailed(e, 0)) {
+                throw new ConflictException(String.format(CUSTOMER_IDENTIFIER_ALREADY_EXISTS_ERROR,
+                                                          customer.getIdentifier()));
+            }
+            throw conflictIfAnyConditionFailed(e);
+        }
+        return asStored(customerDao);
+    }
+
+    private CustomerDto putNewCustomer(CustomerDao customer) throws ConflictException {
+        var request = PutItemEnhancedRequest.builder(CustomerDao.class)
+                          .item(customer)
+                          .conditionExpression(IDENTIFIER_DOES_NOT_EXIST)
+                          .build();
+        try {
+            table.putItem(request);
+        } catch (ConditionalCheckFailedException e) {
+            throw new ConflictException(String.format(CUSTOMER_IDENTIFIER_ALREADY_EXISTS_ERROR,
+                                                      customer.getIdentifier()));
+        }
+        return asStored(customer);
     }
 
     @Override
@@ -109,13 +178,8 @@ public class DynamoDBCustomerService implements CustomerService {
         throws NotFoundException, InputException {
         validateIdentifier(identifier, customer);
         customer.setModifiedDate(Instant.now().toString());
-        if (shouldOverwriteChannelClaims) {
-            var customerWithOverWrittenChannelClaims = overwriteChannelClaims(customer);
-            table.putItem(CustomerDao.fromCustomerDto(customerWithOverWrittenChannelClaims));
-        } else {
-            table.putItem(CustomerDao.fromCustomerDto(customer));
-        }
-        return getCustomer(identifier);
+        var customerToStore = shouldOverwriteChannelClaims ? overwriteChannelClaims(customer) : customer;
+        return writeCustomer(CustomerDao.fromCustomerDto(customerToStore));
     }
 
     private CustomerDto overwriteChannelClaims(CustomerDto customer) throws NotFoundException {
@@ -126,55 +190,190 @@ public class DynamoDBCustomerService implements CustomerService {
     @Override
     public CustomerDto getCustomerByCristinId(URI cristinId) throws NotFoundException {
         CustomerDao queryObject = createQueryForCristinNumber(cristinId);
-        return sendQueryToIndex(queryObject, BY_CRISTIN_ID_INDEX_NAME, customer -> customer.getCristinId().toString());
+        return sendQueryToIndex(queryObject, BY_CRISTIN_ID_INDEX_NAME, DynamoDBCustomerService::cristinIdOf);
+    }
+
+    /**
+     * Resolves customers for many Cristin ids with a single network wait. The index cannot be read with
+     * BatchGetItem, so each distinct id is queried concurrently on a virtual thread, with a bounded number of
+     * queries in flight. A query that fails or times out is logged and its id left out, so one throttled query does
+     * not lose the customers of the other ids.
+     */
+    @Override
+    public Map<URI, CustomerDto> getCustomersByCristinIds(Collection<URI> cristinIds, Duration timeout) {
+        var uniqueCristinIds = cristinIds.stream()
+                                   .filter(Objects::nonNull)
+                                   .collect(Collectors.toCollection(LinkedHashSet::new));
+        return new BoundedFanOut(MAX_CONCURRENT_INDEX_QUERIES, timeout)
+                   .resolveAll(uniqueCristinIds, this::queryByCristinId, DynamoDBCustomerService::logFailedQuery);
+    }
+
+    private Optional<CustomerDto> queryByCristinId(URI cristinId) {
+        try {
+            return Optional.of(getCustomerByCristinId(cristinId));
+        } catch (NotFoundException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static void logFailedQuery(URI cristinId, Exception exception) {
+        logger.warn(FAILED_TO_QUERY_CUSTOMER_BY_CRISTIN_ID, cristinId, exception);
     }
 
+    /**
+     * Rewrites every customer and writes the claim items of their claims. Once all customers are done, the claim items
+     * are marked as complete, so claims are no longer looked for on the customers. This is the one-time migration of
+     * claims made before the claim items existed.
+     */
     @Override
     public List<CustomerDto> refreshCustomers() {
-        return table.scan().items().stream()
-                   .map(CustomerDao::toCustomerDto)
-                   .map(this::refreshCustomer)
-                   .collect(Collectors.toList());
+        var customers = table.scan(scanCustomers()).items().stream()
+                            .map(CustomerDao::toCustomerDto)
+                            .map(this::refreshCustomer)
+                            .collect(Collectors.toList());
+        markChannelClaimItemsComplete();
+        return customers;
     }
 
+    /**
+     * Adds the claim to the customer and writes the claim item in the same transaction. The claim item can only be
+     * written if the channel is not claimed already, so two customers can never claim the same channel. Looking the
+     * claim up first writes the claim item of a claim that so far only exists on its customer.
+     */
     @Override
     public void createChannelClaim(UUID customerIdentifier, ChannelClaimDto channelClaim)
         throws NotFoundException, InputException, BadRequestException, ConflictException {
         ChannelClaimValidator.validate(channelClaim);
-        throwIfChannelIsAlreadyClaimed(channelClaim);
-        var customer = getCustomer(customerIdentifier);
-        putCustomer(customerIdentifier, customer.addChannelClaim(channelClaim), false);
-    }
-
-    private void throwIfChannelIsAlreadyClaimed(ChannelClaimDto channelClaim) throws ConflictException {
         if (getChannelClaim(channelClaim.identifier()).isPresent()) {
             throw new ConflictException(CHANNEL_ALREADY_CLAIMED_MESSAGE);
         }
+        var customer = getCustomer(customerIdentifier).addChannelClaim(channelClaim);
+        try {
+            writeCustomerWith(customer, ChannelClaimItems.claim(table.tableName(), channelClaim, customer));
+        } catch (TransactionCanceledException e) {
+            throw conflictIfAnyConditionFailed(e);
+        }
     }
 
     @Override
     public Collection<ChannelClaimWithClaimer> getChannelClaims() {
-        return getCustomers().stream()
-                   .flatMap(DynamoDBCustomerService::toChannelClaimWithClaimer)
-                   .toList();
+        return channelClaimItemsComplete()
+                   ? scanChannelClaims(ChannelClaimItems.IS_A_CHANNEL_CLAIM)
+                   : channelClaimsOfAllCustomers().toList();
     }
 
+    @Override
+    public Collection<ChannelClaimWithClaimer> getChannelClaims(String channelType) {
+        return channelClaimItemsComplete()
+                   ? scanChannelClaims(ChannelClaimItems.ofChannelType(channelType))
+                   : channelClaimsOfAllCustomers()
+                         .filter(claim -> channelType.equals(claim.channelClaim().channelType()))
+                         .toList();
+    }
+
+    /**
+     * Reads the claim item of the channel. Until the claim items are complete, a claim without an item is looked for
+     * on the customers, and its claim item is written when it is found.
+     */
     @Override
     public Optional<ChannelClaimWithClaimer> getChannelClaim(UUID identifier) {
-        return getCustomers().stream()
-                   .flatMap(DynamoDBCustomerService::toChannelClaimWithClaimer)
-                   .filter(channelClaimWithClaimer -> identifier.equals(channelClaimWithClaimer.channelClaimIdentifier()))
-                   .findFirst();
+        var channelClaim = readChannelClaimItem(identifier);
+        return channelClaim.isPresent() || channelClaimItemsComplete()
+                   ? channelClaim
+                   : findChannelClaimOnCustomers(identifier);
+    }
+
+    private Optional<ChannelClaimWithClaimer> readChannelClaimItem(UUID identifier) {
+        var item = client.getItem(GetItemRequest.builder()
+                                      .tableName(table.tableName())
+                                      .key(ChannelClaimItems.key(identifier))
+                                      .consistentRead(true)
+                                      .build())
+                       .item();
+        return item.isEmpty() ? Optional.empty() : Optional.of(ChannelClaimItems.toChannelClaimWithClaimer(item));
+    }
+
+    private Optional<ChannelClaimWithClaimer> findChannelClaimOnCustomers(UUID identifier) {
+        var customer = getCustomers().stream()
+                           .filter(candidate -> candidate.getChannelClaims().stream()
+                                                    .anyMatch(claim -> identifier.equals(claim.identifier())))
+                           .findFirst();
+        if (customer.isEmpty()) {
+            return Optional.empty();
+        }
+        writeChannelClaimItems(customer.get());
+        return readChannelClaimItem(identifier);
+    }
+
+    private Stream<ChannelClaimWithClaimer> channelClaimsOfAllCustomers() {
+        return getCustomers().stream().flatMap(DynamoDBCustomerService::toChannelClaimWithClaimer);
+    }
+
+    private boolean channelClaimItemsComplete() {
+        if (!channelClaimItemsComplete) {
+            channelClaimItemsComplete = client.getItem(GetItemRequest.builder()
+                                                           .tableName(table.tableName())
+                                                           .key(ChannelClaimItems.backfillMarkerKey())
+                                                           .build())
+                                            .hasItem();
+        }
+        return channelClaimItemsComplete;
     }
 
+    private void markChannelClaimItemsComplete() {
+        client.putItem(PutItemRequest.builder()
+                           .tableName(table.tableName())
+                           .item(ChannelClaimItems.backfillMarker())
+                           .build());
+        channelClaimItemsComplete = true;
+    }
+
+    /**
+     * Removes the claim from the customer and deletes the claim item in the same transaction.
+     */
     @Override
     public void deleteChannelClaim(UUID identifier) throws NotFoundException, InputException {
         var channelClaimWithClaimer = getChannelClaim(identifier);
         if (channelClaimWithClaimer.isPresent()) {
-            var customer = getCustomer(channelClaimWithClaimer.get().customerId());
-            var updatedCustomer = customer.unclaimChannel(channelClaimWithClaimer.get().channelClaim());
-            putCustomer(customer.getIdentifier(), updatedCustomer, false);
+            var channelClaim = channelClaimWithClaimer.get().channelClaim();
+            var customer = getCustomer(channelClaimWithClaimer.get().customerId()).unclaimChannel(channelClaim);
+            writeCustomerWith(customer, ChannelClaimItems.unclaim(table.tableName(), channelClaim, customer));
+        }
+    }
+
+    private void writeCustomerWith(CustomerDto customer, TransactWriteItem claimWrite) {
+        customer.setModifiedDate(Instant.now().toString());
+        var customerWrite = TransactWriteItem.builder()
+                                .put(putCustomerItem(CustomerDao.fromCustomerDto(customer)).build())
+                                .build();
+        client.transactWriteItems(TransactWriteItemsRequest.builder().transactItems(customerWrite, claimWrite).build());
+    }
+
+    private TransactWriteItem newCustomerWrite(CustomerDao customer) {
+        return TransactWriteItem.builder()
+                   .put(putCustomerItem(customer)
+                            .conditionExpression(IDENTIFIER_DOES_NOT_EXIST.expression())
+                            .expressionAttributeNames(IDENTIFIER_DOES_NOT_EXIST.expressionNames())
+                            .build())
+                   .build();
+    }
+
+    private Put.Builder putCustomerItem(CustomerDao customer) {
+        return Put.builder().tableName(table.tableName()).item(CustomerDao.TABLE_SCHEMA.itemToMap(customer, true));
+    }
+
+    private static boolean conditionFailed(TransactionCanceledException exception, int itemIndex) {
+        return CONDITIONAL_CHECK_FAILED.equals(exception.cancellationReasons().get(itemIndex).code());
+    }
+
+    private static RuntimeException conflictIfAnyConditionFailed(TransactionCanceledException exception)
+        throws ConflictException {
+        for (int itemIndex = 0; itemIndex < exception.cancellationReasons().size(); itemIndex++) {
+            if (conditionFailed(exception, itemIndex)) {
+                throw new ConflictException(CHANNEL_ALREADY_CLAIMED_MESSAGE);
+            }
         }
+        return exception;
     }
 
     private static Stream<ChannelClaimWithClaimer> toChannelClaimWithClaimer(CustomerDto customer) {
@@ -182,11 +381,51 @@ public class DynamoDBCustomerService implements CustomerService {
                    .map(claim -> getChannelClaimWithClaimer(claim, customer));
     }
 
+    /**
+     * Reads the claims of the customer through the Cristin id index, rather than looking through the claims of every
+     * customer. An institution that is not a customer has no claims. If the index holds more than one customer for
+     * the Cristin id, the claims of all of them are returned. Failures to read the index are not caught.
+     */
     @Override
     public Collection<ChannelClaimWithClaimer> getChannelClaimsForCustomer(URI cristinId) {
-        return getChannelClaims().stream()
-                   .filter(channelClaimWithClaimer -> channelClaimWithClaimer.isClaimedBy(cristinId))
-                   .collect(Collectors.toSet());
+        return channelClaimsOfCustomer(cristinId).toList();
+    }
+
+    @Override
+    public Collection<ChannelClaimWithClaimer> getChannelClaimsForCustomer(URI cristinId, String channelType) {
+        return channelClaimsOfCustomer(cristinId)
+                   .filter(claim -> channelType.equals(claim.channelClaim().channelType()))
+                   .toList();
+    }
+
+    private Stream<ChannelClaimWithClaimer> channelClaimsOfCustomer(URI cristinId) {
+        var customers = customersWithCristinId(cristinId);
+        if (customers.size() > 1) {
+            logger.warn(SEVERAL_CUSTOMERS_WITH_CRISTIN_ID, customers.size(), cristinId);
+        }
+        return customers.stream().flatMap(DynamoDBCustomerService::toChannelClaimWithClaimer);
+    }
+
+    private List<CustomerDto> customersWithCristinId(URI cristinId) {
+        var query = createQuery(createQueryForCristinNumber(cristinId), DynamoDBCustomerService::cristinIdOf);
+        return table.index(BY_CRISTIN_ID_INDEX_NAME).query(query).stream()
+                   .flatMap(page -> page.items().stream())
+                   .map(CustomerDao::toCustomerDto)
+                   .toList();
+    }
+
+    // A filtered scan still reads, and is billed for, every item in the table. The filter only cuts the data returned
+    // and the mapping of customers, so this is no cheaper to run than scanning the customers.
+    private Collection<ChannelClaimWithClaimer> scanChannelClaims(Expression filter) {
+        var request = ScanRequest.builder()
+                          .tableName(table.tableName())
+                          .filterExpression(filter.expression())
+                          .expressionAttributeNames(filter.expressionNames())
+                          .expressionAttributeValues(filter.expressionValues())
+                          .build();
+        return client.scanPaginator(request).items().stream()
+                   .map(ChannelClaimItems::toChannelClaimWithClaimer)
+                   .toList();
     }
 
     private static ChannelClaimWithClaimer getChannelClaimWithClaimer(ChannelClaimDto channelClaim,
@@ -208,9 +447,46 @@ public class DynamoDBCustomerService implements CustomerService {
         }
     }
 
+    // Also writes the claim items of the customer, so that refreshing all customers creates any that are missing.
+    // The rewritten customer may be stored differently than before, so it gets a new modified date like any write.
     private CustomerDto refreshCustomer(CustomerDto customer) {
-        table.putItem(CustomerDao.fromCustomerDto(customer));
-        return attempt(() -> getCustomer(customer.getIdentifier())).orElseThrow();
+        writeChannelClaimItems(customer);
+        customer.setModifiedDate(Instant.now().toString());
+        return writeCustomer(CustomerDao.fromCustomerDto(customer));
+    }
+
+    // A claim item that belongs to another customer is kept, so that a channel claimed twice is not claimed by
+    // whichever customer happens to be written last.
+    private void writeChannelClaimItems(CustomerDto customer) {
+        for (var claim : customer.getChannelClaims()) {
+            try {
+                client.putItem(ChannelClaimItems.backfill(table.tableName(), claim, customer));
+            } catch (ConditionalCheckFailedException e) {
+                logger.warn(CHANNEL_CLAIMED_BY_OTHER_CUSTOMER, claim.identifier(), customer.getIdentifier());
+            }
+        }
+    }
+
+    private static ScanEnhancedRequest scanCustomers() {
+        return ScanEnhancedRequest.builder().filterExpression(ChannelClaimItems.NOT_A_CHANNEL_CLAIM).build();
+    }
+
+    private CustomerDto writeCustomer(CustomerDao customer) {
+        table.putItem(customer);
+        return asStored(customer);
+    }
+
+    /**
+     * Returns the customer as it would be read back after being written, without reading it. The item goes through
+     * the same attribute conversion as a put followed by a get.
+     */
+    private static CustomerDto asStored(CustomerDao customer) {
+        var schema = CustomerDao.TABLE_SCHEMA;
+        return schema.mapToItem(schema.itemToMap(customer, true)).toCustomerDto();
+    }
+
+    private static String cristinIdOf(CustomerDao customer) {
+        return customer.getCristinId().toString();
     }
 
     private CustomerDao createQueryForCristinNumber(URI cristinId) {
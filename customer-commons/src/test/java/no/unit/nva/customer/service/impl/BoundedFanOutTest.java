@@ -0,0 +1,92 @@
+package no.unit.nva.customer.service.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class BoundedFanOutTest {
+
+    private static final Duration ONE_SECOND = Duration.ofSeconds(1);
+
+    @Test
+    void shouldReturnResultsOfSuccessfulLookupsAndReportFailingLookupsToFailureHandler() {
+        var failures = new ConcurrentHashMap<Integer, Exception>();
+        var fanOut = new BoundedFanOut(2, ONE_SECOND);
+
+        var results = fanOut.resolveAll(List.of(1, 2, 3, 4), BoundedFanOutTest::failOnEven, failures::put);
+
+        assertThat(results, is(equalTo(Map.of(1, "1", 3, "3"))));
+        assertThat(failures.keySet(), containsInAnyOrder(2, 4));
+    }
+
+    @Test
+    void shouldLeaveOutKeysThatTheLookupFindsNothingFor() {
+        var fanOut = new BoundedFanOut(2, ONE_SECOND);
+
+        var results = fanOut.resolveAll(List.of(1, 2, 3),
+                                        key -> key == 2 ? Optional.empty() : Optional.of(key),
+                                        (key, exception) -> {
+                                        });
+
+        assertThat(results.keySet(), containsInAnyOrder(1, 3));
+    }
+
+    @Test
+    void shouldReportLookupsThatExceedTheTimeoutAsTimeouts() {
+        var failures = new ConcurrentHashMap<String, Exception>();
+        var fanOut = new BoundedFanOut(2, Duration.ofMillis(100));
+
+        var results = fanOut.resolveAll(List.of("fast", "slow"), BoundedFanOutTest::sleepIfSlow, failures::put);
+
+        assertThat(results.keySet(), containsInAnyOrder("fast"));
+        assertThat(failures.get("slow"), is(instanceOf(TimeoutException.class)));
+    }
+
+    @Test
+    void shouldNeverRunMoreLookupsConcurrentlyThanTheConfiguredLimit() {
+        var running = new AtomicInteger();
+        var maxObserved = new AtomicInteger();
+        var fanOut = new BoundedFanOut(3, ONE_SECOND);
+
+        fanOut.resolveAll(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10),
+                          key -> trackConcurrency(key, running, maxObserved),
+                          (key, exception) -> {
+                          });
+
+        assertThat(maxObserved.get(), is(lessThanOrEqualTo(3)));
+    }
+
+    private static Optional<String> failOnEven(Integer key) {
+        if (key % 2 == 0) {
+            throw new IllegalArgumentException("Even key: " + key);
+        }
+        return Optional.of(String.valueOf(key));
+    }
+
+    private static Optional<String> sleepIfSlow(String key) throws InterruptedException {
+        if ("slow".equals(key)) {
+            Thread.sleep(ONE_SECOND.toMillis());
+        }
+        return Optional.of(key);
+    }
+
+    private static Optional<Integer> trackConcurrency(Integer key, AtomicInteger running, AtomicInteger maxObserved)
+        throws InterruptedException {
+        var current = running.incrementAndGet();
+        maxObserved.accumulateAndGet(current, Math::max);
+        Thread.sleep(20);
+        running.decrementAndGet();
+        return Optional.of(key);
+    }
+}
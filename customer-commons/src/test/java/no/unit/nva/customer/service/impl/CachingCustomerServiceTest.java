@@ -0,0 +1,157 @@
+package no.unit.nva.customer.service.impl;
+
+import static no.unit.nva.customer.testing.CustomerDataGenerator.randomChannelClaimDto;
+import static no.unit.nva.testutils.RandomDataGenerator.randomString;
+import static no.unit.nva.testutils.RandomDataGenerator.randomUri;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import no.unit.nva.customer.model.ApplicationDomain;
+import no.unit.nva.customer.model.CustomerDto;
+import no.unit.nva.customer.testing.LocalCustomerServiceDatabase;
+import nva.commons.apigateway.exceptions.ApiGatewayException;
+import nva.commons.apigateway.exceptions.NotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CachingCustomerServiceTest extends LocalCustomerServiceDatabase {
+
+    private DynamoDBCustomerService storedCustomers;
+    private CachingCustomerService service;
+
+    @BeforeEach
+    public void setUp() {
+        super.setupDatabase();
+        storedCustomers = spy(new DynamoDBCustomerService(dynamoClient));
+        service = new CachingCustomerService(storedCustomers, Duration.ofHours(1), Clock.systemUTC());
+    }
+
+    @Test
+    void shouldServeLookupsFromOneReadOfAllCustomers() throws ApiGatewayException {
+        var customer = storedCustomers.createCustomer(newCustomer());
+        var channelClaim = customer.getChannelClaims().stream().findFirst().orElseThrow();
+        clearInvocations(storedCustomers);
+
+        assertThat(service.getCustomer(customer.getIdentifier()), is(equalTo(customer)));
+        assertThat(service.getCustomer(customer.getId()), is(equalTo(customer)));
+        assertThat(service.getCustomerByCristinId(customer.getCristinId()), is(equalTo(customer)));
+        assertThat(service.getCustomerByOrgDomain(customer.getFeideOrganizationDomain()), is(equalTo(customer)));
+        assertThat(service.getCustomersByCristinIds(List.of(customer.getCristinId())).get(customer.getCristinId()),
+                   is(equalTo(customer)));
+        assertThat(service.getChannelClaim(channelClaim.identifier()).orElseThrow().customerId(),
+                   is(equalTo(customer.getId())));
+        assertThat(service.getChannelClaimsForCustomer(customer.getCristinId()).size(), is(equalTo(1)));
+
+        verify(storedCustomers, times(1)).getCustomers();
+        verify(storedCustomers, never()).getCustomer(any(UUID.class));
+        verify(storedCustomers, never()).getCustomerByCristinId(any(URI.class));
+        verify(storedCustomers, never()).getCustomerByOrgDomain(any(String.class));
+        verify(storedCustomers, never()).getChannelClaim(any(UUID.class));
+    }
+
+    @Test
+    void shouldSeeWritesMadeThroughTheServiceAtOnce() throws ApiGatewayException {
+        var customer = service.createCustomer(newCustomer());
+        service.getCustomers();
+
+        customer.setDisplayName(randomString());
+        service.updateCustomer(customer.getIdentifier(), customer);
+        var channelClaim = randomChannelClaimDto();
+        service.createChannelClaim(customer.getIdentifier(), channelClaim);
+
+        assertThat(service.getCustomer(customer.getIdentifier()).getDisplayName(),
+                   is(equalTo(customer.getDisplayName())));
+        assertThat(service.getChannelClaimsForCustomer(customer.getCristinId()).size(), is(equalTo(2)));
+
+        service.deleteChannelClaim(channelClaim.identifier());
+
+        assertThat(service.getChannelClaimsForCustomer(customer.getCristinId()).size(), is(equalTo(1)));
+    }
+
+    @Test
+    void shouldFindCustomerCreatedElsewhereAfterSnapshotWasTaken() throws ApiGatewayException {
+        service.getCustomers();
+
+        var customer = storedCustomers.createCustomer(newCustomer());
+
+        assertThat(service.getCustomer(customer.getIdentifier()), is(equalTo(customer)));
+        assertThat(service.getCustomerByCristinId(customer.getCristinId()), is(equalTo(customer)));
+    }
+
+    @Test
+    void shouldNotLetCallersChangeTheSnapshot() throws ApiGatewayException {
+        var customer = storedCustomers.createCustomer(newCustomer());
+
+        var fetched = service.getCustomer(customer.getIdentifier());
+        fetched.setDisplayName(randomString());
+        fetched.getChannelClaims().clear();
+
+        assertThat(service.getCustomer(customer.getIdentifier()), is(equalTo(customer)));
+    }
+
+    @Test
+    void shouldReloadCustomersWhenTimeToLiveHasPassed() throws ApiGatewayException {
+        var customer = storedCustomers.createCustomer(newCustomer());
+        var expiringService = new CachingCustomerService(storedCustomers, Duration.ZERO, Clock.systemUTC());
+        expiringService.getCustomer(customer.getIdentifier());
+
+        customer.setDisplayName(randomString());
+        storedCustomers.updateCustomer(customer.getIdentifier(), customer);
+
+        assertThat(expiringService.getCustomer(customer.getIdentifier()).getDisplayName(),
+                   is(equalTo(customer.getDisplayName())));
+    }
+
+    @Test
+    void shouldAnswerLookupsThatMustBeFastWithoutWaitingForTheSnapshot() throws Exception {
+        var customer = storedCustomers.createCustomer(newCustomer());
+        var snapshotRead = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            snapshotRead.await();
+            return invocation.callRealMethod();
+        }).when(storedCustomers).getCustomers();
+        var timeout = Duration.ofSeconds(2);
+
+        try {
+            var customers = assertTimeoutPreemptively(
+                timeout, () -> service.getCustomersByCristinIds(List.of(customer.getCristinId()), timeout));
+            var fetched = assertTimeoutPreemptively(timeout, () -> service.getCustomerWithoutWaiting(customer.getId()));
+
+            assertThat(customers.get(customer.getCristinId()), is(equalTo(customer)));
+            assertThat(fetched, is(equalTo(customer)));
+        } finally {
+            snapshotRead.countDown();
+        }
+    }
+
+    @Test
+    void shouldThrowNotFoundWhenCustomerDoesNotExist() {
+        assertThrows(NotFoundException.class, () -> service.getCustomer(UUID.randomUUID()));
+        assertThrows(NotFoundException.class, () -> service.getCustomerByCristinId(randomUri()));
+    }
+
+    private static CustomerDto newCustomer() {
+        return CustomerDto.builder()
+                   .withDisplayName(randomString())
+                   .withCristinId(randomUri())
+                   .withFeideOrganizationDomain(randomString())
+                   .withCustomerOf(ApplicationDomain.NVA)
+                   .withChannelClaims(List.of(randomChannelClaimDto()))
+                   .build();
+    }
+}
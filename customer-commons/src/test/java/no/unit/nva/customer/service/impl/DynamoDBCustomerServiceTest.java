@@ -5,6 +5,7 @@ import static no.unit.nva.customer.service.impl.DynamoDBCustomerService.CUSTOMER
 import static no.unit.nva.customer.testing.CustomerDataGenerator.randomAllowFileUploadForTypes;
 import static no.unit.nva.customer.testing.CustomerDataGenerator.randomChannelClaimDto;
 import static no.unit.nva.customer.testing.CustomerDataGenerator.randomChannelClaimDtos;
+import static no.unit.nva.customer.testing.CustomerDataGenerator.randomChannelOfType;
 import static no.unit.nva.customer.testing.CustomerDataGenerator.randomChannelConstraintDto;
 import static no.unit.nva.customer.testing.CustomerDataGenerator.randomCristinOrgId;
 import static no.unit.nva.customer.testing.CustomerDataGenerator.randomDoiAgent;
@@ -18,6 +19,8 @@ import static no.unit.nva.testutils.RandomDataGenerator.randomInstant;
 import static no.unit.nva.testutils.RandomDataGenerator.randomString;
 import static no.unit.nva.testutils.RandomDataGenerator.randomUri;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsEqual.equalTo;
@@ -31,12 +34,16 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import java.net.URI;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -51,6 +58,8 @@ import no.unit.nva.customer.model.VocabularyDao;
 import no.unit.nva.customer.model.VocabularyDto;
 import no.unit.nva.customer.model.VocabularyStatus;
 import no.unit.nva.customer.model.channelclaim.ChannelClaimDto;
+import no.unit.nva.customer.model.channelclaim.ChannelClaimWithClaimer;
+import no.unit.nva.customer.model.interfaces.Typed;
 import no.unit.nva.customer.testing.LocalCustomerServiceDatabase;
 import nva.commons.apigateway.exceptions.BadRequestException;
 import nva.commons.apigateway.exceptions.ConflictException;
@@ -62,13 +71,22 @@ import org.junit.jupiter.api.function.Executable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.model.PutItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.ScanEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
 import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
 import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
 
 class DynamoDBCustomerServiceTest extends LocalCustomerServiceDatabase {
 
     private static final Logger logger = LoggerFactory.getLogger(DynamoDBCustomerServiceTest.class);
+    private static final String PUBLISHER = "publisher";
+    private static final String SERIAL_PUBLICATION = "serial-publication";
     private DynamoDBCustomerService service;
 
     /**
@@ -103,12 +121,37 @@ class DynamoDBCustomerServiceTest extends LocalCustomerServiceDatabase {
         assertEquals(newName, updatedCustomer.getName());
     }
 
+    @Test
+    void shouldReturnWrittenCustomerWithoutReadingItBack() throws NotFoundException, InputException,
+                                                                  ConflictException {
+        var client = spy(dynamoClient);
+        var serviceWithSpy = new DynamoDBCustomerService(client);
+
+        var createdCustomer = serviceWithSpy.createCustomer(newActiveCustomerDto());
+        createdCustomer.setName(randomString());
+        var updatedCustomer = serviceWithSpy.putCustomer(createdCustomer.getIdentifier(), createdCustomer, false);
+
+        verify(client, never()).getItem(any(GetItemRequest.class));
+        assertThat(updatedCustomer, is(equalTo(service.getCustomer(createdCustomer.getIdentifier()))));
+    }
+
     @Test
     void shouldRefreshCustomers() throws ConflictException, NotFoundException {
         service.createCustomer(newActiveCustomerDto());
         assertDoesNotThrow(() -> service.refreshCustomers());
     }
 
+    @Test
+    void shouldSetModifiedDateOfRefreshedCustomers() throws ConflictException, NotFoundException {
+        var customer = service.createCustomer(newActiveCustomerDto());
+        var refreshStarted = Instant.now();
+
+        service.refreshCustomers();
+
+        var refreshedCustomer = service.getCustomer(customer.getIdentifier());
+        assertThat(Instant.parse(refreshedCustomer.getModifiedDate()), is(greaterThanOrEqualTo(refreshStarted)));
+    }
+
     @Test
     void shouldUpdateRboInstitutionWhenRboInstitutionIsSetToTrue()
         throws NotFoundException, InputException, ConflictException {
@@ -221,6 +264,47 @@ class DynamoDBCustomerServiceTest extends LocalCustomerServiceDatabase {
         assertThat(exception.getMessage(), Matchers.containsString(unknownCristinId.toString()));
     }
 
+    @Test
+    void shouldReturnCustomersByCristinIdsKeyedByRequestedCristinId() throws NotFoundException, ConflictException {
+        var first = service.createCustomer(newActiveCustomerDto());
+        var second = service.createCustomer(newActiveCustomerDto());
+        service.createCustomer(newActiveCustomerDto());
+
+        var customers = service.getCustomersByCristinIds(List.of(first.getCristinId(), second.getCristinId()));
+
+        assertThat(customers, is(equalTo(Map.of(first.getCristinId(), first, second.getCristinId(), second))));
+    }
+
+    @Test
+    void shouldLeaveOutUnknownCristinIdsAndIgnoreDuplicatesWhenFetchingCustomersByCristinIds()
+        throws NotFoundException, ConflictException {
+        var customer = service.createCustomer(newActiveCustomerDto());
+        var unknownCristinId = randomUri();
+
+        var customers = service.getCustomersByCristinIds(
+            List.of(customer.getCristinId(), unknownCristinId, customer.getCristinId()));
+
+        assertThat(customers, is(equalTo(Map.of(customer.getCristinId(), customer))));
+    }
+
+    @Test
+    void shouldReturnCustomersOfOtherCristinIdsWhenQueryForOneCristinIdFails()
+        throws NotFoundException, ConflictException {
+        var customer = service.createCustomer(newActiveCustomerDto());
+        var failingCristinId = randomUri();
+        var failingService = spy(service);
+        doThrow(new IllegalStateException("Throttled")).when(failingService).getCustomerByCristinId(failingCristinId);
+
+        var customers = failingService.getCustomersByCristinIds(List.of(failingCristinId, customer.getCristinId()));
+
+        assertThat(customers, is(equalTo(Map.of(customer.getCristinId(), customer))));
+    }
+
+    @Test
+    void shouldReturnEmptyMapWhenFetchingCustomersByNoCristinIds() {
+        assertThat(service.getCustomersByCristinIds(List.of()), is(equalTo(Map.of())));
+    }
+
     @Test
     void getAllCustomersReturnsListOfCustomers() throws NotFoundException, ConflictException {
         // create three customers
@@ -246,7 +330,7 @@ class DynamoDBCustomerServiceTest extends LocalCustomerServiceDatabase {
         when(failingTable.getItem(any(CustomerDao.class))).thenAnswer(ignored -> {
             throw new RuntimeException(expectedMessage);
         });
-        var failingService = new DynamoDBCustomerService(failingTable);
+        var failingService = new DynamoDBCustomerService(mock(DynamoDbClient.class), failingTable);
         var exception = assertThrows(RuntimeException.class, () -> failingService.getCustomer(UUID.randomUUID()));
         assertEquals(expectedMessage, exception.getMessage());
     }
@@ -255,10 +339,10 @@ class DynamoDBCustomerServiceTest extends LocalCustomerServiceDatabase {
     void getCustomersTableErrorThrowsException() {
         DynamoDbTable<CustomerDao> failingTable = mock(DynamoDbTable.class);
         final var expectedMessage = randomString();
-        when(failingTable.scan()).thenAnswer(ignored -> {
+        when(failingTable.scan(any(ScanEnhancedRequest.class))).thenAnswer(ignored -> {
             throw new RuntimeException(expectedMessage);
         });
-        var failingService = new DynamoDBCustomerService(failingTable);
+        var failingService = new DynamoDBCustomerService(mock(DynamoDbClient.class), failingTable);
         var exception = assertThrows(RuntimeException.class, failingService::getCustomers);
         assertEquals(expectedMessage, exception.getMessage());
     }
@@ -269,8 +353,14 @@ class DynamoDBCustomerServiceTest extends LocalCustomerServiceDatabase {
         final var expectedMessage = randomString();
         doAnswer(ignored -> {
             throw new RuntimeException(expectedMessage);
-        }).when(failingTable).putItem(any(CustomerDao.class));
-        var failingService = new DynamoDBCustomerService(failingTable);
+        }).when(failingTable).putItem(any(PutItemEnhancedRequest.class));
+        var failingClient = mock(DynamoDbClient.class);
+        when(failingClient.getItem(any(GetItemRequest.class))).thenAnswer(
+            invocation -> itemIfBackfillMarker(invocation.getArgument(0)));
+        when(failingClient.transactWriteItems(any(TransactWriteItemsRequest.class))).thenAnswer(ignored -> {
+            throw new RuntimeException(expectedMessage);
+        });
+        var failingService = new DynamoDBCustomerService(failingClient, failingTable);
         var exception = assertThrows(RuntimeException.class,
                                      () -> failingService.createCustomer(newInactiveCustomerDto()));
         assertEquals(expectedMessage, exception.getMessage());
@@ -283,7 +373,7 @@ class DynamoDBCustomerServiceTest extends LocalCustomerServiceDatabase {
         doAnswer(ignored -> {
             throw new RuntimeException(expectedMessage);
         }).when(failingTable).putItem(any(CustomerDao.class));
-        var failingService = new DynamoDBCustomerService(failingTable);
+        var failingService = new DynamoDBCustomerService(mock(DynamoDbClient.class), failingTable);
         var customer = newActiveCustomerDto();
         customer.setIdentifier(UUID.randomUUID());
         var exception = assertThrows(RuntimeException.class,
@@ -416,6 +506,72 @@ class DynamoDBCustomerServiceTest extends LocalCustomerServiceDatabase {
         assertEquals(customer.getCristinId(), channelClaims.stream().findFirst().orElseThrow().cristinId());
     }
 
+    @Test
+    void shouldListChannelClaimsForInstitutionWithoutScanningTheTable() throws ConflictException, NotFoundException {
+        var channelClaim = randomChannelClaimDto();
+        var customer = createCustomerWithChannelClaim(channelClaim);
+        createCustomerWithChannelClaim(randomChannelClaimDto());
+        var client = spy(dynamoClient);
+        var claimsService = new DynamoDBCustomerService(client);
+
+        var channelClaims = claimsService.getChannelClaimsForCustomer(customer.getCristinId());
+
+        assertEquals(List.of(channelClaim), channelClaimsOf(channelClaims));
+        verify(client, never()).scan(any(ScanRequest.class));
+    }
+
+    @Test
+    void shouldReturnEmptyListWhenInstitutionIsNotACustomer() {
+        assertTrue(service.getChannelClaimsForCustomer(randomCristinOrgId()).isEmpty());
+    }
+
+    @Test
+    void shouldListChannelClaimsOfEveryCustomerWithTheSameCristinId() throws ConflictException, NotFoundException {
+        var channelClaim = randomChannelClaimDto();
+        var customer = createCustomerWithChannelClaim(channelClaim);
+        var otherChannelClaim = randomChannelClaimDto();
+        var duplicate = newActiveCustomerDto().overwriteChannelClaims(List.of(otherChannelClaim));
+        duplicate.setIdentifier(UUID.randomUUID());
+        duplicate.setCristinId(customer.getCristinId());
+        dynamoClient.putItem(PutItemRequest.builder()
+                                 .tableName(CUSTOMERS_TABLE_NAME)
+                                 .item(CustomerDao.TABLE_SCHEMA.itemToMap(CustomerDao.fromCustomerDto(duplicate), true))
+                                 .build());
+
+        var channelClaims = service.getChannelClaimsForCustomer(customer.getCristinId());
+
+        assertThat(channelClaimsOf(channelClaims), containsInAnyOrder(channelClaim, otherChannelClaim));
+    }
+
+    @Test
+    void shouldNotHideFailuresToReadChannelClaimsOfInstitution() {
+        DynamoDbTable<CustomerDao> failingTable = mock(DynamoDbTable.class);
+        final var expectedMessage = randomString();
+        when(failingTable.index(any())).thenAnswer(ignored -> {
+            throw new RuntimeException(expectedMessage);
+        });
+        var failingService = new DynamoDBCustomerService(mock(DynamoDbClient.class), failingTable);
+
+        var exception = assertThrows(RuntimeException.class,
+                                     () -> failingService.getChannelClaimsForCustomer(randomCristinOrgId()));
+        assertEquals(expectedMessage, exception.getMessage());
+    }
+
+    @Test
+    void shouldListChannelClaimsOfChannelTypeOnly()
+        throws ConflictException, NotFoundException, InputException, BadRequestException {
+        var publisherClaim = randomChannelClaimOfType(PUBLISHER);
+        var customer = createCustomerWithChannelClaim(publisherClaim);
+        createCustomerWithChannelClaim(randomChannelClaimOfType(SERIAL_PUBLICATION));
+        service.createChannelClaim(customer.getIdentifier(), randomChannelClaimOfType(SERIAL_PUBLICATION));
+
+        var publisherClaims = service.getChannelClaims(PUBLISHER);
+        var customerPublisherClaims = service.getChannelClaimsForCustomer(customer.getCristinId(), PUBLISHER);
+
+        assertEquals(List.of(publisherClaim), channelClaimsOf(publisherClaims));
+        assertEquals(List.of(publisherClaim), channelClaimsOf(customerPublisherClaims));
+    }
+
     @Test
     void shouldReturnChannelClaimByChannelIdentifier() throws ConflictException, NotFoundException {
         var channelClaim = randomChannelClaimDto();
@@ -438,6 +594,120 @@ class DynamoDBCustomerServiceTest extends LocalCustomerServiceDatabase {
         assertTrue(fetchedChannelClaim.isEmpty());
     }
 
+    @Test
+    void shouldFetchChannelClaimWithOneKeyLookup() throws ConflictException, NotFoundException {
+        var channelClaim = randomChannelClaimDto();
+        var customer = createCustomerWithChannelClaim(channelClaim);
+        var client = spy(dynamoClient);
+
+        var fetchedClaim = new DynamoDBCustomerService(client).getChannelClaim(channelClaim.identifier());
+
+        assertEquals(customer.getId(), fetchedClaim.orElseThrow().customerId());
+        assertEquals(customer.getCristinId(), fetchedClaim.orElseThrow().cristinId());
+        verify(client, times(1)).getItem(any(GetItemRequest.class));
+        verify(client, never()).scan(any(ScanRequest.class));
+    }
+
+    @Test
+    void shouldLetChannelBeClaimedAgainWhenClaimIsDeleted() throws ConflictException, NotFoundException,
+                                                                  InputException, BadRequestException {
+        var channelClaim = randomChannelClaimDto();
+        createCustomerWithChannelClaim(channelClaim);
+        service.deleteChannelClaim(channelClaim.identifier());
+
+        var customer = createCustomerWithoutChannelClaim();
+        service.createChannelClaim(customer.getIdentifier(), channelClaim);
+
+        assertEquals(customer.getId(), service.getChannelClaim(channelClaim.identifier()).orElseThrow().customerId());
+    }
+
+    @Test
+    void shouldWriteMissingChannelClaimItemsWhenRefreshingCustomers() throws ConflictException, NotFoundException {
+        var channelClaim = randomChannelClaimDto();
+        createCustomerWithChannelClaim(channelClaim);
+        deleteChannelClaimItem(channelClaim);
+
+        service.refreshCustomers();
+
+        var claimItem = dynamoClient.getItem(GetItemRequest.builder()
+                                                 .tableName(CUSTOMERS_TABLE_NAME)
+                                                 .key(ChannelClaimItems.key(channelClaim.identifier()))
+                                                 .build());
+        assertTrue(claimItem.hasItem());
+    }
+
+    @Test
+    void shouldRejectClaimOfChannelClaimedBeforeClaimItemsExisted()
+        throws ConflictException, NotFoundException {
+        var channelClaim = randomChannelClaimDto();
+        var claimer = createCustomerWithChannelClaim(channelClaim);
+        deleteChannelClaimItem(channelClaim);
+        var customer = createCustomerWithoutChannelClaim();
+
+        assertThrows(ConflictException.class,
+                     () -> service.createChannelClaim(customer.getIdentifier(), channelClaim));
+        assertEquals(claimer.getId(), service.getChannelClaim(channelClaim.identifier()).orElseThrow().customerId());
+    }
+
+    @Test
+    void shouldDeleteChannelClaimMadeBeforeClaimItemsExisted()
+        throws ConflictException, NotFoundException, InputException {
+        var channelClaim = randomChannelClaimDto();
+        var customer = createCustomerWithChannelClaim(channelClaim);
+        deleteChannelClaimItem(channelClaim);
+
+        service.deleteChannelClaim(channelClaim.identifier());
+
+        assertTrue(service.getCustomer(customer.getIdentifier()).getChannelClaims().isEmpty());
+        assertTrue(service.getChannelClaim(channelClaim.identifier()).isEmpty());
+    }
+
+    @Test
+    void shouldKeepClaimItemOfExistingClaimerWhenRefreshingCustomerWithSameClaim()
+        throws ConflictException, NotFoundException {
+        var channelClaim = randomChannelClaimDto();
+        var claimer = createCustomerWithChannelClaim(channelClaim);
+        var duplicate = newActiveCustomerDto().overwriteChannelClaims(List.of(channelClaim));
+        duplicate.setIdentifier(UUID.randomUUID());
+        dynamoClient.putItem(PutItemRequest.builder()
+                                 .tableName(CUSTOMERS_TABLE_NAME)
+                                 .item(CustomerDao.TABLE_SCHEMA.itemToMap(CustomerDao.fromCustomerDto(duplicate), true))
+                                 .build());
+
+        service.refreshCustomers();
+
+        assertEquals(claimer.getId(), service.getChannelClaim(channelClaim.identifier()).orElseThrow().customerId());
+    }
+
+    @Test
+    void shouldNotLookForChannelClaimsOnCustomersOnceCustomersAreRefreshed()
+        throws ConflictException, NotFoundException {
+        var channelClaim = randomChannelClaimDto();
+        createCustomerWithChannelClaim(channelClaim);
+        service.refreshCustomers();
+        deleteChannelClaimItem(channelClaim);
+        var client = spy(dynamoClient);
+
+        var fetchedClaim = new DynamoDBCustomerService(client).getChannelClaim(channelClaim.identifier());
+
+        assertTrue(fetchedClaim.isEmpty());
+        verify(client, never()).scan(any(ScanRequest.class));
+    }
+
+    // Claim items are complete, and no channel is claimed.
+    private static GetItemResponse itemIfBackfillMarker(GetItemRequest request) {
+        return ChannelClaimItems.backfillMarkerKey().equals(request.key())
+                   ? GetItemResponse.builder().item(ChannelClaimItems.backfillMarker()).build()
+                   : GetItemResponse.builder().build();
+    }
+
+    private void deleteChannelClaimItem(ChannelClaimDto channelClaim) {
+        dynamoClient.deleteItem(DeleteItemRequest.builder()
+                                    .tableName(CUSTOMERS_TABLE_NAME)
+                                    .key(ChannelClaimItems.key(channelClaim.identifier()))
+                                    .build());
+    }
+
     @Test
     void shouldNotCallUpdateCustomerWhenRemovingNotExistingChannelClaim() throws NotFoundException, InputException {
         var mockedService = mock(DynamoDBCustomerService.class);
@@ -538,7 +808,10 @@ class DynamoDBCustomerServiceTest extends LocalCustomerServiceDatabase {
 
     private Map<String, AttributeValue> fetchCustomerDirectlyFromDatabaseAsKeyValueMap() {
         var allEntries = this.dynamoClient.scan(ScanRequest.builder().tableName(CUSTOMERS_TABLE_NAME).build());
-        return allEntries.items().getFirst();
+        return allEntries.items().stream()
+                   .filter(item -> !ChannelClaimItems.isChannelClaimItem(item.get(Typed.TYPE_FIELD).s()))
+                   .findFirst()
+                   .orElseThrow();
     }
 
     private CustomerDto createCustomerWithSingleVocabularyEntry() throws NotFoundException, ConflictException {
@@ -552,6 +825,14 @@ class DynamoDBCustomerServiceTest extends LocalCustomerServiceDatabase {
         return service.createCustomer(customer.overwriteChannelClaims(Collections.emptyList()));
     }
 
+    private static List<ChannelClaimDto> channelClaimsOf(Collection<ChannelClaimWithClaimer> claims) {
+        return claims.stream().map(ChannelClaimWithClaimer::channelClaim).toList();
+    }
+
+    private static ChannelClaimDto randomChannelClaimOfType(String channelType) {
+        return new ChannelClaimDto(randomChannelOfType(channelType), randomChannelConstraintDto());
+    }
+
     private CustomerDto createCustomerWithChannelClaim(ChannelClaimDto channelClaim) throws NotFoundException,
                                                                                    ConflictException {
         var customer = newActiveCustomerDto();
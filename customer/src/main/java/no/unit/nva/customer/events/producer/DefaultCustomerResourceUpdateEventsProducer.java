@@ -6,6 +6,7 @@ import static java.util.function.Predicate.not;
 import static no.unit.nva.customer.events.model.ChannelClaimUpdateEvents.addedChannelClaim;
 import static no.unit.nva.customer.events.model.ChannelClaimUpdateEvents.removedChannelClaim;
 import static no.unit.nva.customer.events.model.ChannelClaimUpdateEvents.updatedChannelClaim;
+import static no.unit.nva.customer.model.interfaces.Typed.TYPE_FIELD;
 import static nva.commons.core.attempt.Try.attempt;
 import com.amazonaws.services.lambda.runtime.events.DynamodbEvent.DynamodbStreamRecord;
 import com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue;
@@ -26,6 +27,7 @@ import no.unit.nva.customer.events.model.ResourceUpdateEvent;
 import no.unit.nva.customer.model.CustomerDao;
 import no.unit.nva.customer.model.CustomerDto;
 import no.unit.nva.customer.model.channelclaim.ChannelClaimDto;
+import no.unit.nva.customer.service.impl.ChannelClaimItems;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
@@ -152,8 +154,17 @@ public class DefaultCustomerResourceUpdateEventsProducer implements CustomerReso
   private Optional<CustomerDto> convertToCustomerDto(Map<String, AttributeValue> image) {
     return Optional
                .ofNullable(image)
+               .filter(not(DefaultCustomerResourceUpdateEventsProducer::isChannelClaimItem))
                .map(attributeValueConverter::convert)
                .map(CUSTOMER_DAO_TABLE_SCHEMA::mapToItem)
                .map(CustomerDao::toCustomerDto);
   }
+
+  // Channel claim items share the table with the customers, and their changes are derived from the customers.
+  private static boolean isChannelClaimItem(Map<String, AttributeValue> image) {
+    return Optional.ofNullable(image.get(TYPE_FIELD))
+               .map(AttributeValue::getS)
+               .filter(ChannelClaimItems::isChannelClaimItem)
+               .isPresent();
+  }
 }
@@ -0,0 +1,143 @@
+package no.unit.nva.customer.get;
+
+import static java.util.Objects.nonNull;
+import static nva.commons.core.attempt.Try.attempt;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import no.unit.nva.customer.model.CustomerDto;
+import nva.commons.apigateway.MediaType;
+import nva.commons.apigateway.RequestInfo;
+import nva.commons.core.Environment;
+
+/**
+ * Entity tags and cache headers for the customer read endpoints, so that clients that poll can send
+ * {@code If-None-Match} and get {@code 304 Not Modified} without a body when nothing has changed.
+ *
+ * <p>Every write of a customer sets its modified date, so the identifier and modified date of a customer change
+ * whenever its representation does. A list is tagged from the identifiers and modified dates of all its customers.
+ * The same customer is sent as either JSON or JSON-LD, depending on the {@code Accept} header, so the negotiated
+ * media type is part of every tag, and responses vary on {@code Accept}.
+ */
+public final class CacheValidation {
+
+    public static final String ETAG_HEADER = "ETag";
+    public static final String IF_NONE_MATCH_HEADER = "If-None-Match";
+    public static final String CACHE_CONTROL_HEADER = "Cache-Control";
+    public static final String VARY_HEADER = "Vary";
+    public static final String ACCEPT_HEADER = "Accept";
+    // Replaces the default Vary header of the handlers, which also varies on Origin for CORS.
+    public static final String VARY_VALUE = "Origin, " + ACCEPT_HEADER;
+    public static final String CACHE_MAX_AGE_ENV_NAME = "CUSTOMER_CACHE_MAX_AGE";
+    public static final Duration DEFAULT_CACHE_MAX_AGE = Duration.ofSeconds(30);
+    private static final String ANY_ENTITY_TAG = "*";
+    private static final String WEAK_PREFIX = "W/";
+    private static final String ENTITY_TAG_SEPARATOR = ",";
+    private static final String FIELD_SEPARATOR = "\n";
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final int ENTITY_TAG_BYTES = 16;
+
+    private CacheValidation() {
+    }
+
+    public static String entityTag(CustomerDto customer, MediaType mediaType) {
+        return quotedHash(mediaType + FIELD_SEPARATOR + versionOf(customer));
+    }
+
+    public static String entityTag(Collection<CustomerDto> customers, MediaType mediaType) {
+        return entityTag(customers, mediaType, "");
+    }
+
+    /**
+     * Tags one of several representations of the customers, such as a page or a selection of fields, with the
+     * variant telling them apart.
+     */
+    public static String entityTag(Collection<CustomerDto> customers, MediaType mediaType, String variant) {
+        var versions = new StringBuilder(mediaType.toString()).append(FIELD_SEPARATOR)
+                           .append(variant).append(FIELD_SEPARATOR);
+        customers.stream()
+            .sorted(Comparator.comparing(customer -> String.valueOf(customer.getIdentifier())))
+            .forEach(customer -> versions.append(versionOf(customer)).append(FIELD_SEPARATOR));
+        return quotedHash(versions.toString());
+    }
+
+    /**
+     * Returns true when the request has an {@code If-None-Match} header that matches the entity tag. Entity tags are
+     * compared the weak way, as the header requires.
+     */
+    public static boolean isNotModified(RequestInfo requestInfo, String entityTag) {
+        return ifNoneMatch(requestInfo)
+                   .map(value -> Arrays.stream(value.split(ENTITY_TAG_SEPARATOR))
+                                     .map(String::strip)
+                                     .anyMatch(tag -> ANY_ENTITY_TAG.equals(tag)
+                                                      || entityTag.equals(withoutWeakPrefix(tag))))
+                   .orElse(false);
+    }
+
+    /**
+     * The first of the supported media types that the {@code Accept} header asks for, taking the accepted types in the
+     * order they are listed. Without an {@code Accept} header, or when it asks for none of them, the first supported
+     * media type is used, as the response would be rejected as unsupported in the latter case anyway.
+     */
+    public static MediaType negotiatedMediaType(RequestInfo requestInfo, List<MediaType> supportedMediaTypes) {
+        return header(requestInfo, ACCEPT_HEADER).stream()
+                   .flatMap(value -> Arrays.stream(value.split(ENTITY_TAG_SEPARATOR)))
+                   .map(accepted -> attempt(() -> MediaType.parse(accepted.strip()).withoutParameters()).toOptional())
+                   .flatMap(Optional::stream)
+                   .flatMap(accepted -> supportedMediaTypes.stream()
+                                            .filter(supported -> supported.withoutParameters().is(accepted)))
+                   .findFirst()
+                   .orElse(supportedMediaTypes.getFirst());
+    }
+
+    public static Map<String, String> cacheHeaders(String entityTag, Duration maxAge) {
+        return Map.of(ETAG_HEADER, entityTag,
+                      CACHE_CONTROL_HEADER, "max-age=" + maxAge.toSeconds(),
+                      VARY_HEADER, VARY_VALUE);
+    }
+
+    public static Duration cacheMaxAge(Environment environment) {
+        return environment.readEnvOpt(CACHE_MAX_AGE_ENV_NAME)
+                   .map(Duration::parse)
+                   .orElse(DEFAULT_CACHE_MAX_AGE);
+    }
+
+    private static Optional<String> ifNoneMatch(RequestInfo requestInfo) {
+        return header(requestInfo, IF_NONE_MATCH_HEADER);
+    }
+
+    private static Optional<String> header(RequestInfo requestInfo, String name) {
+        return Optional.ofNullable(requestInfo.getHeaders())
+                   .stream()
+                   .flatMap(headers -> headers.entrySet().stream())
+                   .filter(header -> name.equalsIgnoreCase(header.getKey()))
+                   .map(Map.Entry::getValue)
+                   .filter(value -> nonNull(value) && !value.isBlank())
+                   .findFirst();
+    }
+
+    private static String withoutWeakPrefix(String entityTag) {
+        return entityTag.startsWith(WEAK_PREFIX) ? entityTag.substring(WEAK_PREFIX.length()) : entityTag;
+    }
+
+    private static String versionOf(CustomerDto customer) {
+        return customer.getIdentifier() + FIELD_SEPARATOR + customer.getModifiedDate();
+    }
+
+    private static String quotedHash(String value) {
+        try {
+            var digest = MessageDigest.getInstance(HASH_ALGORITHM).digest(value.getBytes(StandardCharsets.UTF_8));
+            return "\"" + HexFormat.of().formatHex(digest, 0, ENTITY_TAG_BYTES) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
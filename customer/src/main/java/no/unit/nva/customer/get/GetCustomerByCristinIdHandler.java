@@ -18,14 +18,17 @@ import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
 
+import static java.util.Objects.nonNull;
 import static no.unit.nva.customer.Constants.defaultCustomerService;
 
 public class GetCustomerByCristinIdHandler extends ApiGatewayHandler<Void, CustomerDto> {
 
     public static final String CRISTIN_ID = "cristinId";
     private final CustomerService customerService;
+    private final Duration cacheMaxAge;
 
     @JacocoGenerated
     public GetCustomerByCristinIdHandler() {
@@ -40,6 +43,7 @@ public class GetCustomerByCristinIdHandler extends ApiGatewayHandler<Void, Custo
     public GetCustomerByCristinIdHandler(CustomerService customerService, Environment environment) {
         super(Void.class, environment);
         this.customerService = customerService;
+        this.cacheMaxAge = CacheValidation.cacheMaxAge(environment);
     }
 
     @Override
@@ -56,12 +60,16 @@ public class GetCustomerByCristinIdHandler extends ApiGatewayHandler<Void, Custo
     protected CustomerDto processInput(Void input, RequestInfo request, Context context)
         throws NotFoundException, InputException {
         var cristinUriIdentifier = URI.create(URLDecoder.decode(getCristinId(request), StandardCharsets.UTF_8));
-        return customerService.getCustomerByCristinId(cristinUriIdentifier);
+        var customer = customerService.getCustomerByCristinId(cristinUriIdentifier);
+        var mediaType = CacheValidation.negotiatedMediaType(request, listSupportedMediaTypes());
+        var entityTag = CacheValidation.entityTag(customer, mediaType);
+        addAdditionalHeaders(() -> CacheValidation.cacheHeaders(entityTag, cacheMaxAge));
+        return CacheValidation.isNotModified(request, entityTag) ? null : customer;
     }
 
     @Override
     protected Integer getSuccessStatusCode(Void input, CustomerDto output) {
-        return HttpURLConnection.HTTP_OK;
+        return nonNull(output) ? HttpURLConnection.HTTP_OK : HttpURLConnection.HTTP_NOT_MODIFIED;
     }
 
     private String getCristinId(RequestInfo request) throws InputException {
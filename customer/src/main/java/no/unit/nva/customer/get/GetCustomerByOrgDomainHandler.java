@@ -16,8 +16,10 @@ import org.slf4j.LoggerFactory;
 
 import java.net.HttpURLConnection;
 import java.net.URI;
+import java.time.Duration;
 import java.util.List;
 
+import static java.util.Objects.nonNull;
 import static no.unit.nva.customer.Constants.defaultCustomerService;
 import static no.unit.nva.customer.RequestUtils.getPathParameter;
 
@@ -26,6 +28,7 @@ public class GetCustomerByOrgDomainHandler extends ApiGatewayHandler<Void, Custo
     public static final String ORG_DOMAIN = "orgDomain";
     private static final Logger logger = LoggerFactory.getLogger(GetCustomerByOrgDomainHandler.class);
     private final CustomerService customerService;
+    private final Duration cacheMaxAge;
 
     @JacocoGenerated
     public GetCustomerByOrgDomainHandler() {
@@ -35,6 +38,7 @@ public class GetCustomerByOrgDomainHandler extends ApiGatewayHandler<Void, Custo
     public GetCustomerByOrgDomainHandler(CustomerService customerService, Environment environment) {
         super(Void.class, environment);
         this.customerService = customerService;
+        this.cacheMaxAge = CacheValidation.cacheMaxAge(environment);
     }
 
     @Override
@@ -57,12 +61,17 @@ public class GetCustomerByOrgDomainHandler extends ApiGatewayHandler<Void, Custo
         URI cristinId = customerDto.getCristinId();
         long stop = System.currentTimeMillis();
         logger.info("processInput took {} ms", stop - start);
-        return new CustomerIdentifiers(customerId, cristinId);
+        var mediaType = CacheValidation.negotiatedMediaType(requestInfo, listSupportedMediaTypes());
+        var entityTag = CacheValidation.entityTag(customerDto, mediaType);
+        addAdditionalHeaders(() -> CacheValidation.cacheHeaders(entityTag, cacheMaxAge));
+        return CacheValidation.isNotModified(requestInfo, entityTag)
+                   ? null
+                   : new CustomerIdentifiers(customerId, cristinId);
     }
 
     @Override
     protected Integer getSuccessStatusCode(Void input, CustomerIdentifiers output) {
-        return HttpURLConnection.HTTP_OK;
+        return nonNull(output) ? HttpURLConnection.HTTP_OK : HttpURLConnection.HTTP_NOT_MODIFIED;
     }
 
     private String getOrgIdentifier(RequestInfo request) {
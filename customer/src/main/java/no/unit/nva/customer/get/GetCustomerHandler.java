@@ -15,13 +15,16 @@ import nva.commons.core.Environment;
 import nva.commons.core.JacocoGenerated;
 
 import java.net.HttpURLConnection;
+import java.time.Duration;
 import java.util.List;
 
+import static java.util.Objects.nonNull;
 import static no.unit.nva.customer.Constants.defaultCustomerService;
 
 public class GetCustomerHandler extends CustomerHandler<Void> {
 
     private final CustomerService customerService;
+    private final Duration cacheMaxAge;
 
     /**
      * Default Constructor for ListCustomerHandler.
@@ -40,6 +43,7 @@ public class GetCustomerHandler extends CustomerHandler<Void> {
     public GetCustomerHandler(CustomerService customerService, Environment environment) {
         super(Void.class, environment);
         this.customerService = customerService;
+        this.cacheMaxAge = CacheValidation.cacheMaxAge(environment);
     }
 
     @Override
@@ -55,11 +59,15 @@ public class GetCustomerHandler extends CustomerHandler<Void> {
     @Override
     protected CustomerDto processInput(Void input, RequestInfo requestInfo, Context context)
         throws InputException, NotFoundException, ForbiddenException {
-        return customerService.getCustomer(getIdentifier(requestInfo));
+        var customer = customerService.getCustomer(getIdentifier(requestInfo));
+        var mediaType = CacheValidation.negotiatedMediaType(requestInfo, listSupportedMediaTypes());
+        var entityTag = CacheValidation.entityTag(customer, mediaType);
+        addAdditionalHeaders(() -> CacheValidation.cacheHeaders(entityTag, cacheMaxAge));
+        return CacheValidation.isNotModified(requestInfo, entityTag) ? null : customer;
     }
 
     @Override
     protected Integer getSuccessStatusCode(Void input, CustomerDto output) {
-        return HttpURLConnection.HTTP_OK;
+        return nonNull(output) ? HttpURLConnection.HTTP_OK : HttpURLConnection.HTTP_NOT_MODIFIED;
     }
 }
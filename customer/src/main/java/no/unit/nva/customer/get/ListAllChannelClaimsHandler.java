@@ -10,7 +10,6 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import no.unit.nva.customer.get.response.ChannelClaimsListResponse;
-import no.unit.nva.customer.model.channelclaim.ChannelClaimDto;
 import no.unit.nva.customer.model.channelclaim.ChannelClaimWithClaimer;
 import no.unit.nva.customer.service.CustomerService;
 import nva.commons.apigateway.ApiGatewayHandler;
@@ -20,7 +19,6 @@ import nva.commons.apigateway.exceptions.BadGatewayException;
 import nva.commons.apigateway.exceptions.UnauthorizedException;
 import nva.commons.core.Environment;
 import nva.commons.core.JacocoGenerated;
-import nva.commons.core.paths.UriWrapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -30,7 +28,6 @@ public class ListAllChannelClaimsHandler extends ApiGatewayHandler<Void, Channel
     private static final String BAD_GATEWAY_ERROR_MESSAGE = "Something went wrong, contact application administrator!";
     private static final String QUERY_PARAM_INSTITUTION = "institution";
     private static final String QUERY_PARAM_CHANNEL_TYPE = "channelType";
-    private static final int ONE = 1;
     protected static final String EXCEPTION_MESSAGE = "Failed with exception: {}";
     private final CustomerService customerService;
 
@@ -85,29 +82,22 @@ public class ListAllChannelClaimsHandler extends ApiGatewayHandler<Void, Channel
     }
 
     private List<ChannelClaimWithClaimer> listChannelClaims(RequestInfo requestInfo) {
-        var claims = getInstitutionCristinId(requestInfo)
-                         .map(customerService::getChannelClaimsForCustomer)
-                         .orElse(customerService.getChannelClaims());
-
-        return getChannelType(requestInfo)
-                   .map(channelType -> filterByChannelType(claims, channelType))
-                   .orElse(claims.stream().toList());
-    }
-
-    private List<ChannelClaimWithClaimer> filterByChannelType(Collection<ChannelClaimWithClaimer> claims,
-                                                              String channelType) {
-        return claims.stream().filter(claim -> isChannelType(claim, channelType)).toList();
+        var institution = getInstitutionCristinId(requestInfo);
+        var channelType = getChannelType(requestInfo);
+        var claims = institution.isPresent()
+                         ? listChannelClaimsForCustomer(institution.get(), channelType)
+                         : listAllChannelClaims(channelType);
+        return List.copyOf(claims);
     }
 
-    private boolean isChannelType(ChannelClaimWithClaimer claim, String channelType) {
-        return Optional.ofNullable(claim.channelClaim())
-                   .map(ChannelClaimDto::channel)
-                   .map(this::getChannelTypeFromPath)
-                   .filter(channelTypeFromPath -> channelTypeFromPath.equals(channelType))
-                   .isPresent();
+    private Collection<ChannelClaimWithClaimer> listChannelClaimsForCustomer(URI cristinId,
+                                                                            Optional<String> channelType) {
+        return channelType.map(type -> customerService.getChannelClaimsForCustomer(cristinId, type))
+                   .orElseGet(() -> customerService.getChannelClaimsForCustomer(cristinId));
     }
 
-    private String getChannelTypeFromPath(URI channel) {
-        return UriWrapper.fromUri(channel).getPath().getPathElementByIndexFromEnd(ONE);
+    private Collection<ChannelClaimWithClaimer> listAllChannelClaims(Optional<String> channelType) {
+        return channelType.map(customerService::getChannelClaims)
+                   .orElseGet(customerService::getChannelClaims);
     }
 }
@@ -1,24 +1,59 @@
 package no.unit.nva.customer.get;
 
+import static java.util.Objects.nonNull;
 import static no.unit.nva.customer.Constants.defaultCustomerService;
 import com.amazonaws.services.lambda.runtime.Context;
 import nva.commons.apigateway.MediaType;
 import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
 import no.unit.nva.customer.Constants;
 import no.unit.nva.customer.model.CustomerDto;
 import no.unit.nva.customer.model.CustomerList;
+import no.unit.nva.customer.model.CustomerReference;
 import no.unit.nva.customer.service.CustomerService;
 import nva.commons.apigateway.ApiGatewayHandler;
 import nva.commons.apigateway.RequestInfo;
 import nva.commons.apigateway.exceptions.ApiGatewayException;
-import nva.commons.apigateway.exceptions.ForbiddenException;
+import nva.commons.apigateway.exceptions.BadRequestException;
 import nva.commons.core.Environment;
 import nva.commons.core.JacocoGenerated;
+import nva.commons.core.paths.UriWrapper;
 
+/**
+ * Lists customers as references. The list can be limited to some of the reference fields with {@code fields}, and
+ * read a page at a time with {@code pageSize}, following the {@code nextResults} link of each page. Pages are ordered
+ * by customer identifier, and the link holds the identifier of the last customer on the page, so customers added or
+ * removed between pages do not shift the customers that follow.
+ */
 public class ListAllCustomersHandler extends ApiGatewayHandler<Void, CustomerList> {
 
+    public static final String FIELDS_QUERY_PARAMETER = "fields";
+    public static final String PAGE_SIZE_QUERY_PARAMETER = "pageSize";
+    public static final String AFTER_QUERY_PARAMETER = "after";
+    public static final int MIN_PAGE_SIZE = 1;
+    public static final int MAX_PAGE_SIZE = 1000;
+    private static final String FIELD_SEPARATOR = ",";
+    private static final String ID_NAMESPACE_ENV_NAME = "ID_NAMESPACE";
+    private static final String INVALID_FIELDS_MESSAGE = "Unknown fields requested. Valid fields are: ";
+    private static final String INVALID_PAGE_SIZE_MESSAGE = "Page size must be a number from 1 to " + MAX_PAGE_SIZE;
+    private static final String INVALID_CURSOR_MESSAGE = "Invalid value of query parameter after: ";
+    private static final Comparator<CustomerDto> BY_IDENTIFIER =
+        Comparator.comparing(customer -> customer.getIdentifier().toString());
+
     private final CustomerService customerService;
+    private final Environment environment;
+    private final Duration cacheMaxAge;
 
     /**
      * Default Constructor for GetAllCustomersHandler.
@@ -36,6 +71,8 @@ public class ListAllCustomersHandler extends ApiGatewayHandler<Void, CustomerLis
     public ListAllCustomersHandler(CustomerService customerService, Environment environment) {
         super(Void.class, environment);
         this.customerService = customerService;
+        this.environment = environment;
+        this.cacheMaxAge = CacheValidation.cacheMaxAge(environment);
     }
 
     @Override
@@ -50,14 +87,97 @@ public class ListAllCustomersHandler extends ApiGatewayHandler<Void, CustomerLis
 
     @Override
     protected CustomerList processInput(Void input, RequestInfo requestInfo, Context context)
-        throws ForbiddenException {
+        throws BadRequestException {
+        var fields = requestedFields(requestInfo);
+        var pageSize = requestedPageSize(requestInfo);
+        var after = requestedCursor(requestInfo);
+
+        var customers = customerService.getCustomers().stream()
+                            .filter(customer -> after.isEmpty() || isAfter(customer, after.get()))
+                            .sorted(BY_IDENTIFIER)
+                            .toList();
+        var page = customers.subList(0, Math.min(pageSize.orElse(customers.size()), customers.size()));
+        var nextResults = page.size() < customers.size()
+                              ? nextResults(fields, pageSize.orElseThrow(), page.getLast())
+                              : null;
 
-        List<CustomerDto> customers = customerService.getCustomers();
-        return new CustomerList(customers);
+        var mediaType = CacheValidation.negotiatedMediaType(requestInfo, listSupportedMediaTypes());
+        var variant = requestInfo.getQueryParameters() + " " + nextResults;
+        var entityTag = CacheValidation.entityTag(page, mediaType, variant);
+        addAdditionalHeaders(() -> CacheValidation.cacheHeaders(entityTag, cacheMaxAge));
+        return CacheValidation.isNotModified(requestInfo, entityTag)
+                   ? null
+                   : CustomerList.page(references(page, fields), nextResults);
     }
 
     @Override
     protected Integer getSuccessStatusCode(Void input, CustomerList output) {
-        return HttpURLConnection.HTTP_OK;
+        return nonNull(output) ? HttpURLConnection.HTTP_OK : HttpURLConnection.HTTP_NOT_MODIFIED;
+    }
+
+    private static List<CustomerReference> references(List<CustomerDto> customers, Optional<Set<String>> fields) {
+        return customers.stream()
+                   .map(CustomerReference::fromCustomerDto)
+                   .map(reference -> fields.map(reference::withFields).orElse(reference))
+                   .toList();
+    }
+
+    private static Optional<Set<String>> requestedFields(RequestInfo requestInfo) throws BadRequestException {
+        var fields = requestInfo.getQueryParameterOpt(FIELDS_QUERY_PARAMETER)
+                         .map(value -> Arrays.stream(value.split(FIELD_SEPARATOR))
+                                           .map(String::strip)
+                                           .filter(field -> !field.isEmpty())
+                                           .collect(Collectors.toCollection(LinkedHashSet::new)));
+        if (fields.isPresent() && !CustomerReference.FIELDS.containsAll(fields.get())) {
+            throw new BadRequestException(INVALID_FIELDS_MESSAGE + String.join(FIELD_SEPARATOR,
+                                                                               CustomerReference.FIELDS));
+        }
+        return fields.map(Set::copyOf);
+    }
+
+    private static Optional<Integer> requestedPageSize(RequestInfo requestInfo) throws BadRequestException {
+        var pageSize = requestInfo.getQueryParameterOpt(PAGE_SIZE_QUERY_PARAMETER);
+        if (pageSize.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            var value = Integer.parseInt(pageSize.get());
+            if (value < MIN_PAGE_SIZE || value > MAX_PAGE_SIZE) {
+                throw new BadRequestException(INVALID_PAGE_SIZE_MESSAGE);
+            }
+            return Optional.of(value);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException(INVALID_PAGE_SIZE_MESSAGE);
+        }
+    }
+
+    private static Optional<String> requestedCursor(RequestInfo requestInfo) throws BadRequestException {
+        var after = requestInfo.getQueryParameterOpt(AFTER_QUERY_PARAMETER);
+        if (after.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            var identifier = new String(Base64.getUrlDecoder().decode(after.get()), StandardCharsets.UTF_8);
+            return Optional.of(UUID.fromString(identifier).toString());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(INVALID_CURSOR_MESSAGE + after.get());
+        }
+    }
+
+    private static boolean isAfter(CustomerDto customer, String identifier) {
+        return customer.getIdentifier().toString().compareTo(identifier) > 0;
+    }
+
+    private URI nextResults(Optional<Set<String>> fields, int pageSize, CustomerDto lastCustomer) {
+        var cursor = Base64.getUrlEncoder()
+                         .withoutPadding()
+                         .encodeToString(lastCustomer.getIdentifier().toString().getBytes(StandardCharsets.UTF_8));
+        var nextResults = UriWrapper.fromUri(environment.readEnv(ID_NAMESPACE_ENV_NAME))
+                              .addQueryParameter(PAGE_SIZE_QUERY_PARAMETER, String.valueOf(pageSize))
+                              .addQueryParameter(AFTER_QUERY_PARAMETER, cursor);
+        return fields.map(requested -> nextResults.addQueryParameter(FIELDS_QUERY_PARAMETER,
+                                                                     String.join(FIELD_SEPARATOR, requested)))
+                   .orElse(nextResults)
+                   .getUri();
     }
 }
@@ -23,6 +23,8 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
+import java.time.Instant;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 
@@ -38,8 +40,10 @@ import static no.unit.nva.testutils.RandomDataGenerator.randomUri;
 import static nva.commons.apigateway.AccessRight.MANAGE_CUSTOMERS;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -117,6 +121,70 @@ class GetCustomerHandlerTest {
         assertThat(actualCustomerDto, is(customerDto));
     }
 
+    @Test
+    void requestToHandlerReturnsEntityTagAndCacheControlHeaders() throws NotFoundException, IOException {
+        var customerDto = prepareServiceWithCustomer(UUID.randomUUID());
+
+        var response = sendRequest(createGetCustomerRequest(customerDto), CustomerDto.class);
+
+        assertThat(response.getHeaders().get(CacheValidation.ETAG_HEADER),
+                   is(equalTo(CacheValidation.entityTag(customerDto, MediaType.JSON_UTF_8))));
+        assertThat(response.getHeaders().get(CacheValidation.CACHE_CONTROL_HEADER), containsString("max-age="));
+        assertThat(response.getHeaders().get(CacheValidation.VARY_HEADER),
+                   containsString(CacheValidation.ACCEPT_HEADER));
+    }
+
+    @Test
+    void requestToHandlerReturnsEntityTagOfNegotiatedMediaType() throws NotFoundException, IOException {
+        var customerDto = prepareServiceWithCustomer(UUID.randomUUID());
+        var jsonLdRequest = new HandlerRequestBuilder<Void>(dtoObjectMapper)
+            .withAccessRights(randomUri(), MANAGE_CUSTOMERS)
+            .withHeaders(new RequestHeaders(MediaTypes.APPLICATION_JSON_LD).getRequestHeaders())
+            .withPathParameters(Map.of(IDENTIFIER, customerDto.getIdentifier().toString()))
+            .build();
+
+        var response = sendRequest(jsonLdRequest, CustomerDto.class);
+
+        var entityTag = response.getHeaders().get(CacheValidation.ETAG_HEADER);
+        assertThat(entityTag, is(equalTo(CacheValidation.entityTag(customerDto, MediaTypes.APPLICATION_JSON_LD))));
+        assertThat(entityTag, is(not(equalTo(CacheValidation.entityTag(customerDto, MediaType.JSON_UTF_8)))));
+    }
+
+    @Test
+    void requestToHandlerReturnsNotModifiedWhenEntityTagMatchesIfNoneMatch() throws NotFoundException, IOException {
+        var customerDto = prepareServiceWithCustomer(UUID.randomUUID());
+        var entityTag = CacheValidation.entityTag(customerDto, MediaType.JSON_UTF_8);
+
+        var response = sendRequest(createGetCustomerRequest(customerDto, entityTag), CustomerDto.class);
+
+        assertThat(response.getStatusCode(), is(HttpURLConnection.HTTP_NOT_MODIFIED));
+        assertThat(response.getHeaders().get(CacheValidation.ETAG_HEADER), is(equalTo(entityTag)));
+    }
+
+    @Test
+    void requestToHandlerReturnsCustomerWhenCustomerHasChangedSinceEntityTagWasIssued()
+        throws NotFoundException, IOException {
+        var customerDto = prepareServiceWithCustomer(UUID.randomUUID());
+        var outdatedEntityTag = CacheValidation.entityTag(customerDto, MediaType.JSON_UTF_8);
+        customerDto.setModifiedDate(Instant.now().toString());
+
+        var response = sendRequest(createGetCustomerRequest(customerDto, outdatedEntityTag), CustomerDto.class);
+
+        assertThat(response.getStatusCode(), is(HttpURLConnection.HTTP_OK));
+        assertThat(response.getHeaders().get(CacheValidation.ETAG_HEADER), is(not(equalTo(outdatedEntityTag))));
+    }
+
+    private InputStream createGetCustomerRequest(CustomerDto customerDto, String ifNoneMatch)
+        throws JsonProcessingException {
+        var headers = new HashMap<>(getRequestHeaders());
+        headers.put(CacheValidation.IF_NONE_MATCH_HEADER, ifNoneMatch);
+        return new HandlerRequestBuilder<Void>(dtoObjectMapper)
+            .withAccessRights(randomUri(), MANAGE_CUSTOMERS)
+            .withHeaders(headers)
+            .withPathParameters(Map.of(IDENTIFIER, customerDto.getIdentifier().toString()))
+            .build();
+    }
+
     private InputStream createGetCustomerRequest(CustomerDto customerDto)
         throws JsonProcessingException {
         Map<String, String> pathParameters = Map.of(IDENTIFIER, customerDto.getIdentifier().toString());
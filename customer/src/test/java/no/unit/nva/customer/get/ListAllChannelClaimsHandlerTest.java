@@ -138,6 +138,33 @@ class ListAllChannelClaimsHandlerTest extends LocalCustomerServiceDatabase {
         assertTrue(claim.channelClaim().channel().toString().contains(CHANNEL_TYPE_PUBLISHER));
     }
 
+    @Test
+    void shouldListChannelClaimsOfChannelTypeForInstitutionWhenBothAreProvidedInQueryParams()
+        throws ApiGatewayException, IOException {
+        var claimPublisher = new ChannelClaimDto(randomChannelOfType(CHANNEL_TYPE_PUBLISHER),
+                                                 randomChannelConstraintDto());
+        var claimSerialPublication = new ChannelClaimDto(randomChannelOfType(CHANNEL_TYPE_SERIAL_PUBLICATION),
+                                                         randomChannelConstraintDto());
+        var customer = insertRandomCustomerWithChannelClaim(List.of(claimPublisher, claimSerialPublication));
+        insertRandomCustomerWithChannelClaim(List.of(new ChannelClaimDto(randomChannelOfType(CHANNEL_TYPE_PUBLISHER),
+                                                                         randomChannelConstraintDto())));
+
+        var request = new HandlerRequestBuilder<Void>(dtoObjectMapper)
+                          .withCurrentCustomer(randomUri())
+                          .withUserName(randomString())
+                          .withQueryParameters(Map.of("institution", customer.getCristinId().toString(),
+                                                      "channelType", CHANNEL_TYPE_PUBLISHER))
+                          .build();
+        handler.handleRequest(request, output, CONTEXT);
+
+        var response = GatewayResponse.fromOutputStream(output, ChannelClaimsListResponse.class);
+        var channelClaims = response.getBodyObject(ChannelClaimsListResponse.class).channelClaims();
+        assertEquals(ONE, channelClaims.size());
+        var claim = channelClaims.stream().findFirst().orElseThrow();
+        assertEquals(claimPublisher.channel(), claim.channelClaim().channel());
+        assertEquals(customer.getCristinId(), claim.claimedBy().organizationId());
+    }
+
     private CustomerDto insertRandomCustomerWithChannelClaim(List<ChannelClaimDto> channelClaims) throws ApiGatewayException {
         var customer = CustomerDto.builder()
                            .withDisplayName(randomString())
@@ -1,12 +1,18 @@
 package no.unit.nva.customer.get;
 
 import static java.util.Collections.singletonList;
+import static java.util.Objects.nonNull;
 import static no.unit.nva.commons.json.JsonUtils.dtoObjectMapper;
+import static no.unit.nva.customer.get.ListAllCustomersHandler.FIELDS_QUERY_PARAMETER;
+import static no.unit.nva.customer.get.ListAllCustomersHandler.PAGE_SIZE_QUERY_PARAMETER;
+import static no.unit.nva.customer.model.CustomerReference.CRISTIN_ID_FIELD;
+import static no.unit.nva.customer.model.CustomerReference.ID_FIELD;
 import static no.unit.nva.customer.testing.TestHeaders.getRequestHeaders;
 import static no.unit.nva.testutils.RandomDataGenerator.randomElement;
 import static no.unit.nva.testutils.RandomDataGenerator.randomString;
 import static no.unit.nva.testutils.RandomDataGenerator.randomUri;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasProperty;
@@ -17,11 +23,18 @@ import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsNot.not;
 import com.amazonaws.services.lambda.runtime.Context;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 import no.unit.nva.customer.model.ApplicationDomain;
 import no.unit.nva.customer.model.CustomerDto;
 import no.unit.nva.customer.model.CustomerDto.ServiceCenter;
@@ -40,6 +53,7 @@ import nva.commons.apigateway.exceptions.NotFoundException;
 import nva.commons.core.Environment;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.zalando.problem.Problem;
 
 class ListAllCustomersHandlerTest extends LocalCustomerServiceDatabase {
 
@@ -76,6 +90,90 @@ class ListAllCustomersHandlerTest extends LocalCustomerServiceDatabase {
         assertThat(actualCustomerList, equalTo(customerList));
     }
 
+    @Test
+    void shouldReturnNotModifiedUntilAnyCustomerChangesWhenRequestHasEntityTagOfList()
+        throws IOException, ApiGatewayException {
+        insertRandomCustomer();
+        var entityTag = sendRequest(sampleRequestWithAccess(), CustomerList.class)
+                            .getHeaders()
+                            .get(CacheValidation.ETAG_HEADER);
+
+        outputStream = new ByteArrayOutputStream();
+        var unchanged = sendRequest(sampleRequestWithIfNoneMatch(entityTag), CustomerList.class);
+        assertThat(unchanged.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_NOT_MODIFIED)));
+
+        insertRandomCustomer();
+        outputStream = new ByteArrayOutputStream();
+        var changed = sendRequest(sampleRequestWithIfNoneMatch(entityTag), CustomerList.class);
+        assertThat(changed.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_OK)));
+        assertThat(CustomerList.fromString(changed.getBody()).getCustomers(), hasSize(2));
+    }
+
+    @Test
+    void shouldReturnOnlyRequestedFieldsOfEachCustomer() throws IOException, ApiGatewayException {
+        var customer = insertRandomCustomer();
+
+        var response = sendRequest(sampleRequestWithQueryParameters(Map.of(FIELDS_QUERY_PARAMETER, "id,cristinId")),
+                                   CustomerList.class);
+
+        var customers = dtoObjectMapper.readTree(response.getBody()).get(CustomerList.CUSTOMERS);
+        assertThat(customers.size(), is(equalTo(1)));
+        assertThat(fieldNames(customers.get(0)), is(equalTo(List.of(ID_FIELD, CRISTIN_ID_FIELD))));
+        assertThat(customers.get(0).get(CRISTIN_ID_FIELD).asText(), is(equalTo(customer.getCristinId().toString())));
+    }
+
+    @Test
+    void shouldReturnBadRequestWhenUnknownFieldIsRequested() throws IOException {
+        var response = sendRequest(sampleRequestWithQueryParameters(Map.of(FIELDS_QUERY_PARAMETER, randomString())),
+                                   Problem.class);
+
+        assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_BAD_REQUEST)));
+    }
+
+    @Test
+    void shouldListEveryCustomerOnceWhenFollowingNextResultsLinks() throws IOException, ApiGatewayException {
+        var expectedIds = new ArrayList<URI>();
+        for (int i = 0; i < 5; i++) {
+            expectedIds.add(insertRandomCustomer().getId());
+        }
+
+        var listedIds = new ArrayList<URI>();
+        var queryParameters = Map.of(PAGE_SIZE_QUERY_PARAMETER, "2");
+        var pages = 0;
+        while (nonNull(queryParameters)) {
+            outputStream = new ByteArrayOutputStream();
+            var page = CustomerList.fromString(sendRequest(sampleRequestWithQueryParameters(queryParameters),
+                                                           CustomerList.class).getBody());
+            page.getCustomers().forEach(customer -> listedIds.add(customer.getId()));
+            queryParameters = nonNull(page.getNextResults()) ? queryParametersOf(page.getNextResults()) : null;
+            pages++;
+        }
+
+        assertThat(pages, is(equalTo(3)));
+        assertThat(listedIds, containsInAnyOrder(expectedIds.toArray()));
+    }
+
+    private static List<String> fieldNames(JsonNode jsonNode) {
+        var fieldNames = new ArrayList<String>();
+        jsonNode.fieldNames().forEachRemaining(fieldNames::add);
+        return fieldNames;
+    }
+
+    private static Map<String, String> queryParametersOf(URI uri) {
+        return Arrays.stream(uri.getQuery().split("&"))
+                   .map(parameter -> parameter.split("=", 2))
+                   .collect(Collectors.toMap(parameter -> parameter[0], parameter -> parameter[1]));
+    }
+
+    private InputStream sampleRequestWithQueryParameters(Map<String, String> queryParameters)
+        throws JsonProcessingException {
+        return new HandlerRequestBuilder<CustomerDto>(dtoObjectMapper)
+            .withAccessRights(randomUri(), AccessRight.MANAGE_CUSTOMERS)
+            .withHeaders(getRequestHeaders())
+            .withQueryParameters(queryParameters)
+            .build();
+    }
+
     private <T> GatewayResponse<T> sendRequest(InputStream input, Class<T> responseType) throws java.io.IOException {
         handler.handleRequest(input, outputStream, context);
         return GatewayResponse.fromOutputStream(outputStream, responseType);
@@ -88,6 +186,15 @@ class ListAllCustomersHandlerTest extends LocalCustomerServiceDatabase {
             .build();
     }
 
+    private InputStream sampleRequestWithIfNoneMatch(String entityTag) throws JsonProcessingException {
+        var headers = new HashMap<>(getRequestHeaders());
+        headers.put(CacheValidation.IF_NONE_MATCH_HEADER, entityTag);
+        return new HandlerRequestBuilder<CustomerDto>(dtoObjectMapper)
+            .withAccessRights(randomUri(), AccessRight.MANAGE_CUSTOMERS)
+            .withHeaders(headers)
+            .build();
+    }
+
     private CustomerDto insertRandomCustomer() throws ApiGatewayException {
         var customer = CustomerDto.builder()
             .withDisplayName(randomString())
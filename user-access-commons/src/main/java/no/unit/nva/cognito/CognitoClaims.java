@@ -27,10 +27,11 @@ public final class CognitoClaims {
     public static final String VIEWING_SCOPE_INCLUDED_CLAIM = "custom:viewingScopeIncluded";
     public static final String VIEWING_SCOPE_EXCLUDED_CLAIM = "custom:viewingScopeExcluded";
     public static final String NAME_CLAIM = "name";
+    public static final String CLAIMS_EXPIRE_AT = "custom:claimsExpireAt";
 
     static final String[] CLAIMS_TO_BE_SUPPRESSED_FROM_PUBLIC = {
         NIN_FOR_NON_FEIDE_USERS,
-        NIN_FOR_FEIDE_USERS, IMPERSONATING_CLAIM};
+        NIN_FOR_FEIDE_USERS, IMPERSONATING_CLAIM, CLAIMS_EXPIRE_AT};
 
     static final String[] CLAIMS_TO_BE_INCLUDED_IN_ACCESS_TOKEN = {
         CURRENT_CUSTOMER_CLAIM,
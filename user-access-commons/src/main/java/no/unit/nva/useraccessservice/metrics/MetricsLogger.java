@@ -0,0 +1,125 @@
+package no.unit.nva.useraccessservice.metrics;
+
+import static nva.commons.core.attempt.Try.attempt;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import no.unit.nva.identityservice.json.JsonConfig;
+
+/**
+ * Collects metrics for one invocation and writes them as a single CloudWatch Embedded Metric Format (EMF) log line.
+ * CloudWatch extracts the metrics from the Lambda log, so no calls to the CloudWatch API are made. A metric with
+ * several values is written as an array, which CloudWatch records as one data point per value.
+ *
+ * <p>CloudWatch only extracts metrics from log events that are a JSON object and nothing else, so the default logger
+ * writes the line straight to standard output rather than through a logging framework that may prefix or drop it.
+ */
+public class MetricsLogger {
+
+    public static final String DEFAULT_NAMESPACE = "NVA/IdentityService";
+    public static final String COUNT = "Count";
+    public static final String MILLISECONDS = "Milliseconds";
+    private static final String AWS_METADATA = "_aws";
+    private static final String TIMESTAMP = "Timestamp";
+    private static final String CLOUD_WATCH_METRICS = "CloudWatchMetrics";
+    private static final String NAMESPACE = "Namespace";
+    private static final String DIMENSIONS = "Dimensions";
+    private static final String METRICS = "Metrics";
+    private static final String NAME = "Name";
+    private static final String UNIT = "Unit";
+
+    private final String namespace;
+    private final Consumer<String> sink;
+    private final Clock clock;
+    private final Map<String, String> dimensions = new LinkedHashMap<>();
+    private final Map<String, Metric> metrics = new LinkedHashMap<>();
+
+    public MetricsLogger(String namespace, Consumer<String> sink, Clock clock) {
+        this.namespace = namespace;
+        this.sink = sink;
+        this.clock = clock;
+    }
+
+    public static MetricsLogger defaultMetricsLogger() {
+        return new MetricsLogger(DEFAULT_NAMESPACE, MetricsLogger::writeToStandardOutput, Clock.systemUTC());
+    }
+
+    public MetricsLogger withDimension(String name, String value) {
+        dimensions.put(name, value);
+        return this;
+    }
+
+    public MetricsLogger putCount(String name, long value) {
+        return putMetric(name, value, COUNT);
+    }
+
+    public MetricsLogger putMilliseconds(String name, long value) {
+        return putMetric(name, value, MILLISECONDS);
+    }
+
+    public MetricsLogger putMilliseconds(String name, List<Long> values) {
+        return putMetric(name, values, MILLISECONDS);
+    }
+
+    public MetricsLogger putMetric(String name, long value, String unit) {
+        return putMetric(name, List.of(value), unit);
+    }
+
+    public MetricsLogger putMetric(String name, List<Long> values, String unit) {
+        metrics.put(name, new Metric(List.copyOf(values), unit));
+        return this;
+    }
+
+    /**
+     * Writes the collected metrics, if any, and clears them. Dimensions are kept for the next flush.
+     */
+    public void flush() {
+        if (metrics.isEmpty()) {
+            return;
+        }
+        sink.accept(attempt(() -> JsonConfig.writeValueAsString(toEmbeddedMetricFormat())).orElseThrow());
+        metrics.clear();
+    }
+
+    @SuppressWarnings("PMD.SystemPrintln")
+    private static void writeToStandardOutput(String line) {
+        System.out.println(line);
+    }
+
+    private Map<String, Object> toEmbeddedMetricFormat() {
+        var metricDefinitions = new ArrayList<Map<String, String>>();
+        metrics.forEach((name, metric) -> metricDefinitions.add(metricDefinition(name, metric)));
+
+        var directive = new LinkedHashMap<String, Object>();
+        directive.put(NAMESPACE, namespace);
+        directive.put(DIMENSIONS, List.of(List.copyOf(dimensions.keySet())));
+        directive.put(METRICS, metricDefinitions);
+
+        var metadata = new LinkedHashMap<String, Object>();
+        metadata.put(TIMESTAMP, clock.millis());
+        metadata.put(CLOUD_WATCH_METRICS, List.of(directive));
+
+        var document = new LinkedHashMap<String, Object>();
+        document.put(AWS_METADATA, metadata);
+        document.putAll(dimensions);
+        metrics.forEach((name, metric) -> document.put(name, metric.jsonValue()));
+        return document;
+    }
+
+    private static Map<String, String> metricDefinition(String name, Metric metric) {
+        var definition = new LinkedHashMap<String, String>();
+        definition.put(NAME, name);
+        definition.put(UNIT, metric.unit());
+        return definition;
+    }
+
+    private record Metric(List<Long> values, String unit) {
+
+        private Object jsonValue() {
+            return values.size() == 1 ? values.getFirst() : values;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package no.unit.nva.useraccessservice.metrics;
+
+/**
+ * Stages of a request that are timed by {@link StageTimer}. The metric name is the stage name followed by
+ * {@value StageTimer#LATENCY_SUFFIX}.
+ */
+public enum Stage {
+    CLAIMS_VERIFICATION("ClaimsVerification"),
+    PERSON_FETCH("PersonFetch"),
+    CUSTOMER_RESOLUTION("CustomerResolution"),
+    USER_CREATION("UserCreation"),
+    TERMS_LOOKUP("TermsLookup"),
+    CLAIM_BUILD("ClaimBuild"),
+    COGNITO_WRITE("CognitoWrite");
+
+    private final String name;
+
+    Stage(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,104 @@
+package no.unit.nva.useraccessservice.metrics;
+
+import java.time.Clock;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+/**
+ * Measures how long each {@link Stage} of a request takes and writes the durations through a {@link MetricsLogger}.
+ * A stage that is timed more than once, possibly concurrently, is reported with one value per timing, since a sum
+ * of overlapping durations says nothing about the latency of the request. Create one timer per request and
+ * call {@link #finish()} when the request is done, also when it fails. Stages may be timed from several threads.
+ */
+public class StageTimer {
+
+    public static final String LATENCY_SUFFIX = "Latency";
+    public static final String TOTAL_LATENCY = "Total" + LATENCY_SUFFIX;
+
+    private final MetricsLogger metricsLogger;
+    private final Clock clock;
+    private final long start;
+    private final Map<Stage, List<Long>> durations = new ConcurrentHashMap<>();
+
+    public StageTimer(MetricsLogger metricsLogger, Clock clock) {
+        this.metricsLogger = metricsLogger;
+        this.clock = clock;
+        this.start = clock.millis();
+    }
+
+    public static StageTimer defaultStageTimer() {
+        return new StageTimer(MetricsLogger.defaultMetricsLogger(), Clock.systemUTC());
+    }
+
+    public StageTimer withDimension(String name, String value) {
+        metricsLogger.withDimension(name, value);
+        return this;
+    }
+
+    /**
+     * Gives access to the underlying logger, so that other metrics for the request end up in the same log line.
+     */
+    public MetricsLogger metrics() {
+        return metricsLogger;
+    }
+
+    public <T> T time(Stage stage, Supplier<T> action) {
+        var timing = start(stage);
+        try {
+            return action.get();
+        } finally {
+            timing.stop();
+        }
+    }
+
+    public void time(Stage stage, Runnable action) {
+        time(stage, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Starts timing a stage that does not fit in a single lambda. The stage is recorded when {@link Timing#stop()} is
+     * called.
+     */
+    public Timing start(Stage stage) {
+        return new Timing(stage, clock.millis());
+    }
+
+    /**
+     * Returns the durations recorded for the stage so far, in the order the timings were stopped.
+     */
+    public List<Long> elapsedMilliseconds(Stage stage) {
+        return List.copyOf(durations.getOrDefault(stage, List.of()));
+    }
+
+    /**
+     * Writes the duration of every timed stage and of the whole request.
+     */
+    public void finish() {
+        durations.forEach((stage, timings) -> metricsLogger.putMilliseconds(stage.getName() + LATENCY_SUFFIX,
+                                                                            timings));
+        metricsLogger.putMilliseconds(TOTAL_LATENCY, clock.millis() - start);
+        metricsLogger.flush();
+        durations.clear();
+    }
+
+    public final class Timing {
+
+        private final Stage stage;
+        private final long startedAt;
+
+        private Timing(Stage stage, long startedAt) {
+            this.stage = stage;
+            this.startedAt = startedAt;
+        }
+
+        public void stop() {
+            durations.computeIfAbsent(stage, ignored -> new CopyOnWriteArrayList<>()).add(clock.millis() - startedAt);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package no.unit.nva.useraccessservice.metrics;
+
+import no.unit.nva.identityservice.json.JsonConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.StringContains.containsString;
+
+class MetricsLoggerTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+    private static final String NAMESPACE = "Test/Namespace";
+
+    private List<String> lines;
+    private MetricsLogger metricsLogger;
+
+    @BeforeEach
+    void setUp() {
+        lines = new ArrayList<>();
+        metricsLogger = new MetricsLogger(NAMESPACE, lines::add, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void shouldWriteMetricsInEmbeddedMetricFormat() {
+        metricsLogger.withDimension("TriggerSource", "TokenGeneration_Authentication")
+            .putCount("Writes", 1)
+            .putMilliseconds("Duration", 42)
+            .flush();
+
+        var expected = "{\"_aws\":{\"Timestamp\":" + NOW.toEpochMilli()
+                       + ",\"CloudWatchMetrics\":[{\"Namespace\":\"Test/Namespace\""
+                       + ",\"Dimensions\":[[\"TriggerSource\"]]"
+                       + ",\"Metrics\":[{\"Name\":\"Writes\",\"Unit\":\"Count\"},"
+                       + "{\"Name\":\"Duration\",\"Unit\":\"Milliseconds\"}]}]}"
+                       + ",\"TriggerSource\":\"TokenGeneration_Authentication\""
+                       + ",\"Writes\":1,\"Duration\":42}";
+        assertThat(lines, hasSize(1));
+        assertThat(lines.getFirst(), is(equalTo(expected)));
+    }
+
+    @Test
+    void shouldKeepDimensionsButClearMetricsAfterFlush() {
+        metricsLogger.withDimension("Dimension", "value").putCount("First", 1).flush();
+        metricsLogger.putCount("Second", 2).flush();
+
+        assertThat(lines, hasSize(2));
+        assertThat(lines.getLast(), containsString("\"Dimension\":\"value\""));
+        assertThat(lines.getLast(), not(containsString("First")));
+    }
+
+    @Test
+    void shouldNotWriteAnythingWhenNoMetricsHaveBeenAdded() {
+        metricsLogger.withDimension("Dimension", "value").flush();
+
+        assertThat(lines, is(empty()));
+    }
+
+    @Test
+    void shouldWriteMetricWithSeveralValuesAsArray() {
+        metricsLogger.putMilliseconds("Duration", List.of(3L, 5L)).flush();
+
+        assertThat(lines.getFirst(), containsString("\"Duration\":[3,5]"));
+    }
+
+    @Test
+    void shouldWriteEachFlushOfDefaultMetricsLoggerToStandardOutputAsOneJsonObject() throws IOException {
+        var standardOutput = System.out;
+        var captured = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(captured, true, StandardCharsets.UTF_8));
+        try {
+            MetricsLogger.defaultMetricsLogger().putCount("Metric", 1).flush();
+        } finally {
+            System.setOut(standardOutput);
+        }
+
+        var line = captured.toString(StandardCharsets.UTF_8).strip();
+        assertThat(line.lines().count(), is(equalTo(1L)));
+        assertThat(JsonConfig.mapFrom(line), hasKey("_aws"));
+    }
+
+    @Test
+    void shouldEscapeQuotesInDimensionValues() {
+        metricsLogger.withDimension("Dimension", "a\"b").putCount("Metric", 1).flush();
+
+        assertThat(lines.getFirst(), containsString("\"Dimension\":\"a\\\"b\""));
+    }
+}
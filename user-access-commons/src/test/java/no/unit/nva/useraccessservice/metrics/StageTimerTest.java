@@ -0,0 +1,117 @@
+package no.unit.nva.useraccessservice.metrics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static no.unit.nva.useraccessservice.metrics.Stage.COGNITO_WRITE;
+import static no.unit.nva.useraccessservice.metrics.Stage.PERSON_FETCH;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.StringContains.containsString;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StageTimerTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+
+    private AtomicReference<Instant> now;
+    private List<String> lines;
+    private StageTimer stageTimer;
+
+    @BeforeEach
+    void setUp() {
+        now = new AtomicReference<>(NOW);
+        lines = new ArrayList<>();
+        var clock = new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return now.get();
+            }
+        };
+        stageTimer = new StageTimer(new MetricsLogger(MetricsLogger.DEFAULT_NAMESPACE, lines::add, clock), clock);
+    }
+
+    @Test
+    void shouldRecordDurationOfStage() {
+        var result = stageTimer.time(PERSON_FETCH, () -> advance(Duration.ofMillis(120)));
+
+        assertThat(result, is(equalTo("done")));
+        assertThat(stageTimer.elapsedMilliseconds(PERSON_FETCH), is(equalTo(List.of(120L))));
+    }
+
+    @Test
+    void shouldKeepEachDurationWhenStageIsTimedMoreThanOnce() {
+        stageTimer.time(PERSON_FETCH, () -> advance(Duration.ofMillis(10)));
+        var timing = stageTimer.start(PERSON_FETCH);
+        advance(Duration.ofMillis(15));
+        timing.stop();
+
+        assertThat(stageTimer.elapsedMilliseconds(PERSON_FETCH), is(equalTo(List.of(10L, 15L))));
+    }
+
+    @Test
+    void shouldWriteEachDurationAsSeparateValueWhenStageIsTimedMoreThanOnce() {
+        var first = stageTimer.start(PERSON_FETCH);
+        var second = stageTimer.start(PERSON_FETCH);
+        advance(Duration.ofMillis(10));
+        first.stop();
+        advance(Duration.ofMillis(5));
+        second.stop();
+
+        stageTimer.finish();
+
+        assertThat(lines.getFirst(), containsString("\"PersonFetchLatency\":[10,15]"));
+    }
+
+    @Test
+    void shouldRecordDurationWhenStageFails() {
+        assertThrows(IllegalStateException.class, () -> stageTimer.time(COGNITO_WRITE, () -> {
+            advance(Duration.ofMillis(30));
+            throw new IllegalStateException();
+        }));
+
+        assertThat(stageTimer.elapsedMilliseconds(COGNITO_WRITE), is(equalTo(List.of(30L))));
+    }
+
+    @Test
+    void shouldWriteStageAndTotalLatenciesInOneLineWhenFinished() {
+        stageTimer.withDimension("TriggerSource", "TokenGeneration_Authentication");
+        advance(Duration.ofMillis(5));
+        stageTimer.time(PERSON_FETCH, () -> advance(Duration.ofMillis(100)));
+        stageTimer.metrics().putCount("Other", 1);
+
+        stageTimer.finish();
+
+        assertThat(lines, hasSize(1));
+        assertThat(lines.getFirst(), containsString("\"PersonFetchLatency\":100"));
+        assertThat(lines.getFirst(), containsString("\"TotalLatency\":105"));
+        assertThat(lines.getFirst(), containsString("\"Other\":1"));
+        assertThat(lines.getFirst(), containsString("\"TriggerSource\":\"TokenGeneration_Authentication\""));
+    }
+
+    private String advance(Duration duration) {
+        now.set(now.get().plus(duration));
+        return "done";
+    }
+}
@@ -11,7 +11,6 @@ import no.unit.nva.useraccess.events.service.UserMigrationServiceImpl;
 import no.unit.nva.useraccessservice.internals.UserScanResult;
 import no.unit.nva.useraccessservice.model.UserDto;
 import nva.commons.core.JacocoGenerated;
-import nva.commons.core.attempt.Try;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
@@ -76,8 +75,6 @@ public class EventBasedScanHandler extends EventHandler<ScanDatabaseRequestV2, V
     private List<UserDto> persistMigratedUsersToDatabase(List<UserDto> migratedUsers) {
         var updatedUsers = migratedUsers.stream()
             .map(this::updateUser)
-            .map(attempt(identityService::getUser))
-            .map(Try::orElseThrow)
             .collect(Collectors.toList());
 
         updatedUsers.forEach(user -> logger.info("UpdatedUser:" + user.toString()));
@@ -88,11 +85,12 @@ public class EventBasedScanHandler extends EventHandler<ScanDatabaseRequestV2, V
     @SuppressWarnings("PMD.AvoidCatchingGenericException")
     private UserDto updateUser(UserDto user) {
         try {
-            identityService.updateUser(user);
+            var updatedUser = identityService.updateUser(user);
+            identityService.indexUser(updatedUser);
+            return updatedUser;
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
-        return user;
     }
 
     private void emitNexScanRequestIfThereAreMoreResults(UserScanResult scanResult,
@@ -101,6 +99,8 @@ public class EventBasedScanHandler extends EventHandler<ScanDatabaseRequestV2, V
         if (scanResult.thereAreMoreEntries()) {
             emitNextScanRequest(scanResult, inputRequest, context);
         } else {
+            // StartBatchScan always starts from the beginning, so every user has now been indexed.
+            identityService.completeIndexBackfill();
             logger.info(END_OF_SCAN_MESSAGE);
         }
     }
@@ -0,0 +1,75 @@
+package no.unit.nva.useraccess.events;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import no.unit.nva.database.IdentityService;
+import no.unit.nva.database.RolePropagationRequest;
+import no.unit.nva.events.handlers.EventHandler;
+import no.unit.nva.events.models.AwsEventBridgeEvent;
+import nva.commons.core.JacocoGenerated;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.eventbridge.EventBridgeClient;
+import software.amazon.awssdk.services.eventbridge.model.PutEventsRequest;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static no.unit.nva.useraccess.events.EventsConfig.EVENTS_CLIENT;
+import static no.unit.nva.useraccess.events.EventsConfig.EVENT_BUS;
+import static nva.commons.core.attempt.Try.attempt;
+
+/**
+ * Copies the current version of a role to every user with the role. The job stops shortly before the Lambda timeout
+ * and then emits the request again, so that the next invocation resumes where this one stopped.
+ */
+public class RolePropagationHandler extends EventHandler<RolePropagationRequest, Void> {
+
+    public static final String PROPAGATION_INCOMPLETE_MESSAGE =
+        "Role {} was not propagated to all users before the timeout. Continuing in a new invocation.";
+    public static final String PROPAGATION_COMPLETE_MESSAGE = "Role {} has been propagated to all users";
+    private static final Duration TIMEOUT_MARGIN = Duration.ofSeconds(10);
+    private static final Logger logger = LoggerFactory.getLogger(RolePropagationHandler.class);
+    private final IdentityService identityService;
+    private final EventBridgeClient eventsClient;
+
+    @JacocoGenerated
+    public RolePropagationHandler() {
+        this(IdentityService.defaultIdentityService(), EVENTS_CLIENT);
+    }
+
+    public RolePropagationHandler(IdentityService identityService, EventBridgeClient eventsClient) {
+        super(RolePropagationRequest.class);
+        this.identityService = identityService;
+        this.eventsClient = eventsClient;
+    }
+
+    @Override
+    protected Void processInput(RolePropagationRequest request,
+                                AwsEventBridgeEvent<RolePropagationRequest> event,
+                                Context context) {
+        var deadline = deadline(context);
+        var completed = attempt(() -> identityService.propagateRole(request.getRoleName(),
+                                                                    () -> Instant.now().isBefore(deadline)))
+                            .orElseThrow();
+        if (completed) {
+            logger.info(PROPAGATION_COMPLETE_MESSAGE, request.getRoleName());
+        } else {
+            logger.info(PROPAGATION_INCOMPLETE_MESSAGE, request.getRoleName());
+            emitRequestAgain(request, context);
+        }
+        return null;
+    }
+
+    private void emitRequestAgain(RolePropagationRequest request, Context context) {
+        var entry = request.createNewEventEntry(EVENT_BUS, context.getInvokedFunctionArn());
+        eventsClient.putEvents(PutEventsRequest.builder().entries(entry).build());
+    }
+
+    // Contexts that do not know the remaining time report zero, and then the job runs until it is done.
+    private static Instant deadline(Context context) {
+        var remainingTime = Duration.ofMillis(context.getRemainingTimeInMillis());
+        return remainingTime.isPositive()
+                   ? Instant.now().plus(remainingTime).minus(TIMEOUT_MARGIN)
+                   : Instant.MAX;
+    }
+}
@@ -0,0 +1,106 @@
+package no.unit.nva.useraccess.events;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import no.unit.nva.database.IdentityServiceImpl;
+import no.unit.nva.database.LocalIdentityService;
+import no.unit.nva.database.RolePropagationRequest;
+import no.unit.nva.stubs.FakeContext;
+import no.unit.nva.stubs.FakeEventBridgeClient;
+import no.unit.nva.testutils.EventBridgeEventBuilder;
+import no.unit.nva.useraccessservice.model.RoleDto;
+import no.unit.nva.useraccessservice.model.RoleName;
+import no.unit.nva.useraccessservice.model.UserDto;
+import nva.commons.core.SingletonCollector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Set;
+
+import static no.unit.nva.commons.json.JsonUtils.dtoObjectMapper;
+import static no.unit.nva.testutils.RandomDataGenerator.randomString;
+import static no.unit.nva.testutils.RandomDataGenerator.randomUri;
+import static nva.commons.apigateway.AccessRight.MANAGE_DOI;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+
+class RolePropagationHandlerTest extends LocalIdentityService {
+
+    private static final Context CONTEXT = new FakeContext();
+    private static final Context CONTEXT_WITHOUT_TIME_LEFT = new FakeContext() {
+        @Override
+        public int getRemainingTimeInMillis() {
+            return 1;
+        }
+    };
+
+    private IdentityServiceImpl identityService;
+    private FakeEventBridgeClient eventClient;
+    private RolePropagationHandler handler;
+
+    @BeforeEach
+    public void init() {
+        super.initializeTestDatabase();
+        this.identityService = new IdentityServiceImpl(localDynamo);
+        this.eventClient = new FakeEventBridgeClient();
+        this.handler = new RolePropagationHandler(identityService, eventClient);
+    }
+
+    @Test
+    void shouldCopyChangedRoleToUsersWithRoleAndNotEmitEventWhenDone() throws Exception {
+        var user = addUserWithOutdatedRole();
+        var changedRole = changeRole();
+
+        handler.handleRequest(sampleEvent(), new ByteArrayOutputStream(), CONTEXT);
+
+        assertThat(identityService.getUser(user).getRoles(), contains(changedRole));
+        assertThat(eventClient.getRequestEntries(), is(empty()));
+    }
+
+    @Test
+    void shouldEmitRequestAgainWhenTimeRunsOutBeforeEveryUserIsUpdated() throws Exception {
+        var user = addUserWithOutdatedRole();
+        var changedRole = changeRole();
+
+        handler.handleRequest(sampleEvent(), new ByteArrayOutputStream(), CONTEXT_WITHOUT_TIME_LEFT);
+        var emittedEntry = eventClient.getRequestEntries().stream().collect(SingletonCollector.collect());
+        var emittedRequest = dtoObjectMapper.readValue(emittedEntry.detail(), RolePropagationRequest.class);
+        eventClient.getRequestEntries().clear();
+        handler.handleRequest(EventBridgeEventBuilder.sampleEvent(emittedRequest), new ByteArrayOutputStream(),
+                              CONTEXT);
+
+        assertThat(emittedRequest.getRoleName(), is(equalTo(RoleName.DOI_CURATOR)));
+        assertThat(identityService.getUser(user).getRoles(), contains(changedRole));
+        assertThat(eventClient.getRequestEntries(), is(empty()));
+    }
+
+    private UserDto addUserWithOutdatedRole() throws Exception {
+        var outdatedRole = RoleDto.newBuilder().withRoleName(RoleName.DOI_CURATOR).withAccessRights(Set.of()).build();
+        identityService.addRole(outdatedRole);
+        var user = UserDto.newBuilder()
+                       .withUsername(randomString())
+                       .withInstitution(randomUri())
+                       .withRoles(List.of(outdatedRole))
+                       .build();
+        identityService.addUser(user);
+        return user;
+    }
+
+    private RoleDto changeRole() throws Exception {
+        var changedRole = RoleDto.newBuilder()
+                              .withRoleName(RoleName.DOI_CURATOR)
+                              .withAccessRights(Set.of(MANAGE_DOI))
+                              .build();
+        identityService.updateRole(changedRole);
+        return identityService.getRole(changedRole);
+    }
+
+    private static InputStream sampleEvent() {
+        return EventBridgeEventBuilder.sampleEvent(RolePropagationRequest.forRole(RoleName.DOI_CURATOR));
+    }
+}
@@ -23,7 +23,6 @@ import nva.commons.core.Environment;
 import nva.commons.core.JacocoGenerated;
 import nva.commons.core.SingletonCollector;
 import nva.commons.core.attempt.Failure;
-import nva.commons.core.attempt.Try;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -144,11 +143,10 @@ public class CreateUserHandler extends HandlerWithEventualConsistency<CreateUser
     }
 
     private Set<CustomerDto> fetchCustomersWithActiveAffiliations(List<Affiliation> affiliations) {
-        return affiliations.stream()
+        var institutionIds = affiliations.stream()
                 .map(Affiliation::getInstitutionId)
-                .map(attempt(customerService::getCustomerByCristinId))
-                .flatMap(Try::stream)
-                .collect(Collectors.toSet());
+                .toList();
+        return new HashSet<>(customerService.getCustomersByCristinIds(institutionIds).values());
     }
 
     private void explainWhyUserCannotBeCreated(Person person,
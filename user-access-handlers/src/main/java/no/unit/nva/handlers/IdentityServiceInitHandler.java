@@ -5,6 +5,7 @@ import no.unit.nva.customer.model.ApplicationDomain;
 import no.unit.nva.customer.model.CustomerDto;
 import no.unit.nva.customer.service.CustomerService;
 import no.unit.nva.database.IdentityService;
+import no.unit.nva.database.RolePropagationEvents;
 import no.unit.nva.handlers.data.DefaultRoleSource;
 import no.unit.nva.handlers.models.RoleList;
 import no.unit.nva.useraccessservice.exceptions.InvalidInputException;
@@ -19,6 +20,7 @@ import nva.commons.core.Environment;
 import nva.commons.core.JacocoGenerated;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.eventbridge.EventBridgeClient;
 
 import java.net.HttpURLConnection;
 import java.net.URI;
@@ -39,19 +41,22 @@ public class IdentityServiceInitHandler extends ApiGatewayHandler<Void, RoleList
     private final IdentityService identityService;
     private final CustomerService customerService;
     private final RoleSource roleSource;
+    private final RolePropagationEvents rolePropagationEvents;
 
     @JacocoGenerated
     public IdentityServiceInitHandler() {
         this(IdentityService.defaultIdentityService(), defaultCustomerService(), new DefaultRoleSource(),
-             new Environment());
+             RolePropagationEvents.defaultEventBridgeClient(), new Environment());
     }
 
     public IdentityServiceInitHandler(IdentityService identityService, CustomerService customerService,
-                                      RoleSource roleSource, Environment environment) {
+                                      RoleSource roleSource, EventBridgeClient eventsClient,
+                                      Environment environment) {
         super(Void.class, environment);
         this.identityService = identityService;
         this.customerService = customerService;
         this.roleSource = roleSource;
+        this.rolePropagationEvents = new RolePropagationEvents(eventsClient, environment);
     }
 
     @Override
@@ -63,7 +68,7 @@ public class IdentityServiceInitHandler extends ApiGatewayHandler<Void, RoleList
     protected RoleList processInput(Void input, RequestInfo requestInfo, Context context) {
         var defaultRoles = roleSource.roles()
                                .stream()
-                               .map(attempt(this::addOrUpdateRole))
+                               .map(attempt(role -> addOrUpdateRole(role, context)))
                                .map(attempt -> attempt.toOptional(fail -> logError(fail.getException())))
                                .flatMap(Optional::stream)
                                .collect(Collectors.toSet());
@@ -128,13 +133,18 @@ public class IdentityServiceInitHandler extends ApiGatewayHandler<Void, RoleList
         logger.warn(exception.getMessage());
     }
 
-    private RoleDto addOrUpdateRole(RoleDto role) throws InvalidInputException, NotFoundException {
+    // Users embed a copy of their roles, so a role whose access rights changed is propagated to its users.
+    private RoleDto addOrUpdateRole(RoleDto role, Context context) throws InvalidInputException, NotFoundException {
         try {
             identityService.addRole(role);
             logger.info("Added role: {}", role);
         } catch (ConflictException e) {
+            var storedRole = identityService.getRole(role);
             identityService.updateRole(role);
             logger.info("Updated role: {}", role);
+            if (!storedRole.getAccessRights().equals(role.getAccessRights())) {
+                rolePropagationEvents.startPropagation(role.getRoleName(), context.getInvokedFunctionArn());
+            }
         }
         return role;
     }
@@ -2,38 +2,41 @@ package no.unit.nva.handlers;
 
 import com.amazonaws.services.lambda.runtime.Context;
 import no.unit.nva.database.IdentityService;
+import no.unit.nva.database.RolePropagationEvents;
 import no.unit.nva.handlers.data.DefaultRoleSource;
 import no.unit.nva.useraccessservice.exceptions.InvalidInputException;
-import no.unit.nva.useraccessservice.model.RoleDto;
 import no.unit.nva.useraccessservice.model.RoleName;
-import no.unit.nva.useraccessservice.model.UserDto;
 import nva.commons.apigateway.ApiGatewayHandler;
 import nva.commons.apigateway.RequestInfo;
 import nva.commons.apigateway.exceptions.ApiGatewayException;
 import nva.commons.apigateway.exceptions.NotFoundException;
 import nva.commons.core.Environment;
 import nva.commons.core.JacocoGenerated;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.eventbridge.EventBridgeClient;
 
 import java.net.HttpURLConnection;
 
-import static nva.commons.core.attempt.Try.attempt;
-
+/**
+ * Updates the publishing curator role and starts copying it to every user with the role. Copying can take longer
+ * than an API request may last, so it is done by the role propagation event handler, which this handler only starts
+ * by emitting an event to the internal event bus.
+ */
 public class IdentityServiceMigrateCuratorHandler extends ApiGatewayHandler<Void, Void> {
 
-    private static final Logger logger = LoggerFactory.getLogger(IdentityServiceMigrateCuratorHandler.class);
-
     private final IdentityService identityService;
+    private final RolePropagationEvents rolePropagationEvents;
 
     @JacocoGenerated
     public IdentityServiceMigrateCuratorHandler() {
-        this(IdentityService.defaultIdentityService(), new Environment());
+        this(IdentityService.defaultIdentityService(), RolePropagationEvents.defaultEventBridgeClient(),
+             new Environment());
     }
 
-    public IdentityServiceMigrateCuratorHandler(IdentityService identityService, Environment environment) {
+    public IdentityServiceMigrateCuratorHandler(IdentityService identityService, EventBridgeClient eventsClient,
+                                                Environment environment) {
         super(Void.class, environment);
         this.identityService = identityService;
+        this.rolePropagationEvents = new RolePropagationEvents(eventsClient, environment);
     }
 
     @Override
@@ -45,37 +48,12 @@ public class IdentityServiceMigrateCuratorHandler extends ApiGatewayHandler<Void
     protected Void processInput(Void input, RequestInfo requestInfo, Context context)
         throws InvalidInputException, NotFoundException {
         identityService.updateRole(DefaultRoleSource.PUBLISHING_CURATOR_ROLE);
-        identityService.listAllUsers().stream()
-            .filter(this::hasPublishingCuratorRole)
-            .forEach(this::updatePublishingCuratorAccessRights);
+        rolePropagationEvents.startPropagation(RoleName.PUBLISHING_CURATOR, context.getInvokedFunctionArn());
         return null;
     }
 
     @Override
     protected Integer getSuccessStatusCode(Void input, Void output) {
-        return HttpURLConnection.HTTP_OK;
-    }
-
-    private boolean hasPublishingCuratorRole(UserDto user) {
-        return user.getRoles().stream().map(RoleDto::getRoleName).anyMatch(RoleName.PUBLISHING_CURATOR::equals);
-    }
-
-    private void updatePublishingCuratorAccessRights(UserDto user) {
-        attempt(() -> updateRolesForUser(user)).orElseThrow();
-        logger.info("User roles has been updated: {}", user.getUsername());
-    }
-
-    private UserDto updateRolesForUser(UserDto user) throws NotFoundException {
-        var roles = user.getRoles();
-        var roleToUpdate = roles.stream().filter(this::isPublishingCurator).findFirst().orElseThrow();
-        roles.remove(roleToUpdate);
-        roles.add(DefaultRoleSource.PUBLISHING_CURATOR_ROLE);
-        var updatedUser = user.copy().withRoles(roles).build();
-        identityService.updateUser(updatedUser);
-        return user;
-    }
-
-    private boolean isPublishingCurator(RoleDto role) {
-        return role.getRoleName() == RoleName.PUBLISHING_CURATOR;
+        return HttpURLConnection.HTTP_ACCEPTED;
     }
 }
@@ -3,9 +3,7 @@ package no.unit.nva.handlers;
 import com.amazonaws.services.lambda.runtime.Context;
 import no.unit.nva.database.IdentityService;
 import no.unit.nva.database.IdentityServiceImpl;
-import no.unit.nva.useraccessservice.model.RoleDto;
 import no.unit.nva.useraccessservice.model.RoleName;
-import no.unit.nva.useraccessservice.model.UserDto;
 import no.unit.nva.useraccessservice.model.UserList;
 import nva.commons.apigateway.ApiGatewayHandler;
 import nva.commons.apigateway.RequestInfo;
@@ -16,11 +14,12 @@ import nva.commons.core.JacocoGenerated;
 
 import java.net.HttpURLConnection;
 import java.net.URI;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.HashSet;
-import java.util.Optional;
+import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
+
+import static nva.commons.core.attempt.Try.attempt;
 
 public class ListByInstitutionHandler extends ApiGatewayHandler<Void, UserList> {
 
@@ -29,6 +28,14 @@ public class ListByInstitutionHandler extends ApiGatewayHandler<Void, UserList>
         + "Probably error in the Lambda function definition.";
     public static final String QUERY_PARAM_ROLE = "role";
     public static final String QUERY_PARAM_NAME = "name";
+    public static final String QUERY_PARAM_PAGE_SIZE = "pageSize";
+    public static final String QUERY_PARAM_CURSOR = "cursor";
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final String INVALID_PAGE_SIZE_ERROR = "pageSize must be a number between 1 and " + MAX_PAGE_SIZE;
+    public static final String PAGING_WITH_ROLE_ERROR = "pageSize and cursor cannot be combined with role unless "
+                                                        + "name is given";
+    public static final String CURSOR_WITH_NAME_ERROR = "cursor cannot be combined with name";
     private final IdentityService databaseService;
 
     @SuppressWarnings("unused")
@@ -47,18 +54,63 @@ public class ListByInstitutionHandler extends ApiGatewayHandler<Void, UserList>
         //Do nothing
     }
 
+    /**
+     * Lists the users of an institution.
+     *
+     * <p>When a name is given, up to pageSize users whose given name, family name, full name or username starts with
+     * it are returned, ignoring case and diacritics. When roles are given as well, only users with any of the roles
+     * count towards pageSize. When only roles are given, all users with any of the roles are returned. Once the name
+     * and role indexes have been backfilled only the matching users are read; until then all users of the
+     * institution are read and filtered. A name search is not paged, so a cursor is
+     * rejected, and a role-only listing returns all matching users, so pageSize and cursor are both rejected.
+     *
+     * <p>Otherwise, when pageSize or cursor is given, one page of users is returned together with the cursor for the
+     * next page, and without either all users are returned. A paged user is the same as an unpaged one.
+     */
     @Override
-    protected UserList processInput(Void body, RequestInfo input, Context context) throws BadRequestException {
+    protected UserList processInput(Void body, RequestInfo input, Context context) throws ApiGatewayException {
         var institutionId = extractInstitutionIdFromRequest(input);
         var roles = new HashSet<>(input.getMultiValueQueryParameter(QUERY_PARAM_ROLE));
         var userName = input.getQueryParameterOpt(QUERY_PARAM_NAME);
-        var users =
-            databaseService
-                .listUsers(institutionId).stream()
-                .filter(user -> likeUserOrEmpty(user, userName))
-                .filter(user -> roles.isEmpty() || hasOneRole(user, roles))
-                .collect(Collectors.toList());
-        return UserList.fromList(users);
+        var cursor = input.getQueryParameterOpt(QUERY_PARAM_CURSOR);
+        var isPaged = cursor.isPresent() || input.getQueryParameterOpt(QUERY_PARAM_PAGE_SIZE).isPresent();
+        if (userName.isPresent()) {
+            if (cursor.isPresent()) {
+                throw new BadRequestException(CURSOR_WITH_NAME_ERROR);
+            }
+            var roleNames = toRoleNames(roles);
+            if (!roles.isEmpty() && roleNames.isEmpty()) {
+                return UserList.fromList(List.of());
+            }
+            return UserList.fromList(databaseService.searchUsers(institutionId, userName.get(), roleNames,
+                                                                 extractPageSize(input)));
+        }
+        if (!roles.isEmpty()) {
+            if (isPaged) {
+                throw new BadRequestException(PAGING_WITH_ROLE_ERROR);
+            }
+            return UserList.fromList(databaseService.listUsers(institutionId, toRoleNames(roles)));
+        }
+        if (isPaged) {
+            return databaseService.listUsers(institutionId, extractPageSize(input), cursor.orElse(null));
+        }
+        return UserList.fromList(databaseService.listUsers(institutionId));
+    }
+
+    private static List<RoleName> toRoleNames(Set<String> roles) {
+        return Arrays.stream(RoleName.values())
+                   .filter(roleName -> roles.contains(roleName.getValue()))
+                   .toList();
+    }
+
+    private static int extractPageSize(RequestInfo requestInfo) throws BadRequestException {
+        var pageSize = requestInfo.getQueryParameterOpt(QUERY_PARAM_PAGE_SIZE)
+                           .map(value -> attempt(() -> Integer.parseInt(value)).orElse(failure -> 0))
+                           .orElse(DEFAULT_PAGE_SIZE);
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new BadRequestException(INVALID_PAGE_SIZE_ERROR);
+        }
+        return pageSize;
     }
 
     @Override
@@ -71,16 +123,4 @@ public class ListByInstitutionHandler extends ApiGatewayHandler<Void, UserList>
             .map(URI::create)
             .orElseThrow(() -> new BadRequestException(MISSING_QUERY_PARAMETER_ERROR));
     }
-
-    private boolean likeUserOrEmpty(UserDto userDto, Optional<String> userName) {
-        return userName
-            .map(s -> userDto.getUsername().contains(s))
-            .orElse(true);
-    }
-
-    private boolean hasOneRole(UserDto userDto, Set<String> checkedRoles) {
-        var userRoles =
-            userDto.getRoles().stream().map(RoleDto::getRoleName).map(RoleName::getValue).collect(Collectors.toSet());
-        return !Collections.disjoint(userRoles, checkedRoles);
-    }
 }
@@ -8,8 +8,10 @@ import no.unit.nva.customer.testing.LocalCustomerServiceDatabase;
 import no.unit.nva.database.IdentityService;
 import no.unit.nva.database.IdentityServiceImpl;
 import no.unit.nva.database.LocalIdentityService;
+import no.unit.nva.database.RolePropagationRequest;
 import no.unit.nva.handlers.models.RoleList;
 import no.unit.nva.stubs.FakeContext;
+import no.unit.nva.stubs.FakeEventBridgeClient;
 import no.unit.nva.testutils.HandlerRequestBuilder;
 import no.unit.nva.useraccessservice.exceptions.InvalidInputException;
 import no.unit.nva.useraccessservice.model.ClientDto;
@@ -20,6 +22,7 @@ import nva.commons.apigateway.GatewayResponse;
 import nva.commons.apigateway.exceptions.ConflictException;
 import nva.commons.apigateway.exceptions.NotFoundException;
 import nva.commons.core.Environment;
+import nva.commons.core.SingletonCollector;
 import nva.commons.logutils.LogRecorder;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.AfterEach;
@@ -41,6 +44,7 @@ import static no.unit.nva.useraccessservice.model.RoleDto.MISSING_ROLE_NAME_ERRO
 import static nva.commons.apigateway.AccessRight.MANAGE_DOI;
 import static nva.commons.apigateway.AccessRight.MANAGE_PUBLISHING_REQUESTS;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
 import static org.hamcrest.collection.IsIterableContainingInAnyOrder.containsInAnyOrder;
 import static org.hamcrest.core.Is.is;
@@ -68,11 +72,13 @@ class IdentityServiceInitHandlerTest {
     private LocalCustomerServiceDatabase customerServiceLocalDb;
     private LocalIdentityService identityServiceLocalDb;
     private CustomerService customerService;
+    private FakeEventBridgeClient eventsClient;
 
     @BeforeEach
     public void init() {
         setupCustomerService();
         initializeIdentityService();
+        this.eventsClient = new FakeEventBridgeClient();
         this.context = new FakeContext();
 
         this.output = new ByteArrayOutputStream();
@@ -100,7 +106,8 @@ class IdentityServiceInitHandlerTest {
     @Test
     void shouldCreateTheDefaultRolesForTheService() throws IOException {
 
-        var handler = new IdentityServiceInitHandler(identityService, customerService, ROLE_SOURCE, new Environment());
+        var handler = new IdentityServiceInitHandler(identityService, customerService, ROLE_SOURCE, eventsClient,
+                                                     new Environment());
         handler.handleRequest(createRequest(), output, context);
         var response = GatewayResponse.fromOutputStream(output, RoleList.class);
         var allRoles = response.getBodyObject(RoleList.class);
@@ -130,7 +137,8 @@ class IdentityServiceInitHandlerTest {
         var role = invalidRole();
         RoleSource roleSourceContainingIllegalRoleName = () -> List.of(role);
         var handler = new IdentityServiceInitHandler(identityService, customerService,
-                                                     roleSourceContainingIllegalRoleName, new Environment());
+                                                     roleSourceContainingIllegalRoleName, eventsClient,
+                                                     new Environment());
         handler.handleRequest(createRequest(), output, context);
         Assertions.assertThat(logRecorder.messages())
             .anyMatch(message -> message.contains(MISSING_ROLE_NAME_ERROR));
@@ -152,16 +160,50 @@ class IdentityServiceInitHandlerTest {
             .build();
         identityService.addRole(role);
 
-        var handler = new IdentityServiceInitHandler(identityService, customerService, ROLE_SOURCE, new Environment());
+        var handler = new IdentityServiceInitHandler(identityService, customerService, ROLE_SOURCE, eventsClient,
+                                                     new Environment());
         handler.handleRequest(createRequest(), output, context);
 
         var updatedRole = identityService.getRole(role);
         assertThat(updatedRole.getAccessRights(), containsInAnyOrder(MANAGE_DOI, MANAGE_PUBLISHING_REQUESTS));
     }
 
+    @Test
+    void shouldEmitEventToPropagateRoleWhenAccessRightsOfExistingRoleChange()
+        throws InvalidInputException, ConflictException, IOException {
+        identityService.addRole(RoleDto.newBuilder()
+                                    .withRoleName(RoleName.DOI_CURATOR)
+                                    .withAccessRights(List.of(MANAGE_DOI))
+                                    .build());
+
+        var handler = new IdentityServiceInitHandler(identityService, customerService, ROLE_SOURCE, eventsClient,
+                                                     new Environment());
+        handler.handleRequest(createRequest(), output, context);
+
+        var emittedEvent = eventsClient.getRequestEntries().stream().collect(SingletonCollector.collect());
+        var request = JsonUtils.dtoObjectMapper.readValue(emittedEvent.detail(), RolePropagationRequest.class);
+        assertThat(request.getTopic(), is(equalTo(RolePropagationRequest.ROLE_PROPAGATION_EVENT_TOPIC)));
+        assertThat(request.getRoleName(), is(equalTo(RoleName.DOI_CURATOR)));
+    }
+
+    @Test
+    void shouldNotEmitEventToPropagateRoleWhenAccessRightsOfRolesAreUnchanged()
+        throws InvalidInputException, ConflictException, IOException {
+        for (var role : ROLE_SOURCE.roles()) {
+            identityService.addRole(role);
+        }
+
+        var handler = new IdentityServiceInitHandler(identityService, customerService, ROLE_SOURCE, eventsClient,
+                                                     new Environment());
+        handler.handleRequest(createRequest(), output, context);
+
+        assertThat(eventsClient.getRequestEntries(), is(empty()));
+    }
+
     @Test
     void shouldCreateSiktCustomer() throws NotFoundException, IOException {
-        var handler = new IdentityServiceInitHandler(identityService, customerService, ROLE_SOURCE, new Environment());
+        var handler = new IdentityServiceInitHandler(identityService, customerService, ROLE_SOURCE, eventsClient,
+                                                     new Environment());
         handler.handleRequest(createRequest(), output, context);
         var customer = customerService.getCustomerByCristinId(SIKT_CRISTIN_ID);
         assertThat(customer, is(not(nullValue())));
@@ -170,7 +212,8 @@ class IdentityServiceInitHandlerTest {
 
     @Test
     void shouldCreateSiktBackendClientDBRow() throws NotFoundException, IOException {
-        var handler = new IdentityServiceInitHandler(identityService, customerService, ROLE_SOURCE, new Environment());
+        var handler = new IdentityServiceInitHandler(identityService, customerService, ROLE_SOURCE, eventsClient,
+                                                     new Environment());
         handler.handleRequest(createRequest(), output, context);
         var client = identityService.getClient(ClientDto.newBuilder().withClientId(BACKEND_CLIENT_ID).build());
         assertThat(client, is(not(nullValue())));
@@ -179,7 +222,8 @@ class IdentityServiceInitHandlerTest {
 
     @Test
     void shouldNotCreateDuplicateSiktBackendClientDBRow() throws IOException {
-        var handler = new IdentityServiceInitHandler(identityService, customerService, ROLE_SOURCE, new Environment());
+        var handler = new IdentityServiceInitHandler(identityService, customerService, ROLE_SOURCE, eventsClient,
+                                                     new Environment());
         handler.handleRequest(createRequest(), output, context);
         handler.handleRequest(createRequest(), output, context);
         verify(identityService, atMostOnce()).addExternalClient(any());
@@ -5,16 +5,18 @@ import no.unit.nva.commons.json.JsonUtils;
 import no.unit.nva.database.IdentityService;
 import no.unit.nva.database.IdentityServiceImpl;
 import no.unit.nva.database.LocalIdentityService;
+import no.unit.nva.database.RolePropagationRequest;
 import no.unit.nva.handlers.data.DefaultRoleSource;
 import no.unit.nva.stubs.FakeContext;
+import no.unit.nva.stubs.FakeEventBridgeClient;
 import no.unit.nva.testutils.HandlerRequestBuilder;
 import no.unit.nva.useraccessservice.exceptions.InvalidInputException;
 import no.unit.nva.useraccessservice.model.RoleDto;
 import no.unit.nva.useraccessservice.model.RoleName;
-import no.unit.nva.useraccessservice.model.UserDto;
-import nva.commons.apigateway.exceptions.ConflictException;
+import nva.commons.apigateway.GatewayResponse;
 import nva.commons.apigateway.exceptions.NotFoundException;
 import nva.commons.core.Environment;
+import nva.commons.core.SingletonCollector;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -22,15 +24,12 @@ import org.junit.jupiter.api.Test;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.HttpURLConnection;
 import java.util.Collections;
-import java.util.Set;
 
-import static no.unit.nva.RandomUserDataGenerator.randomCristinOrgId;
-import static no.unit.nva.testutils.RandomDataGenerator.randomString;
-import static no.unit.nva.testutils.RandomDataGenerator.randomUri;
 import static org.hamcrest.MatcherAssert.assertThat;
-import static org.hamcrest.Matchers.hasItem;
-import static org.hamcrest.Matchers.not;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
 
 class IdentityServiceMigrateCuratorHandlerTest {
 
@@ -39,12 +38,13 @@ class IdentityServiceMigrateCuratorHandlerTest {
     private Context context;
     private LocalIdentityService identityServiceLocalDb;
     private IdentityServiceMigrateCuratorHandler handler;
+    private FakeEventBridgeClient eventsClient;
 
     @BeforeEach
     public void init() {
         initializeIdentityService();
-        handler = new IdentityServiceMigrateCuratorHandler(identityService, new Environment());
-        this.context = new FakeContext();
+        eventsClient = new FakeEventBridgeClient();
+        handler = new IdentityServiceMigrateCuratorHandler(identityService, eventsClient, new Environment());
 
         this.output = new ByteArrayOutputStream();
         this.context = new FakeContext();
@@ -62,57 +62,25 @@ class IdentityServiceMigrateCuratorHandlerTest {
     }
 
     @Test
-    void shouldAddManageResourceFilesRoleToPublishingCurator()
-        throws NotFoundException, ConflictException, IOException, InvalidInputException {
-        var roleToUpdate = RoleDto.newBuilder().withRoleName(RoleName.PUBLISHING_CURATOR)
-            .withAccessRights(Collections.emptySet()).build();
-        var roleToKeep = RoleDto.newBuilder().withRoleName(RoleName.SUPPORT_CURATOR)
+    void shouldUpdatePublishingCuratorRoleAndEmitEventToPropagateIt()
+        throws NotFoundException, IOException, InvalidInputException {
+        var outdatedRole = RoleDto.newBuilder().withRoleName(RoleName.PUBLISHING_CURATOR)
             .withAccessRights(Collections.emptySet()).build();
-        identityService.addRole(roleToUpdate);
-        identityService.addRole(roleToKeep);
-        var user = createUserWithRoles(Set.of(roleToUpdate, roleToKeep));
-        identityService.addUser(user);
+        identityService.addRole(outdatedRole);
 
         handler.handleRequest(createRequest(), output, context);
 
-        var fetchedUser = this.identityService.getUser(user);
+        var response = GatewayResponse.fromOutputStream(output, Void.class);
+        var emittedEvent = eventsClient.getRequestEntries().stream().collect(SingletonCollector.collect());
+        var request = JsonUtils.dtoObjectMapper.readValue(emittedEvent.detail(), RolePropagationRequest.class);
 
-        assertThat(fetchedUser.getRoles(), hasItem(DefaultRoleSource.PUBLISHING_CURATOR_ROLE));
-        assertThat(fetchedUser.getRoles(), hasItem(roleToKeep));
+        assertThat(response.getStatusCode(), is(equalTo(HttpURLConnection.HTTP_ACCEPTED)));
+        assertThat(identityService.getRole(outdatedRole), is(equalTo(DefaultRoleSource.PUBLISHING_CURATOR_ROLE)));
+        assertThat(request.getTopic(), is(equalTo(RolePropagationRequest.ROLE_PROPAGATION_EVENT_TOPIC)));
+        assertThat(request.getRoleName(), is(equalTo(RoleName.PUBLISHING_CURATOR)));
     }
 
     private InputStream createRequest() throws com.fasterxml.jackson.core.JsonProcessingException {
         return new HandlerRequestBuilder<Void>(JsonUtils.dtoObjectMapper).build();
     }
-
-    private UserDto createUserWithRoles(Set<RoleDto> roles) {
-        return UserDto.newBuilder()
-            .withRoles(roles)
-            .withInstitution(randomUri())
-            .withUsername(randomString())
-            .withCristinId(randomUri())
-            .withFeideIdentifier(randomString())
-            .withInstitutionCristinId(randomCristinOrgId())
-            .withAffiliation(randomCristinOrgId())
-            .build();
-    }
-
-    @Test
-    void shouldNotAddManageResourceFilesRoleToNonPublishingCurator()
-        throws NotFoundException, ConflictException, IOException, InvalidInputException {
-        var roleToKeep = RoleDto.newBuilder().withRoleName(RoleName.SUPPORT_CURATOR)
-            .withAccessRights(Collections.emptySet()).build();
-        identityService.addRole(roleToKeep);
-        var user = createUserWithRoles(Set.of(roleToKeep));
-        identityService.addUser(user);
-
-        handler.handleRequest(createRequest(), output, context);
-
-        var fetchedUser = this.identityService.getUser(user);
-
-        assertThat(fetchedUser.getRoles(), not(hasItem(DefaultRoleSource.PUBLISHING_CURATOR_ROLE)));
-        assertThat(fetchedUser.getRoles(), hasItem(roleToKeep));
-    }
-
-
-}
\ No newline at end of file
+}
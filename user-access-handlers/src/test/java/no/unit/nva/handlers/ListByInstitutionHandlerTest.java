@@ -11,6 +11,7 @@ import no.unit.nva.useraccessservice.model.UserDto;
 import no.unit.nva.useraccessservice.model.UserList;
 import nva.commons.apigateway.GatewayResponse;
 import nva.commons.apigateway.exceptions.ConflictException;
+import nva.commons.apigateway.exceptions.NotFoundException;
 import nva.commons.core.Environment;
 import org.apache.hc.core5.http.HttpStatus;
 import org.junit.jupiter.api.BeforeEach;
@@ -24,21 +25,29 @@ import java.net.HttpURLConnection;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.stream.Collectors;
 
 import static no.unit.nva.RandomUserDataGenerator.randomCristinOrgId;
 import static no.unit.nva.RandomUserDataGenerator.randomRoleName;
 import static no.unit.nva.RandomUserDataGenerator.randomRoleNameButNot;
+import static no.unit.nva.RandomUserDataGenerator.randomViewingScope;
 import static no.unit.nva.commons.json.JsonUtils.dtoObjectMapper;
 import static no.unit.nva.handlers.ListByInstitutionHandler.INSTITUTION_ID_QUERY_PARAMETER;
+import static no.unit.nva.handlers.ListByInstitutionHandler.QUERY_PARAM_CURSOR;
+import static no.unit.nva.handlers.ListByInstitutionHandler.QUERY_PARAM_PAGE_SIZE;
 import static no.unit.nva.testutils.RandomDataGenerator.randomString;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsEqual.equalTo;
 import static org.hamcrest.core.IsNot.not;
@@ -113,6 +122,94 @@ class ListByInstitutionHandlerTest extends HandlerTest {
         return users;
     }
 
+    @Test
+    void shouldReturnUsersPageByPageWhenPageSizeIsGiven()
+        throws IOException, ConflictException, InvalidEntryInternalException {
+        var expectedUsernames = new ArrayList<String>();
+        for (int i = 0; i < 3; i++) {
+            expectedUsernames.add(insertSampleUserToDatabase(randomString(), DEFAULT_INSTITUTION).getUsername());
+        }
+
+        var firstPage = parseResponseBody(sendRequestToHandler(createPageRequest("2", null), UserList.class));
+        assertThat(firstPage.getUsers(), hasSize(2));
+        assertThat(firstPage.getNextCursor(), is(notNullValue()));
+
+        var secondPage = parseResponseBody(
+            sendRequestToHandler(createPageRequest("2", firstPage.getNextCursor()), UserList.class));
+        assertThat(secondPage.getUsers(), hasSize(1));
+        assertThat(secondPage.getNextCursor(), is(nullValue()));
+
+        var actualUsernames = new ArrayList<String>();
+        firstPage.getUsers().forEach(user -> actualUsernames.add(user.getUsername()));
+        secondPage.getUsers().forEach(user -> actualUsernames.add(user.getUsername()));
+        assertThat(actualUsernames, containsInAnyOrder(expectedUsernames.toArray(String[]::new)));
+    }
+
+    @Test
+    void shouldReturnUsersWithViewingScopeWhenPaged() throws IOException, ConflictException, NotFoundException {
+        var user = createSampleUserAndInsertUserRoles(randomString(), DEFAULT_INSTITUTION, randomRoleName());
+        user.setViewingScope(randomViewingScope());
+        databaseService.addUser(user);
+        var expectedUser = databaseService.getUser(user);
+
+        var page = parseResponseBody(sendRequestToHandler(createPageRequest("10", null), UserList.class));
+
+        assertThat(page.getUsers(), contains(expectedUser));
+        assertThat(page.getUsers().getFirst().getViewingScope(), is(equalTo(expectedUser.getViewingScope())));
+    }
+
+    @Test
+    void shouldReturnBadRequestWhenPagingIsCombinedWithRoleOnly() throws IOException {
+        var queryParams = Map.of(INSTITUTION_ID_QUERY_PARAMETER, DEFAULT_INSTITUTION.toString(),
+                                 QUERY_PARAM_PAGE_SIZE, "2");
+        var request = new HandlerRequestBuilder<>(dtoObjectMapper)
+                          .withQueryParameters(queryParams)
+                          .withMultiValueQueryParameters(Map.of(ROLE, List.of(randomRoleName().getValue())))
+                          .build();
+
+        var response = sendRequestToHandler(request, Problem.class);
+
+        assertThat(response.getStatusCode(), is(HttpStatus.SC_BAD_REQUEST));
+    }
+
+    @Test
+    void shouldReturnBadRequestWhenCursorIsCombinedWithName() throws IOException {
+        var queryParams = Map.of(INSTITUTION_ID_QUERY_PARAMETER, DEFAULT_INSTITUTION.toString(),
+                                 NAME, randomString(),
+                                 QUERY_PARAM_CURSOR, randomString());
+        var request = new HandlerRequestBuilder<>(dtoObjectMapper).withQueryParameters(queryParams).build();
+
+        var response = sendRequestToHandler(request, Problem.class);
+
+        assertThat(response.getStatusCode(), is(HttpStatus.SC_BAD_REQUEST));
+    }
+
+    @Test
+    void shouldReturnBadRequestWhenPageSizeIsInvalid() throws IOException {
+        var response = sendRequestToHandler(createPageRequest("0", null), Problem.class);
+
+        assertThat(response.getStatusCode(), is(HttpStatus.SC_BAD_REQUEST));
+    }
+
+    @Test
+    void shouldReturnBadRequestWhenCursorIsInvalid() throws IOException {
+        var response = sendRequestToHandler(createPageRequest("2", randomString()), Problem.class);
+
+        assertThat(response.getStatusCode(), is(HttpStatus.SC_BAD_REQUEST));
+    }
+
+    private InputStream createPageRequest(String pageSize, String cursor) throws JsonProcessingException {
+        var queryParams = new HashMap<String, String>();
+        queryParams.put(INSTITUTION_ID_QUERY_PARAMETER, DEFAULT_INSTITUTION.toString());
+        queryParams.put(QUERY_PARAM_PAGE_SIZE, pageSize);
+        if (cursor != null) {
+            queryParams.put(QUERY_PARAM_CURSOR, cursor);
+        }
+        return new HandlerRequestBuilder<>(dtoObjectMapper)
+            .withQueryParameters(queryParams)
+            .build();
+    }
+
     @Test
     void handleRequestReturnsListOfUsersGivenAnInstitutionAndSingleRole()
         throws IOException, ConflictException, InvalidEntryInternalException {
@@ -189,6 +286,18 @@ class ListByInstitutionHandlerTest extends HandlerTest {
         assertThat(actualUsers.get(0), is(equalTo(expectedUser)));
     }
 
+    @Test
+    void shouldReturnUsersWhoseUsernameStartsWithNameIgnoringCase()
+        throws IOException, ConflictException, InvalidEntryInternalException {
+        var expectedUser = insertTwoUsersOfSameInstitution().getUsers().get(0);
+        var prefix = expectedUser.getUsername().substring(0, 6).toUpperCase(Locale.ROOT);
+        var validRequest = createListWithFilterUserNameRequest(DEFAULT_INSTITUTION, prefix);
+
+        var actualUsers = parseResponseBody(sendRequestToHandler(validRequest, UserList.class)).getUsers();
+
+        assertThat(actualUsers, contains(expectedUser));
+    }
+
     private InputStream createListWithFilterUserNameRequest(URI institutionId, String username)
         throws JsonProcessingException {
         var queryParams = Map.of(
@@ -62,6 +62,7 @@ public class UserDao implements DynamoEntryWithRangeKey, WithCopy<Builder> {
     public static final String CRISTIN_ID = "cristinId";
     public static final String FEIDE_IDENTIFIER = "feideIdentifier";
     public static final String AFFILIATION_FIELD = "affiliation";
+    public static final String INSTITUTION_CRISTIN_ID_FIELD = "institutionCristinId";
     private static final Logger logger = LoggerFactory.getLogger(UserDao.class);
 
     private String username;
@@ -237,7 +238,7 @@ public class UserDao implements DynamoEntryWithRangeKey, WithCopy<Builder> {
         this.feideIdentifier = feideIdentifer;
     }
 
-    @DynamoDbAttribute("institutionCristinId")
+    @DynamoDbAttribute(INSTITUTION_CRISTIN_ID_FIELD)
     public URI getInstitutionCristinId() {
         return this.institutionCristinId;
     }
@@ -1,5 +1,6 @@
 package no.unit.nva.useraccessservice.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import no.unit.nva.identityservice.json.JsonConfig;
 import no.unit.nva.useraccessservice.interfaces.Typed;
@@ -15,6 +16,7 @@ import static nva.commons.core.attempt.Try.attempt;
 public class UserList implements Typed {
 
     private List<UserDto> users;
+    private String nextCursor;
 
     @JacocoGenerated
     public UserList() {
@@ -37,6 +39,19 @@ public class UserList implements Typed {
         return new UserList(users);
     }
 
+    /**
+     * Creates one page of a paginated listing.
+     *
+     * @param users      the users on the page
+     * @param nextCursor the cursor for the next page, or null when this is the last page
+     * @return the created {@link UserList}
+     */
+    public static UserList fromPage(List<UserDto> users, String nextCursor) {
+        var page = new UserList(users);
+        page.setNextCursor(nextCursor);
+        return page;
+    }
+
     public static UserList fromJson(String json) {
         return attempt(() -> JsonConfig.readValue(json, UserList.class)).orElseThrow();
     }
@@ -52,6 +67,15 @@ public class UserList implements Typed {
         this.users = users;
     }
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
     @JsonProperty(TYPE_FIELD)
     @Override
     @JacocoGenerated
@@ -0,0 +1,112 @@
+package no.unit.nva.database;
+
+import no.unit.nva.database.IdentityService.Constants;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * BatchGetItem and BatchWriteItem against the users and roles table. Requests are split into the largest batches
+ * DynamoDB accepts, and items that DynamoDB leaves unprocessed are retried with exponential backoff.
+ */
+final class BatchOperations {
+
+    public static final int MAX_KEYS_PER_BATCH_GET = 100;
+    public static final int MAX_ITEMS_PER_BATCH_WRITE = 25;
+    public static final int MAX_BATCH_ATTEMPTS = 5;
+    public static final String UNPROCESSED_ITEMS_ERROR_MESSAGE = "Could not process %d items after %d attempts";
+    private static final Duration BASE_BACKOFF = Duration.ofMillis(50);
+
+    private BatchOperations() {
+    }
+
+    /**
+     * Reads the items with the given keys using strongly consistent reads, so that a role or user that has just been
+     * written is seen the same way as through GetItem. Items that do not exist are left out of the result.
+     *
+     * @return the items that exist, in no particular order.
+     */
+    static List<Map<String, AttributeValue>> getItems(DynamoDbClient client, List<Map<String, AttributeValue>> keys) {
+        var distinctKeys = keys.stream().distinct().toList();
+        var items = new ArrayList<Map<String, AttributeValue>>();
+        for (int start = 0; start < distinctKeys.size(); start += MAX_KEYS_PER_BATCH_GET) {
+            var batch = distinctKeys.subList(start, Math.min(start + MAX_KEYS_PER_BATCH_GET, distinctKeys.size()));
+            items.addAll(getBatch(client, batch));
+        }
+        return items;
+    }
+
+    static void writeItems(DynamoDbClient client, List<WriteRequest> writes) {
+        for (int start = 0; start < writes.size(); start += MAX_ITEMS_PER_BATCH_WRITE) {
+            writeBatch(client, writes.subList(start, Math.min(start + MAX_ITEMS_PER_BATCH_WRITE, writes.size())));
+        }
+    }
+
+    private static List<Map<String, AttributeValue>> getBatch(DynamoDbClient client,
+                                                              List<Map<String, AttributeValue>> keys) {
+        var items = new ArrayList<Map<String, AttributeValue>>();
+        var pendingKeys = keys;
+        for (int attempt = 0; !pendingKeys.isEmpty(); attempt++) {
+            waitBeforeAttempt(attempt, pendingKeys.size());
+            var response = client.batchGetItem(createBatchGetRequest(pendingKeys));
+            items.addAll(response.responses().getOrDefault(Constants.USERS_AND_ROLES_TABLE, List.of()));
+            pendingKeys = Optional.ofNullable(response.unprocessedKeys().get(Constants.USERS_AND_ROLES_TABLE))
+                              .map(KeysAndAttributes::keys)
+                              .orElse(List.of());
+        }
+        return items;
+    }
+
+    private static void writeBatch(DynamoDbClient client, List<WriteRequest> writes) {
+        var pendingWrites = writes;
+        for (int attempt = 0; !pendingWrites.isEmpty(); attempt++) {
+            waitBeforeAttempt(attempt, pendingWrites.size());
+            var response = client.batchWriteItem(BatchWriteItemRequest.builder()
+                                                     .requestItems(Map.of(Constants.USERS_AND_ROLES_TABLE,
+                                                                          pendingWrites))
+                                                     .build());
+            pendingWrites = response.unprocessedItems().getOrDefault(Constants.USERS_AND_ROLES_TABLE, List.of());
+        }
+    }
+
+    private static BatchGetItemRequest createBatchGetRequest(List<Map<String, AttributeValue>> keys) {
+        return BatchGetItemRequest.builder()
+                   .requestItems(Map.of(Constants.USERS_AND_ROLES_TABLE,
+                                        KeysAndAttributes.builder()
+                                            .keys(keys)
+                                            .consistentRead(true)
+                                            .build()))
+                   .build();
+    }
+
+    private static void waitBeforeAttempt(int attempt, int pendingItems) {
+        if (attempt == MAX_BATCH_ATTEMPTS) {
+            throw new IllegalStateException(
+                String.format(UNPROCESSED_ITEMS_ERROR_MESSAGE, pendingItems, MAX_BATCH_ATTEMPTS));
+        }
+        if (attempt > 0) {
+            backOff(attempt);
+        }
+    }
+
+    @SuppressWarnings("PMD.DoNotUseThreads")
+    private static void backOff(int attempt) {
+        var maximumDelay = BASE_BACKOFF.toMillis() << (attempt - 1);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(maximumDelay / 2, maximumDelay + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
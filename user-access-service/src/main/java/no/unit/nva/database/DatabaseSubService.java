@@ -4,21 +4,32 @@ import no.unit.nva.identityservice.json.JsonConfig;
 import no.unit.nva.useraccessservice.exceptions.EmptyInputException;
 import no.unit.nva.useraccessservice.exceptions.InvalidInputException;
 import no.unit.nva.useraccessservice.model.interfaces.Validable;
+import nva.commons.apigateway.exceptions.ConflictException;
 import nva.commons.core.attempt.Failure;
 import nva.commons.core.attempt.Try;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.enhanced.dynamodb.model.PutItemEnhancedRequest;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
 
 import java.util.Optional;
 
 import static java.util.Objects.isNull;
+import static no.unit.nva.useraccessservice.constants.DatabaseIndexDetails.PRIMARY_KEY_HASH_KEY;
 import static nva.commons.core.attempt.Try.attempt;
 
 public class DatabaseSubService {
 
     public static final String EMPTY_INPUT_ERROR_MESSAGE = "Expected non-empty input, but input is empty";
+    protected static final Expression PRIMARY_KEY_DOES_NOT_EXIST = Expression.builder()
+                                                                       .expression("attribute_not_exists(#hashKey)")
+                                                                       .putExpressionName("#hashKey",
+                                                                                          PRIMARY_KEY_HASH_KEY)
+                                                                       .build();
     private static final Logger logger = LoggerFactory.getLogger(DatabaseSubService.class);
     protected DynamoDbEnhancedClient client;
 
@@ -35,6 +46,27 @@ public class DatabaseSubService {
         }
     }
 
+    /**
+     * Writes the item in a single conditional put that fails if an item with the same primary key already exists.
+     *
+     * @param table           the table to write to.
+     * @param item            the item to write.
+     * @param conflictMessage the message of the exception thrown when the item already exists.
+     * @throws ConflictException when an item with the same primary key already exists.
+     */
+    protected static <T> void putItemIfNotExists(DynamoDbTable<T> table, T item, String conflictMessage)
+        throws ConflictException {
+        var request = PutItemEnhancedRequest.builder(table.tableSchema().itemType().rawClass())
+                          .item(item)
+                          .conditionExpression(PRIMARY_KEY_DOES_NOT_EXIST)
+                          .build();
+        try {
+            table.putItem(request);
+        } catch (ConditionalCheckFailedException e) {
+            throw new ConflictException(conflictMessage);
+        }
+    }
+
     protected static boolean isInvalid(Validable validable) {
         return isNull(validable) || validable.isInvalid();
     }
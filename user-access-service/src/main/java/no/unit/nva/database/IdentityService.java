@@ -5,7 +5,9 @@ import no.unit.nva.useraccessservice.exceptions.InvalidInputException;
 import no.unit.nva.useraccessservice.internals.UserScanResult;
 import no.unit.nva.useraccessservice.model.ClientDto;
 import no.unit.nva.useraccessservice.model.RoleDto;
+import no.unit.nva.useraccessservice.model.RoleName;
 import no.unit.nva.useraccessservice.model.UserDto;
+import no.unit.nva.useraccessservice.model.UserList;
 import nva.commons.apigateway.exceptions.ConflictException;
 import nva.commons.apigateway.exceptions.NotFoundException;
 import nva.commons.core.Environment;
@@ -13,7 +15,10 @@ import nva.commons.core.JacocoGenerated;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 
 import java.net.URI;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
 import static no.unit.nva.database.DatabaseConfig.DEFAULT_DYNAMO_CLIENT;
 
@@ -33,8 +38,16 @@ public interface IdentityService {
 
     List<UserDto> listAllUsers();
 
+    void forEachUser(int segments, Collection<String> attributes, Consumer<UserDto> consumer);
+
     List<UserDto> listUsers(URI institutionId);
 
+    UserList listUsers(URI institutionId, int pageSize, String cursor) throws InvalidInputException;
+
+    List<UserDto> listUsers(URI institutionId, Collection<RoleName> roles);
+
+    List<UserDto> searchUsers(URI institutionId, String searchText, Collection<RoleName> roles, int maxResults);
+
     UserDto addUser(UserDto user) throws ConflictException;
 
     void addRole(RoleDto roleDto) throws ConflictException, InvalidInputException;
@@ -43,6 +56,8 @@ public interface IdentityService {
 
     UserDto updateUser(UserDto user) throws NotFoundException;
 
+    boolean propagateRole(RoleName roleName, BooleanSupplier hasTimeLeft) throws NotFoundException;
+
     RoleDto getRole(RoleDto input) throws NotFoundException;
 
     UserScanResult fetchOnePageOfUsers(ScanDatabaseRequestV2 scanRequest);
@@ -7,7 +7,9 @@ import no.unit.nva.useraccessservice.interfaces.Typed;
 import no.unit.nva.useraccessservice.internals.UserScanResult;
 import no.unit.nva.useraccessservice.model.ClientDto;
 import no.unit.nva.useraccessservice.model.RoleDto;
+import no.unit.nva.useraccessservice.model.RoleName;
 import no.unit.nva.useraccessservice.model.UserDto;
+import no.unit.nva.useraccessservice.model.UserList;
 import nva.commons.apigateway.exceptions.ConflictException;
 import nva.commons.apigateway.exceptions.NotFoundException;
 import nva.commons.core.JacocoGenerated;
@@ -17,9 +19,12 @@ import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
 import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
 
 import java.net.URI;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static no.unit.nva.database.DatabaseConfig.DEFAULT_DYNAMO_CLIENT;
@@ -54,11 +59,48 @@ public class IdentityServiceImpl implements IdentityService {
         return userService.listAllUsers();
     }
 
+    @Override
+    public void forEachUser(int segments, Collection<String> attributes, Consumer<UserDto> consumer) {
+        userService.forEachUser(segments, attributes, consumer);
+    }
+
     @Override
     public List<UserDto> listUsers(URI institutionId) {
         return userService.listUsers(institutionId);
     }
 
+    @Override
+    public UserList listUsers(URI institutionId, int pageSize, String cursor) throws InvalidInputException {
+        return userService.listUsers(institutionId, pageSize, cursor);
+    }
+
+    @Override
+    public List<UserDto> listUsers(URI institutionId, Collection<RoleName> roles) {
+        return userService.listUsers(institutionId, roles);
+    }
+
+    @Override
+    public List<UserDto> searchUsers(URI institutionId, String searchText, Collection<RoleName> roles,
+                                     int maxResults) {
+        return userService.searchUsers(institutionId, searchText, roles, maxResults);
+    }
+
+    /**
+     * Writes the role and name index entries of a user. Used to index users that were stored before the indexes
+     * existed.
+     */
+    public void indexUser(UserDto user) {
+        userService.indexUser(user);
+    }
+
+    /**
+     * Records that every user has been indexed. Until then, role filtered listings read every user of the
+     * institution instead of using the role index.
+     */
+    public void completeIndexBackfill() {
+        userService.completeIndexBackfill();
+    }
+
     @Override
     public UserDto addUser(UserDto user) throws ConflictException {
         return this.userService.addUser(user);
@@ -76,8 +118,12 @@ public class IdentityServiceImpl implements IdentityService {
 
     @Override
     public UserDto updateUser(UserDto user) throws NotFoundException {
-        this.userService.updateUser(user);
-        return this.userService.getUser(user);
+        return this.userService.updateUser(user);
+    }
+
+    @Override
+    public boolean propagateRole(RoleName roleName, BooleanSupplier hasTimeLeft) throws NotFoundException {
+        return userService.propagateRole(roleName, hasTimeLeft);
     }
 
     @Override
@@ -0,0 +1,171 @@
+package no.unit.nva.database;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValue;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.Update;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * The attributes that differ between a stored item and the item that should be stored, as a single UpdateItem
+ * request or transaction write. Attributes that are new or changed are set, attributes that are gone are removed, and
+ * key attributes are left alone.
+ */
+final class ItemUpdate {
+
+    private static final String NAME_PREFIX = "#a";
+    private static final String VALUE_PREFIX = ":v";
+    private static final String KEY_NAME_PREFIX = "#k";
+    private static final String STORED_VALUE_PREFIX = ":s";
+
+    private final Map<String, AttributeValue> stored;
+    private final Map<String, AttributeValue> changedAttributes;
+    private final Set<String> removedAttributes;
+
+    private ItemUpdate(Map<String, AttributeValue> stored, Map<String, AttributeValue> changedAttributes,
+                       Set<String> removedAttributes) {
+        this.stored = stored;
+        this.changedAttributes = changedAttributes;
+        this.removedAttributes = removedAttributes;
+    }
+
+    static ItemUpdate between(Map<String, AttributeValue> stored, Map<String, AttributeValue> desired,
+                              Collection<String> keyAttributes) {
+        var changed = new LinkedHashMap<String, AttributeValue>();
+        desired.forEach((name, value) -> {
+            if (!keyAttributes.contains(name) && !value.equals(stored.get(name))) {
+                changed.put(name, value);
+            }
+        });
+        var removed = stored.keySet().stream()
+                          .filter(name -> !keyAttributes.contains(name))
+                          .filter(name -> !desired.containsKey(name))
+                          .collect(Collectors.toCollection(TreeSet::new));
+        return new ItemUpdate(stored, changed, removed);
+    }
+
+    boolean isEmpty() {
+        return changedAttributes.isEmpty() && removedAttributes.isEmpty();
+    }
+
+    /**
+     * Creates a request that applies the difference to the item with the given key and returns the item as it is
+     * after the update. The request fails with a ConditionalCheckFailedException if the item no longer exists.
+     */
+    UpdateItemRequest toRequest(String tableName, Map<String, AttributeValue> key) {
+        var expressions = new Expressions(key, false);
+        var request = UpdateItemRequest.builder()
+                          .tableName(tableName)
+                          .key(key)
+                          .updateExpression(expressions.update())
+                          .conditionExpression(expressions.condition())
+                          .expressionAttributeNames(expressions.names)
+                          .returnValues(ReturnValue.ALL_NEW);
+        return expressions.values.isEmpty()
+                   ? request.build()
+                   : request.expressionAttributeValues(expressions.values).build();
+    }
+
+    /**
+     * Creates a transaction write that applies the difference to the item with the given key. The transaction is
+     * cancelled if the item no longer exists, or if an attribute the update changes or removes, or one of the guarded
+     * attributes, no longer has the value it had when the item was read. Writes made together with the update can
+     * then not be based on a stale item.
+     */
+    TransactWriteItem toTransactWriteItem(String tableName, Map<String, AttributeValue> key,
+                                          Collection<String> guardedAttributes) {
+        var expressions = new Expressions(key, true);
+        guardedAttributes.stream()
+            .filter(name -> !changedAttributes.containsKey(name) && !removedAttributes.contains(name))
+            .sorted()
+            .forEach(expressions::requireUnchanged);
+        var update = Update.builder()
+                         .tableName(tableName)
+                         .key(key)
+                         .updateExpression(expressions.update())
+                         .conditionExpression(expressions.condition())
+                         .expressionAttributeNames(expressions.names);
+        if (!expressions.values.isEmpty()) {
+            update.expressionAttributeValues(expressions.values);
+        }
+        return TransactWriteItem.builder().update(update.build()).build();
+    }
+
+    private final class Expressions {
+
+        private final Map<String, String> names = new HashMap<>();
+        private final Map<String, AttributeValue> values = new HashMap<>();
+        private final List<String> setActions = new ArrayList<>();
+        private final List<String> removeActions = new ArrayList<>();
+        private final List<String> conditions = new ArrayList<>();
+
+        private Expressions(Map<String, AttributeValue> key, boolean requireUnchanged) {
+            changedAttributes.forEach((name, value) -> {
+                var index = names.size();
+                names.put(NAME_PREFIX + index, name);
+                values.put(VALUE_PREFIX + index, value);
+                setActions.add(NAME_PREFIX + index + " = " + VALUE_PREFIX + index);
+                if (requireUnchanged) {
+                    requireStoredValue(name, index);
+                }
+            });
+            removedAttributes.forEach(name -> {
+                var index = names.size();
+                names.put(NAME_PREFIX + index, name);
+                removeActions.add(NAME_PREFIX + index);
+                if (requireUnchanged) {
+                    requireStoredValue(name, index);
+                }
+            });
+            key.keySet().stream().sorted().forEach(name -> {
+                var placeholder = KEY_NAME_PREFIX + names.size();
+                names.put(placeholder, name);
+                conditions.add("attribute_exists(" + placeholder + ")");
+            });
+        }
+
+        private void requireUnchanged(String name) {
+            var index = names.size();
+            names.put(NAME_PREFIX + index, name);
+            requireStoredValue(name, index);
+        }
+
+        private void requireStoredValue(String name, int index) {
+            if (stored.containsKey(name)) {
+                values.put(STORED_VALUE_PREFIX + index, stored.get(name));
+                conditions.add(NAME_PREFIX + index + " = " + STORED_VALUE_PREFIX + index);
+            } else {
+                conditions.add("attribute_not_exists(" + NAME_PREFIX + index + ")");
+            }
+        }
+
+        private String update() {
+            return updateExpression(setActions, removeActions);
+        }
+
+        private String condition() {
+            return String.join(" AND ", conditions);
+        }
+    }
+
+    private static String updateExpression(List<String> setActions, List<String> removeActions) {
+        var clauses = new ArrayList<String>();
+        if (!setActions.isEmpty()) {
+            clauses.add("SET " + String.join(", ", setActions));
+        }
+        if (!removeActions.isEmpty()) {
+            clauses.add("REMOVE " + String.join(", ", removeActions));
+        }
+        return String.join(" ", clauses);
+    }
+}
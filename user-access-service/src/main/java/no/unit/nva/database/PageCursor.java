@@ -0,0 +1,51 @@
+package no.unit.nva.database;
+
+import no.unit.nva.identityservice.json.JsonConfig;
+import no.unit.nva.useraccessservice.exceptions.InvalidInputException;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static java.util.Objects.isNull;
+import static nva.commons.core.attempt.Try.attempt;
+
+/**
+ * Opaque cursor that wraps the last evaluated key of a query page. Only keys with string attributes are supported,
+ * which covers all the keys and index keys of the users and roles table.
+ */
+final class PageCursor {
+
+    public static final String INVALID_CURSOR_MESSAGE = "Invalid cursor: ";
+
+    private PageCursor() {
+    }
+
+    static String encode(Map<String, AttributeValue> lastEvaluatedKey) {
+        if (isNull(lastEvaluatedKey) || lastEvaluatedKey.isEmpty()) {
+            return null;
+        }
+        var key = lastEvaluatedKey.entrySet().stream()
+                      .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().s()));
+        var json = attempt(() -> JsonConfig.writeValueAsString(key)).orElseThrow();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Map<String, AttributeValue> decode(String cursor) throws InvalidInputException {
+        return attempt(() -> new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8))
+                   .map(JsonConfig::mapFrom)
+                   .map(PageCursor::toKey)
+                   .orElseThrow(fail -> new InvalidInputException(INVALID_CURSOR_MESSAGE + cursor));
+    }
+
+    private static Map<String, AttributeValue> toKey(Map<String, Object> values) {
+        if (values.isEmpty()) {
+            throw new IllegalArgumentException("Cursor has no key attributes");
+        }
+        return values.entrySet().stream()
+                   .collect(Collectors.toMap(Map.Entry::getKey,
+                                             entry -> AttributeValue.fromS((String) entry.getValue())));
+    }
+}
@@ -0,0 +1,125 @@
+package no.unit.nva.database;
+
+import no.unit.nva.useraccessservice.dao.RoleDb;
+import no.unit.nva.useraccessservice.model.RoleName;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.WeakHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * In-memory copy of all roles, shared by every {@link RoleService} that uses the same {@link DynamoDbClient}. This
+ * normally means one catalogue per container.
+ *
+ * <p>The catalogue does not keep a reference to where the roles are read from. Callers pass a {@link Source} on
+ * every call, so that a cached catalogue never keeps its client alive.
+ *
+ * <p>When the time to live has passed, the stored version stamp is read. The roles are reloaded only if the stamp
+ * has changed since they were loaded. Role writes in this container invalidate the catalogue immediately. Role writes
+ * in other containers are picked up after at most one time to live.
+ */
+public class RoleCatalogue {
+
+    private static final Map<DynamoDbClient, RoleCatalogue> CATALOGUES = new WeakHashMap<>();
+    private static final ReentrantLock CATALOGUES_LOCK = new ReentrantLock();
+
+    private final Duration timeToLive;
+    private final Clock clock;
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile Snapshot snapshot;
+
+    public RoleCatalogue(Duration timeToLive, Clock clock) {
+        this.timeToLive = timeToLive;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the catalogue shared by all users of the client, creating it on first use.
+     */
+    public static RoleCatalogue forClient(DynamoDbClient client, Duration timeToLive) {
+        CATALOGUES_LOCK.lock();
+        try {
+            return CATALOGUES.computeIfAbsent(client, ignored -> new RoleCatalogue(timeToLive, Clock.systemUTC()));
+        } finally {
+            CATALOGUES_LOCK.unlock();
+        }
+    }
+
+    public Optional<RoleDb> getRole(RoleName roleName, Source source) {
+        return Optional.ofNullable(currentSnapshot(source).roles().get(roleName));
+    }
+
+    /**
+     * The version stamp the roles in memory were loaded at.
+     */
+    public long version(Source source) {
+        return currentSnapshot(source).version();
+    }
+
+    /**
+     * Drops the roles in memory. If a reload is in progress, this waits for it to finish, so that roles read before
+     * a write are never kept after the write.
+     */
+    public void invalidate() {
+        lock.lock();
+        try {
+            snapshot = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Snapshot currentSnapshot(Source source) {
+        var current = snapshot;
+        if (isFresh(current)) {
+            return current;
+        }
+        lock.lock();
+        try {
+            current = snapshot;
+            if (isFresh(current)) {
+                return current;
+            }
+            var storedVersion = source.readVersion();
+            var expiresAt = clock.instant().plus(timeToLive);
+            snapshot = nonNull(current) && current.version() == storedVersion
+                           ? new Snapshot(current.roles(), storedVersion, expiresAt)
+                           : new Snapshot(toMap(source.loadRoles()), storedVersion, expiresAt);
+            return snapshot;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isFresh(Snapshot current) {
+        return nonNull(current) && clock.instant().isBefore(current.expiresAt());
+    }
+
+    private static Map<RoleName, RoleDb> toMap(Collection<RoleDb> roles) {
+        return roles.stream().collect(Collectors.toUnmodifiableMap(RoleDb::getName, Function.identity()));
+    }
+
+    /**
+     * Where the catalogue reads roles and the version stamp from.
+     */
+    public interface Source {
+
+        long readVersion();
+
+        Collection<RoleDb> loadRoles();
+    }
+
+    private record Snapshot(Map<RoleName, RoleDb> roles, long version, Instant expiresAt) {
+
+    }
+}
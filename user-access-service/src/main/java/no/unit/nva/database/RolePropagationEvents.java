@@ -0,0 +1,52 @@
+package no.unit.nva.database;
+
+import no.unit.nva.useraccessservice.model.RoleName;
+import nva.commons.core.Environment;
+import nva.commons.core.JacocoGenerated;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.eventbridge.EventBridgeClient;
+import software.amazon.awssdk.services.eventbridge.model.PutEventsRequest;
+
+/**
+ * Starts copying a role to every user with the role, by emitting a {@link RolePropagationRequest} to the event bus.
+ * Users embed a copy of their roles, so this must be done whenever the access rights of a role are changed.
+ */
+public class RolePropagationEvents {
+
+    public static final String EVENT_BUS_ENV_NAME = "EVENT_BUS";
+    public static final String PROPAGATION_STARTED_MESSAGE = "Started propagating role {} to all users";
+    private static final Logger logger = LoggerFactory.getLogger(RolePropagationEvents.class);
+
+    private final EventBridgeClient eventsClient;
+    private final String eventBus;
+
+    public RolePropagationEvents(EventBridgeClient eventsClient, Environment environment) {
+        this.eventsClient = eventsClient;
+        this.eventBus = environment.readEnv(EVENT_BUS_ENV_NAME);
+    }
+
+    @JacocoGenerated
+    public static EventBridgeClient defaultEventBridgeClient() {
+        return EventBridgeClient.builder()
+                   .region(Region.of(new Environment().readEnv("AWS_REGION")))
+                   .credentialsProvider(DefaultCredentialsProvider.create())
+                   .httpClient(UrlConnectionHttpClient.create())
+                   .build();
+    }
+
+    /**
+     * Emits the request to propagate the role.
+     *
+     * @param roleName           the role that was changed.
+     * @param invokedFunctionArn the function emitting the event, used as its source.
+     */
+    public void startPropagation(RoleName roleName, String invokedFunctionArn) {
+        var entry = RolePropagationRequest.forRole(roleName).createNewEventEntry(eventBus, invokedFunctionArn);
+        eventsClient.putEvents(PutEventsRequest.builder().entries(entry).build());
+        logger.info(PROPAGATION_STARTED_MESSAGE, roleName);
+    }
+}
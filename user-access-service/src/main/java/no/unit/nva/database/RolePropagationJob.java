@@ -0,0 +1,224 @@
+package no.unit.nva.database;
+
+import no.unit.nva.database.IdentityService.Constants;
+import no.unit.nva.useraccessservice.dao.RoleDb;
+import no.unit.nva.useraccessservice.dao.UserDao;
+import no.unit.nva.useraccessservice.model.RoleName;
+import nva.commons.apigateway.exceptions.NotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+import software.amazon.awssdk.services.dynamodb.model.Update;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+
+import static no.unit.nva.database.BatchOperations.MAX_BATCH_ATTEMPTS;
+import static no.unit.nva.database.RoleService.ROLE_NOT_FOUND_MESSAGE;
+import static no.unit.nva.useraccessservice.constants.DatabaseIndexDetails.PRIMARY_KEY_HASH_KEY;
+import static no.unit.nva.useraccessservice.constants.DatabaseIndexDetails.PRIMARY_KEY_RANGE_KEY;
+import static no.unit.nva.useraccessservice.dao.DynamoEntryWithRangeKey.FIELD_DELIMITER;
+import static no.unit.nva.useraccessservice.dao.UserDao.ROLES_LIST;
+import static no.unit.nva.useraccessservice.dao.UserDao.USERNAME_FIELD;
+import static no.unit.nva.useraccessservice.interfaces.Typed.TYPE_FIELD;
+
+/**
+ * Copies the stored access rights of a role into every user that has the role. Users embed a copy of each of their
+ * roles, so a changed role does not reach its users until they are rewritten.
+ *
+ * <p>The users are found one scan page at a time by scanning the table for users. The role index is keyed by
+ * institution, so it cannot list the holders of a role across institutions. Every user has several index entries next
+ * to it, so a scan page reads many items to find a few users, and pages are made large to keep the number of scans
+ * down. The users of a page are handled in chunks, each read with one batch read and rewritten in one transaction,
+ * where each write requires the roles of the user to be unchanged since they were read. If another writer changed one
+ * of the users in the meantime, the chunk is read and written again.
+ *
+ * <p>After each scan page, the position of the scan is stored next to the users, so that a job stopped by a timeout
+ * continues where it stopped. A page that was only partly done is handled again, which skips the users it already
+ * updated. The stored position is only used while the role is unchanged, so the job starts over
+ * if the role changes again before the job is done.
+ */
+final class RolePropagationJob {
+
+    public static final String TYPE_VALUE = "ROLE_PROPAGATION";
+    public static final int USERS_PER_TRANSACTION = 25;
+    public static final int ITEMS_PER_SCAN = 1000;
+    private static final String LAST_EVALUATED_KEY_FIELD = "lastEvaluatedKey";
+    private static final String ROLE_FIELD = "role";
+    private static final String USERS_CHANGED_MESSAGE = "Users changed while propagating role {}, attempt {}";
+    private static final List<String> KEY_ATTRIBUTES = List.of(PRIMARY_KEY_HASH_KEY, PRIMARY_KEY_RANGE_KEY);
+    private static final Logger logger = LoggerFactory.getLogger(RolePropagationJob.class);
+
+    private final DynamoDbClient client;
+
+    RolePropagationJob(DynamoDbClient client) {
+        this.client = client;
+    }
+
+    /**
+     * Propagates the role to its users one page at a time, for as long as there is time left.
+     *
+     * @param roleName    the role to propagate.
+     * @param hasTimeLeft checked before each chunk of users.
+     * @return true when every user with the role has the stored copy of the role, false when the job stopped before
+     *     that and must be run again.
+     * @throws NotFoundException when the role does not exist.
+     */
+    boolean run(RoleName roleName, BooleanSupplier hasTimeLeft) throws NotFoundException {
+        var role = readRole(roleName);
+        var startAfter = readProgress(role);
+        while (hasTimeLeft.getAsBoolean()) {
+            var page = nextPage(startAfter);
+            if (!propagateToUsers(role, page.usernames(), hasTimeLeft)) {
+                return false;
+            }
+            if (page.lastEvaluatedKey().isEmpty()) {
+                deleteProgress(roleName);
+                return true;
+            }
+            startAfter = page.lastEvaluatedKey();
+            saveProgress(role, startAfter);
+        }
+        return false;
+    }
+
+    // The scan limit counts every item read, also the ones the filter drops, so a page holds far fewer users.
+    private Page nextPage(Map<String, AttributeValue> startAfter) {
+        var request = ScanRequest.builder()
+                          .tableName(Constants.USERS_AND_ROLES_TABLE)
+                          .filterExpression("#type = :user")
+                          .projectionExpression("#username")
+                          .expressionAttributeNames(Map.of("#type", TYPE_FIELD, "#username", USERNAME_FIELD))
+                          .expressionAttributeValues(Map.of(":user", AttributeValue.fromS(UserDao.TYPE_VALUE)))
+                          .limit(ITEMS_PER_SCAN);
+        if (!startAfter.isEmpty()) {
+            request.exclusiveStartKey(startAfter);
+        }
+        var response = client.scan(request.build());
+        var usernames = response.items().stream().map(item -> item.get(USERNAME_FIELD).s()).toList();
+        return new Page(usernames, response.lastEvaluatedKey());
+    }
+
+    private RoleDb readRole(RoleName roleName) throws NotFoundException {
+        var key = RoleDb.TABLE_SCHEMA.itemToMap(RoleDb.newBuilder().withName(roleName).build(), KEY_ATTRIBUTES);
+        var item = getItem(key);
+        if (item.isEmpty()) {
+            throw new NotFoundException(ROLE_NOT_FOUND_MESSAGE + roleName.getValue());
+        }
+        return RoleDb.TABLE_SCHEMA.mapToItem(item);
+    }
+
+    private boolean propagateToUsers(RoleDb role, List<String> usernames, BooleanSupplier hasTimeLeft) {
+        for (int from = 0; from < usernames.size(); from += USERS_PER_TRANSACTION) {
+            if (from > 0 && !hasTimeLeft.getAsBoolean()) {
+                return false;
+            }
+            propagateToUsers(role, usernames.subList(from, Math.min(from + USERS_PER_TRANSACTION, usernames.size())));
+        }
+        return true;
+    }
+
+    private void propagateToUsers(RoleDb role, List<String> usernames) {
+        for (int attempt = 1; ; attempt++) {
+            var updates = BatchOperations.getItems(client, usernames.stream().map(RolePropagationJob::userKey).toList())
+                              .stream()
+                              .map(user -> roleUpdate(user, role))
+                              .flatMap(Optional::stream)
+                              .toList();
+            if (updates.isEmpty()) {
+                return;
+            }
+            try {
+                client.transactWriteItems(TransactWriteItemsRequest.builder().transactItems(updates).build());
+                return;
+            } catch (TransactionCanceledException e) {
+                if (attempt == MAX_BATCH_ATTEMPTS) {
+                    throw e;
+                }
+                logger.info(USERS_CHANGED_MESSAGE, role.getName(), attempt);
+            }
+        }
+    }
+
+    // Index entries may briefly point to users that no longer have the role, and those are left as they are.
+    private static Optional<TransactWriteItem> roleUpdate(Map<String, AttributeValue> storedUser, RoleDb role) {
+        var user = UserDao.TABLE_SCHEMA.mapToItem(storedUser);
+        var roles = user.getRolesNonNull();
+        if (roles.contains(role) || roles.stream().noneMatch(existing -> existing.getName() == role.getName())) {
+            return Optional.empty();
+        }
+        var updatedRoles = roles.stream()
+                               .map(existing -> existing.getName() == role.getName() ? role : existing)
+                               .toList();
+        var updatedUser = UserDao.TABLE_SCHEMA.itemToMap(user.copy().withRoles(updatedRoles).build(), true);
+        var update = Update.builder()
+                         .tableName(Constants.USERS_AND_ROLES_TABLE)
+                         .key(Map.of(PRIMARY_KEY_HASH_KEY, storedUser.get(PRIMARY_KEY_HASH_KEY),
+                                     PRIMARY_KEY_RANGE_KEY, storedUser.get(PRIMARY_KEY_RANGE_KEY)))
+                         .updateExpression("SET #roles = :roles")
+                         .conditionExpression("#roles = :storedRoles")
+                         .expressionAttributeNames(Map.of("#roles", ROLES_LIST))
+                         .expressionAttributeValues(Map.of(":roles", updatedUser.get(ROLES_LIST),
+                                                           ":storedRoles", storedUser.get(ROLES_LIST)))
+                         .build();
+        return Optional.of(TransactWriteItem.builder().update(update).build());
+    }
+
+    private static Map<String, AttributeValue> userKey(String username) {
+        return UserDao.TABLE_SCHEMA.itemToMap(UserDao.newBuilder().withUsername(username).build(), KEY_ATTRIBUTES);
+    }
+
+    private Map<String, AttributeValue> readProgress(RoleDb role) {
+        var progress = getItem(progressKey(role.getName()));
+        return progress.containsKey(ROLE_FIELD)
+               && progress.containsKey(LAST_EVALUATED_KEY_FIELD)
+               && role.equals(RoleDb.TABLE_SCHEMA.mapToItem(progress.get(ROLE_FIELD).m()))
+                   ? progress.get(LAST_EVALUATED_KEY_FIELD).m()
+                   : Map.of();
+    }
+
+    private void saveProgress(RoleDb role, Map<String, AttributeValue> lastEvaluatedKey) {
+        var key = progressKey(role.getName());
+        var item = Map.of(PRIMARY_KEY_HASH_KEY, key.get(PRIMARY_KEY_HASH_KEY),
+                          PRIMARY_KEY_RANGE_KEY, key.get(PRIMARY_KEY_RANGE_KEY),
+                          TYPE_FIELD, AttributeValue.fromS(TYPE_VALUE),
+                          ROLE_FIELD, AttributeValue.fromM(RoleDb.TABLE_SCHEMA.itemToMap(role, true)),
+                          LAST_EVALUATED_KEY_FIELD, AttributeValue.fromM(lastEvaluatedKey));
+        client.putItem(PutItemRequest.builder().tableName(Constants.USERS_AND_ROLES_TABLE).item(item).build());
+    }
+
+    private void deleteProgress(RoleName roleName) {
+        client.deleteItem(DeleteItemRequest.builder()
+                              .tableName(Constants.USERS_AND_ROLES_TABLE)
+                              .key(progressKey(roleName))
+                              .build());
+    }
+
+    private Map<String, AttributeValue> getItem(Map<String, AttributeValue> key) {
+        return client.getItem(GetItemRequest.builder()
+                                  .tableName(Constants.USERS_AND_ROLES_TABLE)
+                                  .key(key)
+                                  .consistentRead(true)
+                                  .build())
+                   .item();
+    }
+
+    private static Map<String, AttributeValue> progressKey(RoleName roleName) {
+        var key = AttributeValue.fromS(TYPE_VALUE + FIELD_DELIMITER + roleName.getValue());
+        return Map.of(PRIMARY_KEY_HASH_KEY, key, PRIMARY_KEY_RANGE_KEY, key);
+    }
+
+    private record Page(List<String> usernames, Map<String, AttributeValue> lastEvaluatedKey) {
+
+    }
+}
@@ -0,0 +1,55 @@
+package no.unit.nva.database;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import no.unit.nva.identityservice.json.JsonConfig;
+import no.unit.nva.useraccessservice.model.RoleName;
+import software.amazon.awssdk.services.eventbridge.model.PutEventsRequestEntry;
+
+import static nva.commons.core.attempt.Try.attempt;
+
+/**
+ * Asks for the current version of a role to be copied to every user with the role, see
+ * {@link IdentityService#propagateRole}. The event is emitted by whoever changes a role and handled by the role
+ * propagation event handler, which the topic routes it to. Both sides use this type, so they cannot drift apart.
+ */
+public class RolePropagationRequest {
+
+    public static final String ROLE_PROPAGATION_EVENT_TOPIC = "IdentityService.Role.Propagate";
+    public static final String DETAIL_TYPE = "topicInDetailType";
+    public static final String TOPIC_FIELD = "topic";
+    public static final String ROLE_NAME_FIELD = "roleName";
+
+    @JsonProperty(TOPIC_FIELD)
+    private final String topic;
+    @JsonProperty(ROLE_NAME_FIELD)
+    private final RoleName roleName;
+
+    @JsonCreator
+    public RolePropagationRequest(@JsonProperty(TOPIC_FIELD) String topic,
+                                  @JsonProperty(ROLE_NAME_FIELD) RoleName roleName) {
+        this.topic = topic;
+        this.roleName = roleName;
+    }
+
+    public static RolePropagationRequest forRole(RoleName roleName) {
+        return new RolePropagationRequest(ROLE_PROPAGATION_EVENT_TOPIC, roleName);
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public RoleName getRoleName() {
+        return roleName;
+    }
+
+    public PutEventsRequestEntry createNewEventEntry(String eventBus, String invokedFunctionArn) {
+        return PutEventsRequestEntry.builder()
+                   .eventBusName(eventBus)
+                   .detailType(DETAIL_TYPE)
+                   .source(invokedFunctionArn)
+                   .detail(attempt(() -> JsonConfig.writeValueAsString(this)).orElseThrow())
+                   .build();
+    }
+}
@@ -4,17 +4,30 @@ import no.unit.nva.database.IdentityService.Constants;
 import no.unit.nva.useraccessservice.dao.RoleDb;
 import no.unit.nva.useraccessservice.exceptions.InvalidInputException;
 import no.unit.nva.useraccessservice.model.RoleDto;
+import no.unit.nva.useraccessservice.model.RoleName;
 import nva.commons.apigateway.exceptions.ConflictException;
 import nva.commons.apigateway.exceptions.NotFoundException;
+import nva.commons.core.Environment;
 import nva.commons.core.attempt.Try;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.TableMetadata;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
-
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static java.util.Objects.nonNull;
+import static no.unit.nva.useraccessservice.constants.DatabaseIndexDetails.PRIMARY_KEY_HASH_KEY;
+import static no.unit.nva.useraccessservice.constants.DatabaseIndexDetails.PRIMARY_KEY_RANGE_KEY;
 
 public class RoleService extends DatabaseSubService {
 
@@ -24,12 +37,25 @@ public class RoleService extends DatabaseSubService {
     public static final String GET_ROLE_DEBUG_MESSAGE = "Getting role:";
 
     public static final String ADD_ROLE_DEBUG_MESSAGE = "Adding role:{}";
+    public static final String ROLE_CATALOGUE_TIME_TO_LIVE_ENV_NAME = "ROLE_CATALOGUE_TIME_TO_LIVE";
+    public static final Duration DEFAULT_ROLE_CATALOGUE_TIME_TO_LIVE = Duration.ofMinutes(5);
+    private static final String ROLE_CATALOGUE_VERSION_KEY = "ROLE_CATALOGUE_VERSION";
+    private static final String VERSION_FIELD = "version";
     private static final Logger logger = LoggerFactory.getLogger(RoleService.class);
+    private final DynamoDbClient dynamoDbClient;
     private final DynamoDbTable<RoleDb> table;
+    private final RoleCatalogue catalogue;
+    private final RoleCatalogue.Source storedRoles = new StoredRoles();
 
     protected RoleService(DynamoDbClient client) {
+        this(client, RoleCatalogue.forClient(client, roleCatalogueTimeToLive()));
+    }
+
+    protected RoleService(DynamoDbClient client, RoleCatalogue catalogue) {
         super(client);
+        this.dynamoDbClient = client;
         this.table = this.client.table(Constants.USERS_AND_ROLES_TABLE, RoleDb.TABLE_SCHEMA);
+        this.catalogue = catalogue;
     }
 
     /**
@@ -40,18 +66,9 @@ public class RoleService extends DatabaseSubService {
     public void addRole(RoleDto roleDto) throws ConflictException, InvalidInputException {
         logger.debug(ADD_ROLE_DEBUG_MESSAGE, convertToStringOrWriteErrorMessage(roleDto));
         validate(roleDto);
-        checkRoleDoesNotExist(roleDto);
-        table.putItem(RoleDb.fromRoleDto(roleDto));
-    }
-
-    private void checkRoleDoesNotExist(RoleDto roleDto) throws ConflictException {
-        if (roleAlreadyExists(roleDto)) {
-            throw new ConflictException(ROLE_ALREADY_EXISTS_ERROR_MESSAGE + roleDto.getRoleName());
-        }
-    }
-
-    private boolean roleAlreadyExists(RoleDto roleDto) {
-        return getRoleAsOptional(roleDto).isPresent();
+        putItemIfNotExists(table, RoleDb.fromRoleDto(roleDto),
+                           ROLE_ALREADY_EXISTS_ERROR_MESSAGE + roleDto.getRoleName());
+        roleCatalogueChanged();
     }
 
     private Optional<RoleDto> getRoleAsOptional(RoleDto queryObject) {
@@ -62,15 +79,58 @@ public class RoleService extends DatabaseSubService {
     private RoleDto attemptFetchRole(RoleDto queryObject) {
         RoleDb roledb = Try.of(queryObject)
             .map(RoleDb::fromRoleDto)
-            .map(this::fetchRoleDb)
+            .map(this::readRoleDb)
             .orElseThrow(DatabaseSubService::handleError);
         return nonNull(roledb) ? roledb.toRoleDto() : null;
     }
 
-    protected RoleDb fetchRoleDb(RoleDb queryObject) {
+    private RoleDb readRoleDb(RoleDb queryObject) {
         return table.getItem(queryObject);
     }
 
+    /**
+     * Fetches a role from the role catalogue in memory.
+     *
+     * @param queryObject the role to fetch, only the role name is used.
+     * @return the role, or null when it does not exist.
+     */
+    protected RoleDb fetchRoleDb(RoleDb queryObject) {
+        return catalogue.getRole(queryObject.getName(), storedRoles).orElse(null);
+    }
+
+    /**
+     * Fetches roles from the role catalogue in memory.
+     *
+     * @param queryObjects the roles to fetch, only the role names are used.
+     * @return the roles that exist, in no particular order.
+     */
+    protected List<RoleDb> fetchRoleDbs(Collection<RoleDb> queryObjects) {
+        return queryObjects.stream()
+                   .map(RoleDb::getName)
+                   .distinct()
+                   .map(roleName -> catalogue.getRole(roleName, storedRoles))
+                   .flatMap(Optional::stream)
+                   .toList();
+    }
+
+    /**
+     * Reads the given roles from the database with as few BatchGetItem requests as possible. Roles that do not
+     * exist are left out of the result.
+     *
+     * @param queryObjects the roles to read, only the role names are used.
+     * @return the roles that exist in the database, in no particular order.
+     */
+    protected List<RoleDb> readRoleDbs(Collection<RoleDb> queryObjects) {
+        var keys = queryObjects.stream().map(this::primaryKey).toList();
+        return BatchOperations.getItems(dynamoDbClient, keys).stream()
+                   .map(RoleDb.TABLE_SCHEMA::mapToItem)
+                   .toList();
+    }
+
+    private Map<String, AttributeValue> primaryKey(RoleDb role) {
+        return table.keyFrom(role).keyMap(RoleDb.TABLE_SCHEMA, TableMetadata.primaryIndexName());
+    }
+
     /**
      * Fetches a role from the database.
      *
@@ -95,5 +155,58 @@ public class RoleService extends DatabaseSubService {
 
         var updatedRole = originalRole.copy().withAccessRights(roleToUpdate.getAccessRights()).build();
         table.putItem(RoleDb.fromRoleDto(updatedRole));
+        roleCatalogueChanged();
+    }
+
+    private void roleCatalogueChanged() {
+        dynamoDbClient.updateItem(UpdateItemRequest.builder()
+                                      .tableName(Constants.USERS_AND_ROLES_TABLE)
+                                      .key(roleCatalogueVersionKey())
+                                      .updateExpression("ADD #version :one")
+                                      .expressionAttributeNames(Map.of("#version", VERSION_FIELD))
+                                      .expressionAttributeValues(Map.of(":one", AttributeValue.fromN("1")))
+                                      .build());
+        catalogue.invalidate();
+    }
+
+    private long readRoleCatalogueVersion() {
+        var item = dynamoDbClient.getItem(GetItemRequest.builder()
+                                              .tableName(Constants.USERS_AND_ROLES_TABLE)
+                                              .key(roleCatalogueVersionKey())
+                                              .consistentRead(true)
+                                              .build())
+                       .item();
+        return Optional.ofNullable(item)
+                   .map(attributes -> attributes.get(VERSION_FIELD))
+                   .map(AttributeValue::n)
+                   .map(Long::parseLong)
+                   .orElse(0L);
+    }
+
+    private static Map<String, AttributeValue> roleCatalogueVersionKey() {
+        return Map.of(PRIMARY_KEY_HASH_KEY, AttributeValue.fromS(ROLE_CATALOGUE_VERSION_KEY),
+                      PRIMARY_KEY_RANGE_KEY, AttributeValue.fromS(ROLE_CATALOGUE_VERSION_KEY));
+    }
+
+    private static Duration roleCatalogueTimeToLive() {
+        return new Environment().readEnvOpt(ROLE_CATALOGUE_TIME_TO_LIVE_ENV_NAME)
+                   .map(Duration::parse)
+                   .orElse(DEFAULT_ROLE_CATALOGUE_TIME_TO_LIVE);
+    }
+
+    private final class StoredRoles implements RoleCatalogue.Source {
+
+        @Override
+        public long readVersion() {
+            return readRoleCatalogueVersion();
+        }
+
+        @Override
+        public Collection<RoleDb> loadRoles() {
+            var allRoles = Arrays.stream(RoleName.values())
+                               .map(roleName -> RoleDb.newBuilder().withName(roleName).build())
+                               .toList();
+            return readRoleDbs(allRoles);
+        }
     }
 }
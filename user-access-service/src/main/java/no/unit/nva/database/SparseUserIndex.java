@@ -0,0 +1,137 @@
+package no.unit.nva.database;
+
+import no.unit.nva.database.IdentityService.Constants;
+import no.unit.nva.useraccessservice.dao.UserDao;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.Delete;
+import software.amazon.awssdk.services.dynamodb.model.Put;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static java.util.Objects.isNull;
+import static no.unit.nva.useraccessservice.constants.DatabaseIndexDetails.PRIMARY_KEY_HASH_KEY;
+import static no.unit.nva.useraccessservice.constants.DatabaseIndexDetails.PRIMARY_KEY_RANGE_KEY;
+import static no.unit.nva.useraccessservice.dao.DynamoEntryWithRangeKey.FIELD_DELIMITER;
+import static no.unit.nva.useraccessservice.dao.UserDao.INSTITUTION_FIELD;
+import static no.unit.nva.useraccessservice.dao.UserDao.USERNAME_FIELD;
+import static no.unit.nva.useraccessservice.interfaces.Typed.TYPE_FIELD;
+
+/**
+ * An index of users kept as small items in the users and roles table, next to the users themselves. Each entry has
+ * its own hash and range key, and holds the username and institution of the user it points to. Entries are written
+ * and deleted in the same transaction as the user, and are found with a query on the hash key, optionally with
+ * begins_with on the range key.
+ */
+abstract class SparseUserIndex {
+
+    private static final String HASH_KEY_VALUE = ":hashKey";
+    private static final String RANGE_KEY_PREFIX_VALUE = ":rangeKeyPrefix";
+
+    private final DynamoDbClient client;
+
+    protected SparseUserIndex(DynamoDbClient client) {
+        this.client = client;
+    }
+
+    /**
+     * The writes that bring the entries of a user in step with the change, to be written in the same transaction as
+     * the user: a put for each entry the user has gained and a delete for each entry it has lost.
+     *
+     * @param before the user as stored before the change, or null if the user is new.
+     * @param after  the user as stored after the change.
+     */
+    List<TransactWriteItem> changes(UserDao before, UserDao after) {
+        var existingEntries = isNull(before) ? Set.<Map<String, AttributeValue>>of() : entries(before);
+        var desiredEntries = entries(after);
+        return Stream.concat(
+            desiredEntries.stream()
+                .filter(entry -> !existingEntries.contains(entry))
+                .map(entry -> TransactWriteItem.builder()
+                                  .put(Put.builder().tableName(Constants.USERS_AND_ROLES_TABLE).item(entry).build())
+                                  .build()),
+            existingEntries.stream()
+                .filter(entry -> !desiredEntries.contains(entry))
+                .map(entry -> TransactWriteItem.builder()
+                                  .delete(Delete.builder()
+                                              .tableName(Constants.USERS_AND_ROLES_TABLE)
+                                              .key(key(entry))
+                                              .build())
+                                  .build())
+        ).toList();
+    }
+
+    /**
+     * Writes all the entries the user should have, without deleting any. Used to backfill users that were stored
+     * before the index existed, where entries a concurrent change leaves behind are filtered out when read.
+     */
+    void writeAll(UserDao user) {
+        var writes = entries(user).stream()
+                         .map(entry -> WriteRequest.builder().putRequest(PutRequest.builder().item(entry).build())
+                                           .build())
+                         .toList();
+        BatchOperations.writeItems(client, writes);
+    }
+
+    /**
+     * The entries the user should have in the index.
+     */
+    protected abstract Set<Map<String, AttributeValue>> entries(UserDao user);
+
+    protected static Map<String, AttributeValue> entry(String type, String hashKey, String rangeKey, UserDao user) {
+        return Map.of(PRIMARY_KEY_HASH_KEY, AttributeValue.fromS(hashKey),
+                      PRIMARY_KEY_RANGE_KEY, AttributeValue.fromS(rangeKey),
+                      TYPE_FIELD, AttributeValue.fromS(type),
+                      USERNAME_FIELD, AttributeValue.fromS(user.getUsername()),
+                      INSTITUTION_FIELD, AttributeValue.fromS(user.getInstitution().toString()));
+    }
+
+    protected static String join(String... parts) {
+        return String.join(FIELD_DELIMITER, parts);
+    }
+
+    /**
+     * The usernames of all entries under the hash key, in range key order. Pages are read only as far as the stream is
+     * consumed.
+     */
+    protected Stream<String> usernames(String hashKey) {
+        return usernames(QueryRequest.builder()
+                             .keyConditionExpression("#hashKey = " + HASH_KEY_VALUE)
+                             .expressionAttributeNames(Map.of("#hashKey", PRIMARY_KEY_HASH_KEY,
+                                                              "#username", USERNAME_FIELD))
+                             .expressionAttributeValues(Map.of(HASH_KEY_VALUE, AttributeValue.fromS(hashKey))));
+    }
+
+    /**
+     * The usernames of the entries under the hash key whose range key starts with the prefix, in range key order.
+     * Pages are read only as far as the stream is consumed.
+     */
+    protected Stream<String> usernames(String hashKey, String rangeKeyPrefix) {
+        return usernames(QueryRequest.builder()
+                             .keyConditionExpression("#hashKey = " + HASH_KEY_VALUE
+                                                     + " AND begins_with(#rangeKey, " + RANGE_KEY_PREFIX_VALUE + ")")
+                             .expressionAttributeNames(Map.of("#hashKey", PRIMARY_KEY_HASH_KEY,
+                                                              "#rangeKey", PRIMARY_KEY_RANGE_KEY,
+                                                              "#username", USERNAME_FIELD))
+                             .expressionAttributeValues(Map.of(HASH_KEY_VALUE, AttributeValue.fromS(hashKey),
+                                                               RANGE_KEY_PREFIX_VALUE,
+                                                               AttributeValue.fromS(rangeKeyPrefix))));
+    }
+
+    private Stream<String> usernames(QueryRequest.Builder request) {
+        var query = request.tableName(Constants.USERS_AND_ROLES_TABLE).projectionExpression("#username").build();
+        return client.queryPaginator(query).items().stream().map(item -> item.get(USERNAME_FIELD).s());
+    }
+
+    private static Map<String, AttributeValue> key(Map<String, AttributeValue> entry) {
+        return Map.of(PRIMARY_KEY_HASH_KEY, entry.get(PRIMARY_KEY_HASH_KEY),
+                      PRIMARY_KEY_RANGE_KEY, entry.get(PRIMARY_KEY_RANGE_KEY));
+    }
+}
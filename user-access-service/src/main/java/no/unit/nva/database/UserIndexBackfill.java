@@ -0,0 +1,56 @@
+package no.unit.nva.database;
+
+import no.unit.nva.database.IdentityService.Constants;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+
+import java.util.Map;
+
+import static no.unit.nva.useraccessservice.constants.DatabaseIndexDetails.PRIMARY_KEY_HASH_KEY;
+import static no.unit.nva.useraccessservice.constants.DatabaseIndexDetails.PRIMARY_KEY_RANGE_KEY;
+import static no.unit.nva.useraccessservice.interfaces.Typed.TYPE_FIELD;
+
+/**
+ * Records whether the sparse user indexes cover every user. Users stored before the indexes existed have no entries
+ * until a full scan has rewritten them, so the indexes may only be trusted once that scan has finished. The scan
+ * stores a marker item next to the users when it is done, and the marker is never removed.
+ */
+final class UserIndexBackfill {
+
+    public static final String TYPE_VALUE = "USER_INDEX_BACKFILL";
+    private static final Map<String, AttributeValue> MARKER_KEY = Map.of(PRIMARY_KEY_HASH_KEY,
+                                                                         AttributeValue.fromS(TYPE_VALUE),
+                                                                         PRIMARY_KEY_RANGE_KEY,
+                                                                         AttributeValue.fromS(TYPE_VALUE));
+
+    private final DynamoDbClient client;
+    private volatile boolean complete;
+
+    UserIndexBackfill(DynamoDbClient client) {
+        this.client = client;
+    }
+
+    /**
+     * Whether every user has its index entries. Once true, the answer is kept, since the marker is never removed.
+     */
+    boolean isComplete() {
+        if (!complete) {
+            complete = client.getItem(GetItemRequest.builder()
+                                          .tableName(Constants.USERS_AND_ROLES_TABLE)
+                                          .key(MARKER_KEY)
+                                          .build())
+                           .hasItem();
+        }
+        return complete;
+    }
+
+    void markComplete() {
+        var item = Map.of(PRIMARY_KEY_HASH_KEY, MARKER_KEY.get(PRIMARY_KEY_HASH_KEY),
+                          PRIMARY_KEY_RANGE_KEY, MARKER_KEY.get(PRIMARY_KEY_RANGE_KEY),
+                          TYPE_FIELD, AttributeValue.fromS(TYPE_VALUE));
+        client.putItem(PutItemRequest.builder().tableName(Constants.USERS_AND_ROLES_TABLE).item(item).build());
+        complete = true;
+    }
+}
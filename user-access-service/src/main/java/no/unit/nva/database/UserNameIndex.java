@@ -0,0 +1,97 @@
+package no.unit.nva.database;
+
+import no.unit.nva.useraccessservice.dao.UserDao;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.net.URI;
+import java.text.Normalizer;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.util.Objects.isNull;
+import static nva.commons.core.StringUtils.isBlank;
+
+/**
+ * Sparse index for searching the users of an institution by the start of their given name, family name, full name or
+ * username. The terms are normalized so that matching ignores case and diacritics, and treats the Norwegian letters
+ * æ, ø and å as ae, o and a.
+ */
+final class UserNameIndex extends SparseUserIndex {
+
+    public static final String TYPE_VALUE = "USER_NAME";
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    UserNameIndex(DynamoDbClient client) {
+        super(client);
+    }
+
+    /**
+     * Normalizes a name or search text: letters without diacritics in lower case, with words separated by single
+     * spaces.
+     */
+    static String normalize(String text) {
+        var lowerCase = text.toLowerCase(Locale.ROOT).replace("ø", "o").replace("æ", "ae");
+        var withoutMarks = COMBINING_MARKS.matcher(Normalizer.normalize(lowerCase, Normalizer.Form.NFD))
+                               .replaceAll("");
+        return SEPARATORS.matcher(withoutMarks).replaceAll(" ").strip();
+    }
+
+    /**
+     * The usernames of the users of the institution with a name or username that starts with the search text,
+     * according to the index, ordered by the matching name or username. Pages are read only as far as the stream is
+     * consumed.
+     */
+    Stream<String> usernames(URI institution, String searchText) {
+        var prefix = normalize(searchText);
+        if (prefix.isEmpty()) {
+            return Stream.empty();
+        }
+        return usernames(hashKey(institution), prefix).distinct();
+    }
+
+    /**
+     * The first of the user's normalized names and username, in index order, that starts with the search text. This
+     * is the term the user is listed under when searching the index.
+     */
+    static Optional<String> firstMatchingTerm(UserDao user, String searchText) {
+        var prefix = normalize(searchText);
+        return prefix.isEmpty()
+                   ? Optional.empty()
+                   : terms(user).filter(term -> term.startsWith(prefix)).min(Comparator.naturalOrder());
+    }
+
+    @Override
+    protected Set<Map<String, AttributeValue>> entries(UserDao user) {
+        if (isNull(user.getInstitution())) {
+            return Set.of();
+        }
+        return terms(user)
+                   .map(term -> entry(TYPE_VALUE, hashKey(user.getInstitution()), join(term, user.getUsername()),
+                                      user))
+                   .collect(Collectors.toSet());
+    }
+
+    private static Stream<String> terms(UserDao user) {
+        var fullName = Stream.of(user.getGivenName(), user.getFamilyName())
+                           .filter(Objects::nonNull)
+                           .collect(Collectors.joining(" "));
+        return Stream.of(user.getGivenName(), user.getFamilyName(), fullName, user.getUsername())
+                   .filter(term -> !isBlank(term))
+                   .map(UserNameIndex::normalize)
+                   .filter(term -> !term.isEmpty())
+                   .distinct();
+    }
+
+    private static String hashKey(URI institution) {
+        return join(TYPE_VALUE, institution.toString());
+    }
+}
@@ -0,0 +1,54 @@
+package no.unit.nva.database;
+
+import no.unit.nva.useraccessservice.dao.RoleDb;
+import no.unit.nva.useraccessservice.dao.UserDao;
+import no.unit.nva.useraccessservice.model.RoleName;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.net.URI;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Sparse index of the roles users have at their institution. For every role of a user, an entry is stored with the
+ * institution and role name as hash key and the username as range key. The users with a role at an institution are
+ * then found with one query, without reading the other users of the institution. Keying on the institution as well
+ * spreads a widely held role over one partition per institution.
+ */
+final class UserRoleIndex extends SparseUserIndex {
+
+    public static final String TYPE_VALUE = "USER_ROLE";
+
+    UserRoleIndex(DynamoDbClient client) {
+        super(client);
+    }
+
+    /**
+     * The usernames of the users that have the role at the institution, according to the index.
+     */
+    List<String> usernames(URI institution, RoleName roleName) {
+        return usernames(hashKey(institution, roleName)).toList();
+    }
+
+    @Override
+    protected Set<Map<String, AttributeValue>> entries(UserDao user) {
+        if (isNull(user.getInstitution())) {
+            return Set.of();
+        }
+        return user.getRolesNonNull().stream()
+                   .map(RoleDb::getName)
+                   .map(roleName -> entry(TYPE_VALUE, hashKey(user.getInstitution(), roleName), user.getUsername(),
+                                          user))
+                   .collect(Collectors.toCollection(HashSet::new));
+    }
+
+    private static String hashKey(URI institution, RoleName roleName) {
+        return join(TYPE_VALUE, institution.toString(), roleName.getValue());
+    }
+}
@@ -3,7 +3,11 @@ package no.unit.nva.database;
 import no.unit.nva.database.IdentityService.Constants;
 import no.unit.nva.useraccessservice.dao.RoleDb;
 import no.unit.nva.useraccessservice.dao.UserDao;
+import no.unit.nva.useraccessservice.exceptions.InvalidInputException;
+import no.unit.nva.useraccessservice.model.RoleDto;
+import no.unit.nva.useraccessservice.model.RoleName;
 import no.unit.nva.useraccessservice.model.UserDto;
+import no.unit.nva.useraccessservice.model.UserList;
 import nva.commons.apigateway.exceptions.ConflictException;
 import nva.commons.apigateway.exceptions.NotFoundException;
 import nva.commons.core.SingletonCollector;
@@ -13,24 +17,49 @@ import software.amazon.awssdk.enhanced.dynamodb.DynamoDbIndex;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
 import software.amazon.awssdk.enhanced.dynamodb.Expression;
 import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.TableMetadata;
 import software.amazon.awssdk.enhanced.dynamodb.model.Page;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
 import software.amazon.awssdk.enhanced.dynamodb.model.ScanEnhancedRequest;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.Put;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static java.util.Objects.nonNull;
+import static no.unit.nva.database.BatchOperations.MAX_BATCH_ATTEMPTS;
+import static no.unit.nva.database.BatchOperations.MAX_KEYS_PER_BATCH_GET;
 import static no.unit.nva.useraccessservice.constants.DatabaseIndexDetails.SEARCH_USERS_BY_CRISTIN_IDENTIFIERS;
 import static no.unit.nva.useraccessservice.constants.DatabaseIndexDetails.SEARCH_USERS_BY_INSTITUTION_INDEX_NAME;
+import static no.unit.nva.useraccessservice.dao.UserDao.FAMILY_NAME_FIELD;
+import static no.unit.nva.useraccessservice.dao.UserDao.GIVEN_NAME_FIELD;
+import static no.unit.nva.useraccessservice.dao.UserDao.INSTITUTION_FIELD;
+import static no.unit.nva.useraccessservice.dao.UserDao.ROLES_LIST;
 import static no.unit.nva.useraccessservice.dao.UserDao.TYPE_VALUE;
+import static no.unit.nva.useraccessservice.dao.UserDao.USERNAME_FIELD;
 import static no.unit.nva.useraccessservice.interfaces.Typed.TYPE_FIELD;
 import static nva.commons.core.attempt.Try.attempt;
 
@@ -40,16 +69,39 @@ public class UserService extends DatabaseSubService {
     public static final String GET_USER_DEBUG_MESSAGE = "Getting user: ";
     public static final String ADD_USER_DEBUG_MESSAGE = "Adding user: ";
     public static final String USER_ALREADY_EXISTS_ERROR_MESSAGE = "User already exists: ";
+    public static final String USER_CHANGED_DURING_UPDATE_MESSAGE = "User {} changed while updating it, attempt {}";
+    private static final String CONDITIONAL_CHECK_FAILED = "ConditionalCheckFailed";
     public static final URI EMPTY_CRISTIN_ORG_ID = null;
+    public static final int MAX_SCAN_SEGMENTS = 32;
+    public static final int DEFAULT_SCAN_SEGMENTS = 8;
+    public static final List<String> ALL_ATTRIBUTES = List.of();
+    public static final List<String> USERNAME_AND_ROLES = List.of(USERNAME_FIELD, ROLES_LIST);
+    // The attributes the role and name index entries are derived from, besides the username in the key.
+    private static final List<String> INDEXED_ATTRIBUTES = List.of(INSTITUTION_FIELD, ROLES_LIST, GIVEN_NAME_FIELD,
+                                                                   FAMILY_NAME_FIELD);
+    private static final Expression USER_TYPE_FILTER = Expression.builder()
+                                                           .expression("#type = :type")
+                                                           .putExpressionValue(":type",
+                                                                               AttributeValue.fromS(TYPE_VALUE))
+                                                           .putExpressionName("#type", TYPE_FIELD)
+                                                           .build();
     private static final Logger logger = LoggerFactory.getLogger(UserService.class);
+    private final DynamoDbClient dynamoDbClient;
     private final RoleService roleService;
+    private final UserRoleIndex roleIndex;
+    private final UserNameIndex nameIndex;
+    private final UserIndexBackfill indexBackfill;
     private final DynamoDbTable<UserDao> table;
     private final DynamoDbIndex<UserDao> cristinCredentialsIndex;
     private final DynamoDbIndex<UserDao> institutionsIndex;
 
     public UserService(DynamoDbClient client, RoleService roleService) {
         super(client);
+        this.dynamoDbClient = client;
         this.roleService = roleService;
+        this.roleIndex = new UserRoleIndex(client);
+        this.nameIndex = new UserNameIndex(client);
+        this.indexBackfill = new UserIndexBackfill(client);
         this.table = this.client.table(Constants.USERS_AND_ROLES_TABLE, UserDao.TABLE_SCHEMA);
         this.institutionsIndex = this.table.index(SEARCH_USERS_BY_INSTITUTION_INDEX_NAME);
         this.cristinCredentialsIndex = this.table.index(SEARCH_USERS_BY_CRISTIN_IDENTIFIERS);
@@ -77,10 +129,14 @@ public class UserService extends DatabaseSubService {
     }
 
     private UserDto attemptToFetchObject(UserDto queryObject) {
-        UserDao userDao = attempt(() -> UserDao.fromUserDto(queryObject))
+        UserDao userDao = attemptToFetchDao(queryObject);
+        return nonNull(userDao) ? userDao.toUserDto() : null;
+    }
+
+    private UserDao attemptToFetchDao(UserDto queryObject) {
+        return attempt(() -> UserDao.fromUserDto(queryObject))
             .map(this::fetchItem)
             .orElseThrow(DatabaseSubService::handleError);
-        return nonNull(userDao) ? userDao.toUserDto() : null;
     }
 
     private UserDao fetchItem(UserDao userDao) {
@@ -92,24 +148,63 @@ public class UserService extends DatabaseSubService {
      * migration-code
      */
     public List<UserDto> listAllUsers() {
+        var users = new ConcurrentLinkedQueue<UserDto>();
+        forEachUser(DEFAULT_SCAN_SEGMENTS, ALL_ATTRIBUTES, users::add);
+        return List.copyOf(users);
+    }
 
-        return this.table
-            .scan(buildScanRequestForAllUsers())
-            .stream()
-            .map(Page::items)
-            .flatMap(Collection::stream)
-            .filter(dao -> TYPE_VALUE.equals(dao.getType()))
-            .map(UserDao::toUserDto)
-            .toList();
+    /**
+     * Scans the whole table in parallel segments, one virtual thread per segment, and passes every user to the
+     * consumer as it is read. The consumer is called from several threads at once and must be thread-safe. If a
+     * segment or the consumer fails, the other segments are stopped and the failure is rethrown.
+     *
+     * @param segments   the number of segments to scan in parallel, at most {@link #MAX_SCAN_SEGMENTS}.
+     * @param attributes the user attributes to read, or an empty collection to read all of them. Users read with
+     *                   only some attributes must not be written back.
+     * @param consumer   receives the users.
+     */
+    @SuppressWarnings("PMD.DoNotUseThreads")
+    public void forEachUser(int segments, Collection<String> attributes, Consumer<UserDto> consumer) {
+        var totalSegments = Math.clamp(segments, 1, MAX_SCAN_SEGMENTS);
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var scans = IntStream.range(0, totalSegments)
+                            .mapToObj(segment -> executor.submit(
+                                () -> scanSegment(segment, totalSegments, attributes, consumer)))
+                            .toList();
+            scans.forEach(scan -> awaitSegment(scan, scans));
+        }
     }
 
-    private static ScanEnhancedRequest buildScanRequestForAllUsers() {
-        var expression = Expression.builder().expression("#type = :type")
-            .putExpressionValue(":type",
-                AttributeValue.builder().s(TYPE_VALUE).build())
-            .putExpressionName("#type", TYPE_FIELD)
-            .build();
-        return ScanEnhancedRequest.builder().filterExpression(expression).build();
+    private void scanSegment(int segment, int totalSegments, Collection<String> attributes,
+                             Consumer<UserDto> consumer) {
+        var request = ScanEnhancedRequest.builder()
+                          .segment(segment)
+                          .totalSegments(totalSegments)
+                          .filterExpression(USER_TYPE_FILTER);
+        if (!attributes.isEmpty()) {
+            request.attributesToProject(attributes);
+        }
+        for (var page : table.scan(request.build())) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            page.items().stream().map(UserDao::toUserDto).forEach(consumer);
+        }
+    }
+
+    private static void awaitSegment(Future<?> scan, List<Future<?>> allScans) {
+        try {
+            scan.get();
+        } catch (ExecutionException e) {
+            allScans.forEach(other -> other.cancel(true));
+            throw e.getCause() instanceof RuntimeException runtimeException
+                      ? runtimeException
+                      : new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            allScans.forEach(other -> other.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
     }
 
     /**
@@ -120,23 +215,181 @@ public class UserService extends DatabaseSubService {
      */
 
     public List<UserDto> listUsers(URI institutionId) {
+        return queryInstitution(institutionId).stream().map(UserDao::toUserDto)
+            .collect(Collectors.toList());
+    }
+
+    private List<UserDao> queryInstitution(URI institutionId) {
         QueryEnhancedRequest listUsersQuery = createListUsersByInstitutionQuery(institutionId);
         var result = institutionsIndex.query(listUsersQuery);
 
-        var users = result.stream()
+        return result.stream()
             .map(Page::items)
             .flatMap(Collection::stream)
             .toList();
-        return users.stream().map(UserDao::toUserDto)
-            .collect(Collectors.toList());
+    }
+
+    /**
+     * One page of the users of a specified institution. The users are the same as those returned by
+     * {@link #listUsers(URI)}.
+     *
+     * @param institutionId the id of the institution
+     * @param pageSize      the maximum number of users on the page
+     * @param cursor        the cursor returned with the previous page, or null for the first page
+     * @return the users on the page and the cursor for the next page, if there is one.
+     * @throws InvalidInputException when the cursor is not one returned by this method.
+     */
+    public UserList listUsers(URI institutionId, int pageSize, String cursor) throws InvalidInputException {
+        var request = createListUsersByInstitutionQueryBuilder(institutionId)
+                          .limit(pageSize);
+        if (nonNull(cursor)) {
+            request.exclusiveStartKey(PageCursor.decode(cursor));
+        }
+        var page = institutionsIndex.query(request.build()).stream().findFirst().orElseThrow();
+        var users = page.items().stream().map(UserDao::toUserDto).toList();
+        return UserList.fromPage(users, PageCursor.encode(page.lastEvaluatedKey()));
+    }
+
+    /**
+     * The users of a specified institution that have at least one of the specified roles. Once the role index has
+     * been backfilled, only the matching users are read. Until then all users of the institution are read and
+     * filtered, since users stored before the index existed have no entries in it.
+     *
+     * @param institutionId the id of the institution
+     * @param roles         the roles to look for
+     * @return the users of the institution with any of the roles.
+     */
+    public List<UserDto> listUsers(URI institutionId, Collection<RoleName> roles) {
+        if (!indexBackfill.isComplete()) {
+            return listUsers(institutionId).stream()
+                       .filter(user -> user.getRoles().stream().map(RoleDto::getRoleName).anyMatch(roles::contains))
+                       .toList();
+        }
+        var usernames = roles.stream()
+                            .flatMap(roleName -> roleIndex.usernames(institutionId, roleName).stream())
+                            .distinct()
+                            .toList();
+        return readUsers(institutionId, usernames).stream()
+                   .filter(user -> hasAnyRole(user, roles))
+                   .map(UserDao::toUserDto)
+                   .toList();
+    }
+
+    /**
+     * Searches the users of a specified institution by the start of their given name, family name, full name or
+     * username. Case and diacritics are ignored. The role filter is applied before the result is limited. Once the
+     * name index has been backfilled, users are read from it in batches until enough matches are found. Until then
+     * all users of the institution are read and matched in memory.
+     *
+     * @param institutionId the id of the institution
+     * @param searchText    the text the name or username should start with
+     * @param roles         the roles the users should have any of, or an empty collection for any user
+     * @param maxResults    the maximum number of users to return
+     * @return the matching users, ordered by the name or username that matched.
+     */
+    public List<UserDto> searchUsers(URI institutionId, String searchText, Collection<RoleName> roles,
+                                     int maxResults) {
+        var matches = indexBackfill.isComplete()
+                          ? searchNameIndex(institutionId, searchText, roles, maxResults)
+                          : searchAllUsersOfInstitution(institutionId, searchText, roles, maxResults);
+        return matches.stream().map(UserDao::toUserDto).toList();
+    }
+
+    private List<UserDao> searchNameIndex(URI institutionId, String searchText, Collection<RoleName> roles,
+                                          int maxResults) {
+        var matches = new ArrayList<UserDao>();
+        var usernames = nameIndex.usernames(institutionId, searchText).iterator();
+        while (matches.size() < maxResults && usernames.hasNext()) {
+            var batchSize = roles.isEmpty() ? maxResults - matches.size() : MAX_KEYS_PER_BATCH_GET;
+            var batch = new ArrayList<String>();
+            while (batch.size() < batchSize && usernames.hasNext()) {
+                batch.add(usernames.next());
+            }
+            var users = readUsers(institutionId, batch).stream()
+                            .collect(Collectors.toMap(UserDao::getUsername, Function.identity()));
+            batch.stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .filter(user -> roles.isEmpty() || hasAnyRole(user, roles))
+                .limit(maxResults - matches.size())
+                .forEach(matches::add);
+        }
+        return matches;
+    }
+
+    private List<UserDao> searchAllUsersOfInstitution(URI institutionId, String searchText,
+                                                      Collection<RoleName> roles, int maxResults) {
+        return queryInstitution(institutionId).stream()
+                   .filter(user -> roles.isEmpty() || hasAnyRole(user, roles))
+                   .flatMap(user -> UserNameIndex.firstMatchingTerm(user, searchText)
+                                        .map(term -> Map.entry(term, user))
+                                        .stream())
+                   .sorted(Comparator.comparing(Map.Entry<String, UserDao>::getKey)
+                               .thenComparing(match -> match.getValue().getUsername()))
+                   .limit(maxResults)
+                   .map(Map.Entry::getValue)
+                   .toList();
+    }
+
+    // Index entries may briefly point to users that have moved, so the users are checked after they are read.
+    private List<UserDao> readUsers(URI institutionId, List<String> usernames) {
+        var keys = usernames.stream().map(this::primaryKey).toList();
+        return BatchOperations.getItems(dynamoDbClient, keys).stream()
+                   .map(UserDao.TABLE_SCHEMA::mapToItem)
+                   .filter(user -> institutionId.equals(user.getInstitution()))
+                   .toList();
+    }
+
+    private Map<String, AttributeValue> primaryKey(String username) {
+        var user = UserDao.newBuilder().withUsername(username).build();
+        return table.keyFrom(user).keyMap(UserDao.TABLE_SCHEMA, TableMetadata.primaryIndexName());
+    }
+
+    private static boolean hasAnyRole(UserDao user, Collection<RoleName> roles) {
+        return user.getRolesNonNull().stream().map(RoleDb::getName).anyMatch(roles::contains);
+    }
+
+    /**
+     * Copies the stored access rights of a role into the users that have the role. The job stores its progress and
+     * continues where it stopped when it is run again.
+     *
+     * @param roleName    the role to propagate.
+     * @param hasTimeLeft checked before each page of users.
+     * @return true when every user has the current role, false when the job must be run again to finish.
+     * @throws NotFoundException when the role does not exist.
+     */
+    public boolean propagateRole(RoleName roleName, BooleanSupplier hasTimeLeft) throws NotFoundException {
+        return new RolePropagationJob(dynamoDbClient).run(roleName, hasTimeLeft);
+    }
+
+    /**
+     * Writes the role and name index entries of a user, whether or not they exist already.
+     *
+     * @param user the user to index.
+     */
+    public void indexUser(UserDto user) {
+        var userDao = UserDao.fromUserDto(user);
+        roleIndex.writeAll(userDao);
+        nameIndex.writeAll(userDao);
+    }
+
+    /**
+     * Records that every user has been indexed, so that queries may be answered from the indexes from now on. Call
+     * this only when a scan that indexed every user has finished.
+     */
+    public void completeIndexBackfill() {
+        indexBackfill.markComplete();
     }
 
     private QueryEnhancedRequest createListUsersByInstitutionQuery(URI institution) {
+        return createListUsersByInstitutionQueryBuilder(institution).build();
+    }
+
+    private QueryEnhancedRequest.Builder createListUsersByInstitutionQueryBuilder(URI institution) {
         return QueryEnhancedRequest.builder()
             .queryConditional(
                 QueryConditional.keyEqualTo(Key.builder().partitionValue(institution.toString()).build()))
-            .consistentRead(false)
-            .build();
+            .consistentRead(false);
     }
 
     /**
@@ -151,12 +404,45 @@ public class UserService extends DatabaseSubService {
             logger.debug(ADD_USER_DEBUG_MESSAGE + convertToStringOrWriteErrorMessage(user));
         }
 
-        checkUserDoesNotAlreadyExist(user);
         UserDao databaseEntryWithSyncedRoles = syncRoleDetails(UserDao.fromUserDto(user));
-        table.putItem(databaseEntryWithSyncedRoles);
+        var indexChanges = indexChanges(null, databaseEntryWithSyncedRoles);
+        if (indexChanges.isEmpty()) {
+            putItemIfNotExists(table, databaseEntryWithSyncedRoles,
+                               USER_ALREADY_EXISTS_ERROR_MESSAGE + user.getUsername());
+        } else {
+            var put = Put.builder()
+                          .tableName(Constants.USERS_AND_ROLES_TABLE)
+                          .item(toItem(databaseEntryWithSyncedRoles))
+                          .conditionExpression(PRIMARY_KEY_DOES_NOT_EXIST.expression())
+                          .expressionAttributeNames(PRIMARY_KEY_DOES_NOT_EXIST.expressionNames())
+                          .build();
+            try {
+                writeTransaction(TransactWriteItem.builder().put(put).build(), indexChanges);
+            } catch (TransactionCanceledException e) {
+                throw userWriteFailed(e)
+                          ? new ConflictException(USER_ALREADY_EXISTS_ERROR_MESSAGE + user.getUsername())
+                          : e;
+            }
+        }
         return databaseEntryWithSyncedRoles.toUserDto();
     }
 
+    private List<TransactWriteItem> indexChanges(UserDao before, UserDao after) {
+        return Stream.concat(roleIndex.changes(before, after).stream(), nameIndex.changes(before, after).stream())
+                   .toList();
+    }
+
+    // The user write comes first, so that a cancellation caused by it can be told apart from one caused by the index.
+    private void writeTransaction(TransactWriteItem userWrite, List<TransactWriteItem> indexChanges) {
+        var writes = Stream.concat(Stream.of(userWrite), indexChanges.stream()).toList();
+        dynamoDbClient.transactWriteItems(TransactWriteItemsRequest.builder().transactItems(writes).build());
+    }
+
+    private static boolean userWriteFailed(TransactionCanceledException exception) {
+        return exception.hasCancellationReasons()
+               && CONDITIONAL_CHECK_FAILED.equals(exception.cancellationReasons().getFirst().code());
+    }
+
     private UserDao syncRoleDetails(UserDao updateObject) {
         return userWithSyncedRoles(updateObject);
     }
@@ -166,51 +452,64 @@ public class UserService extends DatabaseSubService {
         return currentUser.copy().withRoles(roles).build();
     }
 
-    // TODO: use batch query for minimizing the cost.
     private List<RoleDb> currentRoles(UserDao currentUser) {
-        return currentUser.getRolesNonNull()
-            .stream()
-            .map(roleService::fetchRoleDb)
-            .filter(Objects::nonNull)
-            .collect(Collectors.toList());
-    }
-
-    private void checkUserDoesNotAlreadyExist(UserDto user) throws ConflictException {
-        if (userAlreadyExists(user)) {
-            throw new ConflictException(USER_ALREADY_EXISTS_ERROR_MESSAGE + user.getUsername());
-        }
-    }
-
-    private boolean userAlreadyExists(UserDto user) {
-        return this.getUserAsOptional(user).isPresent();
+        var roles = currentUser.getRolesNonNull();
+        return roles.isEmpty() ? List.of() : roleService.fetchRoleDbs(roles);
     }
 
     /**
-     * Update an existing user.
+     * Update an existing user. Only the attributes that differ from the stored user are written, and nothing is
+     * written when no attribute differs. When the change affects the role or name index, the user and its index
+     * entries are written in one transaction, which is retried if the user changes in the meantime.
      *
      * @param updateObject the updated user information.
+     * @return the user as stored after the update.
      * @throws NotFoundException when there is no user with the same username in the database.
      */
-    public void updateUser(UserDto updateObject) throws NotFoundException {
-
-        UserDto existingUser = getExistingUserOrSendNotFoundError(updateObject);
+    public UserDto updateUser(UserDto updateObject) throws NotFoundException {
         UserDao updatedObjectWithSyncedRoles = syncRoleDetails(UserDao.fromUserDto(updateObject));
-        if (userHasChanged(existingUser, updatedObjectWithSyncedRoles)) {
-            updateTable(updatedObjectWithSyncedRoles);
+        var key = table.keyFrom(updatedObjectWithSyncedRoles)
+                      .keyMap(UserDao.TABLE_SCHEMA, TableMetadata.primaryIndexName());
+        for (int attempt = 1; ; attempt++) {
+            UserDao existingUser = getExistingUserOrSendNotFoundError(updateObject);
+            var update = ItemUpdate.between(toItem(existingUser), toItem(updatedObjectWithSyncedRoles), key.keySet());
+            if (update.isEmpty()) {
+                return existingUser.toUserDto();
+            }
+            var indexChanges = indexChanges(existingUser, updatedObjectWithSyncedRoles);
+            if (indexChanges.isEmpty()) {
+                return updateTable(update, key, updateObject);
+            }
+            try {
+                writeTransaction(update.toTransactWriteItem(Constants.USERS_AND_ROLES_TABLE, key, INDEXED_ATTRIBUTES),
+                                 indexChanges);
+                return updatedObjectWithSyncedRoles.toUserDto();
+            } catch (TransactionCanceledException e) {
+                if (!userWriteFailed(e) || attempt == MAX_BATCH_ATTEMPTS) {
+                    throw e;
+                }
+                logger.info(USER_CHANGED_DURING_UPDATE_MESSAGE, updateObject.getUsername(), attempt);
+            }
         }
     }
 
-    private UserDto getExistingUserOrSendNotFoundError(UserDto queryObject) throws NotFoundException {
-        return getUserAsOptional(queryObject)
+    private UserDao getExistingUserOrSendNotFoundError(UserDto queryObject) throws NotFoundException {
+        return Optional.ofNullable(attemptToFetchDao(queryObject))
             .orElseThrow(() -> new NotFoundException(USER_NOT_FOUND_MESSAGE + queryObject.getUsername()));
     }
 
-    private boolean userHasChanged(UserDto existingUser, UserDao desiredUpdateWithSyncedRoles) {
-        return !desiredUpdateWithSyncedRoles.equals(UserDao.fromUserDto(existingUser));
+    private static Map<String, AttributeValue> toItem(UserDao user) {
+        return UserDao.TABLE_SCHEMA.itemToMap(user, true);
     }
 
-    private void updateTable(UserDao userUpdateWithSyncedRoles) {
-        table.putItem(userUpdateWithSyncedRoles);
+    private UserDto updateTable(ItemUpdate update, Map<String, AttributeValue> key, UserDto updateObject)
+        throws NotFoundException {
+        try {
+            var response = dynamoDbClient.updateItem(update.toRequest(Constants.USERS_AND_ROLES_TABLE, key));
+            return UserDao.TABLE_SCHEMA.mapToItem(response.attributes()).toUserDto();
+        } catch (ConditionalCheckFailedException e) {
+            throw new NotFoundException(USER_NOT_FOUND_MESSAGE + updateObject.getUsername());
+        }
     }
 
     public List<UserDto> getUsersByByCristinId(URI cristinPersonId) {
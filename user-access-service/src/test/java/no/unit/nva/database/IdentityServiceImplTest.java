@@ -1,8 +1,11 @@
 package no.unit.nva.database;
 
+import no.unit.nva.useraccessservice.dao.UserDao;
 import no.unit.nva.useraccessservice.exceptions.InvalidEntryInternalException;
 import no.unit.nva.useraccessservice.exceptions.InvalidInputException;
 import no.unit.nva.useraccessservice.model.RoleDto;
+import no.unit.nva.useraccessservice.model.RoleName;
+import no.unit.nva.useraccessservice.model.UserDto;
 import nva.commons.apigateway.exceptions.ConflictException;
 import nva.commons.apigateway.exceptions.NotFoundException;
 import nva.commons.logutils.LogRecorder;
@@ -12,22 +15,45 @@ import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.function.Executable;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
 import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
 
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static no.unit.nva.database.RoleService.ROLE_NOT_FOUND_MESSAGE;
 import static nva.commons.apigateway.AccessRight.MANAGE_DOI;
 import static nva.commons.apigateway.AccessRight.MANAGE_PUBLISHING_REQUESTS;
+import static no.unit.nva.testutils.RandomDataGenerator.randomString;
+import static no.unit.nva.testutils.RandomDataGenerator.randomUri;
 import static nva.commons.core.attempt.Try.attempt;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class IdentityServiceImplTest extends LocalIdentityService {
@@ -67,6 +93,258 @@ public class IdentityServiceImplTest extends LocalIdentityService {
         return failingClient;
     }
 
+    @Test
+    void shouldAddUserWithoutReadingItFirst() throws ConflictException {
+        var client = spy(localDynamo);
+        var service = new IdentityServiceImpl(client);
+
+        service.addUser(EntityUtils.createUser());
+
+        verify(client, never()).getItem(any(GetItemRequest.class));
+    }
+
+    @Test
+    void shouldNotWriteWhenUpdatedUserIsUnchanged() throws ConflictException, NotFoundException {
+        var user = databaseService.addUser(EntityUtils.createUser());
+        var client = spy(localDynamo);
+
+        var updatedUser = new IdentityServiceImpl(client).updateUser(user);
+
+        assertThat(updatedUser, is(equalTo(user)));
+        verify(client, never()).updateItem(any(UpdateItemRequest.class));
+        verify(client, never()).putItem(any(PutItemRequest.class));
+    }
+
+    @Test
+    void shouldWriteOnlyChangedAttributesAndReturnUpdatedUserWithoutReadingItAgain()
+        throws ConflictException, NotFoundException {
+        var user = databaseService.addUser(EntityUtils.createUser().copy().withGivenName("Given").build());
+        var client = spy(localDynamo);
+        var change = user.copy().withGivenName(null).withFamilyName("Family").build();
+
+        var updatedUser = new IdentityServiceImpl(client).updateUser(change);
+
+        assertThat(updatedUser, is(equalTo(change)));
+        assertThat(databaseService.getUser(user).getGivenName(), is(nullValue()));
+        verify(client, times(1)).getItem(any(GetItemRequest.class));
+        verify(client, times(1)).updateItem(any(UpdateItemRequest.class));
+        verify(client, never()).putItem(any(PutItemRequest.class));
+    }
+
+    @Test
+    void shouldWriteUserAndItsIndexEntriesInOneTransaction() throws ConflictException, InvalidInputException {
+        addRoleIfMissing(RoleName.DOI_CURATOR);
+        var client = spy(localDynamo);
+        var user = EntityUtils.createUser().copy()
+                       .withInstitution(randomUri())
+                       .withGivenName("Given")
+                       .withRoles(List.of(EntityUtils.createRole(RoleName.DOI_CURATOR)))
+                       .build();
+
+        new IdentityServiceImpl(client).addUser(user);
+
+        verify(client, times(1)).transactWriteItems(any(TransactWriteItemsRequest.class));
+        verify(client, never()).batchWriteItem(any(BatchWriteItemRequest.class));
+    }
+
+    @Test
+    void shouldReturnConflictWhenAddingIndexedUserThatExists() throws ConflictException, InvalidInputException {
+        var user = addUserWithRole(randomUri(), RoleName.DOI_CURATOR);
+
+        assertThrows(ConflictException.class, () -> databaseService.addUser(user));
+    }
+
+    @Test
+    void shouldListUsersWithRoleFromAllUsersOfInstitutionUntilIndexBackfillIsComplete()
+        throws InvalidInputException {
+        var institution = randomUri();
+        addRoleIfMissing(RoleName.DOI_CURATOR);
+        var legacyUser = EntityUtils.createUser().copy()
+                             .withInstitution(institution)
+                             .withRoles(List.of(EntityUtils.createRole(RoleName.DOI_CURATOR)))
+                             .build();
+        storeWithoutIndexEntries(legacyUser);
+        var service = new IdentityServiceImpl(localDynamo);
+
+        var usersBeforeBackfill = service.listUsers(institution, List.of(RoleName.DOI_CURATOR));
+        service.completeIndexBackfill();
+        var usersBeforeIndexing = service.listUsers(institution, List.of(RoleName.DOI_CURATOR));
+        service.indexUser(legacyUser);
+        var usersAfterIndexing = service.listUsers(institution, List.of(RoleName.DOI_CURATOR));
+
+        assertThat(usersBeforeBackfill, containsInAnyOrder(legacyUser));
+        assertThat(usersBeforeIndexing, is(empty()));
+        assertThat(usersAfterIndexing, containsInAnyOrder(legacyUser));
+    }
+
+    private void storeWithoutIndexEntries(UserDto user) {
+        DynamoDbEnhancedClient.builder().dynamoDbClient(localDynamo).build()
+            .table(IdentityService.Constants.USERS_AND_ROLES_TABLE, UserDao.TABLE_SCHEMA)
+            .putItem(UserDao.fromUserDto(user));
+    }
+
+    @Test
+    void shouldListOnlyUsersWithRoleAtInstitution() throws ConflictException, InvalidInputException {
+        new IdentityServiceImpl(localDynamo).completeIndexBackfill();
+        var institution = randomUri();
+        var expectedUser = addUserWithRole(institution, RoleName.DOI_CURATOR);
+        addUserWithRole(institution, RoleName.SUPPORT_CURATOR);
+        addUserWithRole(randomUri(), RoleName.DOI_CURATOR);
+
+        var users = databaseService.listUsers(institution, List.of(RoleName.DOI_CURATOR));
+
+        assertThat(users, containsInAnyOrder(expectedUser));
+    }
+
+    @Test
+    void shouldListUserUnderNewRoleOnlyWhenRoleIsChanged()
+        throws ConflictException, InvalidInputException, NotFoundException {
+        new IdentityServiceImpl(localDynamo).completeIndexBackfill();
+        var institution = randomUri();
+        var user = addUserWithRole(institution, RoleName.DOI_CURATOR);
+        addRoleIfMissing(RoleName.SUPPORT_CURATOR);
+
+        var updatedUser = databaseService.updateUser(
+            user.copy().withRoles(List.of(EntityUtils.createRole(RoleName.SUPPORT_CURATOR))).build());
+
+        assertThat(databaseService.listUsers(institution, List.of(RoleName.DOI_CURATOR)), is(empty()));
+        assertThat(databaseService.listUsers(institution, List.of(RoleName.SUPPORT_CURATOR)),
+                   containsInAnyOrder(updatedUser));
+    }
+
+    @Test
+    void shouldFindUsersByStartOfNameIgnoringCaseAndDiacritics() throws ConflictException, NotFoundException {
+        new IdentityServiceImpl(localDynamo).completeIndexBackfill();
+        var institution = randomUri();
+        var bjorn = databaseService.addUser(EntityUtils.createUser().copy()
+                                                .withUsername("user-" + randomString())
+                                                .withInstitution(institution)
+                                                .withGivenName("Bjørn")
+                                                .withFamilyName("Ås")
+                                                .build());
+        var other = databaseService.addUser(EntityUtils.createUser().copy()
+                                                .withUsername("user-" + randomString())
+                                                .withInstitution(institution)
+                                                .withGivenName("Kari")
+                                                .withFamilyName("Nordmann")
+                                                .build());
+
+        assertThat(databaseService.searchUsers(institution, "BJOR", List.of(), 10), containsInAnyOrder(bjorn));
+        assertThat(databaseService.searchUsers(institution, "bjørn as", List.of(), 10), containsInAnyOrder(bjorn));
+        assertThat(databaseService.searchUsers(institution, "as", List.of(), 10), containsInAnyOrder(bjorn));
+        assertThat(databaseService.searchUsers(randomUri(), "bjorn", List.of(), 10), is(empty()));
+
+        var renamed = databaseService.updateUser(other.copy().withFamilyName("Aasen").build());
+        assertThat(databaseService.searchUsers(institution, "nord", List.of(), 10), is(empty()));
+        assertThat(databaseService.searchUsers(institution, "aas", List.of(), 10), containsInAnyOrder(renamed));
+    }
+
+    @Test
+    void shouldFilterSearchedUsersByRoleBeforeLimitingTheResult()
+        throws ConflictException, InvalidInputException {
+        new IdentityServiceImpl(localDynamo).completeIndexBackfill();
+        var institution = randomUri();
+        addUserWithName(institution, "Anne", RoleName.SUPPORT_CURATOR);
+        var curator = addUserWithName(institution, "Anneli", RoleName.DOI_CURATOR);
+
+        var users = databaseService.searchUsers(institution, "anne", List.of(RoleName.DOI_CURATOR), 1);
+
+        assertThat(users, contains(curator));
+    }
+
+    @Test
+    void shouldSearchAllUsersOfInstitutionUntilIndexBackfillIsComplete() throws InvalidInputException {
+        var institution = randomUri();
+        addRoleIfMissing(RoleName.DOI_CURATOR);
+        var legacyUser = EntityUtils.createUser().copy()
+                             .withInstitution(institution)
+                             .withGivenName("Bjørn")
+                             .withRoles(List.of(EntityUtils.createRole(RoleName.DOI_CURATOR)))
+                             .build();
+        storeWithoutIndexEntries(legacyUser);
+        var service = new IdentityServiceImpl(localDynamo);
+
+        var usersBeforeBackfill = service.searchUsers(institution, "bjorn", List.of(RoleName.DOI_CURATOR), 10);
+        service.completeIndexBackfill();
+        var usersAfterBackfill = service.searchUsers(institution, "bjorn", List.of(RoleName.DOI_CURATOR), 10);
+
+        assertThat(usersBeforeBackfill, contains(legacyUser));
+        assertThat(usersAfterBackfill, is(empty()));
+    }
+
+    private UserDto addUserWithName(URI institution, String givenName, RoleName roleName)
+        throws ConflictException, InvalidInputException {
+        addRoleIfMissing(roleName);
+        return databaseService.addUser(EntityUtils.createUser().copy()
+                                           .withUsername("user-" + randomString())
+                                           .withInstitution(institution)
+                                           .withGivenName(givenName)
+                                           .withFamilyName(randomString())
+                                           .withRoles(List.of(EntityUtils.createRole(roleName)))
+                                           .build());
+    }
+
+    @Test
+    void shouldCopyChangedAccessRightsOfRoleToEveryUserWithRole()
+        throws ConflictException, InvalidInputException, NotFoundException {
+        var curators = List.of(addUserWithRole(randomUri(), RoleName.DOI_CURATOR),
+                               addUserWithRole(randomUri(), RoleName.DOI_CURATOR));
+        var other = addUserWithRole(randomUri(), RoleName.SUPPORT_CURATOR);
+        var changedRole = EntityUtils.createRole(RoleName.DOI_CURATOR, MANAGE_DOI, MANAGE_PUBLISHING_REQUESTS);
+        databaseService.updateRole(changedRole);
+
+        var completed = databaseService.propagateRole(RoleName.DOI_CURATOR, () -> true);
+
+        assertThat(completed, is(equalTo(true)));
+        for (var curator : curators) {
+            assertThat(databaseService.getUser(curator).getRoles(), containsInAnyOrder(changedRole));
+        }
+        assertThat(databaseService.getUser(other), is(equalTo(other)));
+    }
+
+    @Test
+    void shouldFindUsersInOneScanAndContinueWhereItStoppedWhenPropagationIsRunAgain()
+        throws ConflictException, InvalidInputException, NotFoundException {
+        var institution = randomUri();
+        var curators = new ArrayList<UserDto>();
+        for (int i = 0; i < RolePropagationJob.USERS_PER_TRANSACTION + 5; i++) {
+            curators.add(addUserWithRole(institution, RoleName.DOI_CURATOR));
+        }
+        var changedRole = EntityUtils.createRole(RoleName.DOI_CURATOR, MANAGE_PUBLISHING_REQUESTS);
+        databaseService.updateRole(changedRole);
+        var chunksLeft = new AtomicInteger(1);
+
+        var completed = databaseService.propagateRole(RoleName.DOI_CURATOR, () -> chunksLeft.getAndDecrement() > 0);
+        var client = spy(localDynamo);
+        var completedAfterResuming = new IdentityServiceImpl(client).propagateRole(RoleName.DOI_CURATOR, () -> true);
+
+        assertThat(completed, is(equalTo(false)));
+        assertThat(completedAfterResuming, is(equalTo(true)));
+        verify(client, times(1)).scan(any(ScanRequest.class));
+        verify(client, times(1)).transactWriteItems(any(TransactWriteItemsRequest.class));
+        for (var curator : curators) {
+            assertThat(databaseService.getUser(curator).getRoles(), containsInAnyOrder(changedRole));
+        }
+    }
+
+    private UserDto addUserWithRole(URI institution, RoleName roleName) throws ConflictException,
+                                                                               InvalidInputException {
+        addRoleIfMissing(roleName);
+        var user = EntityUtils.createUser().copy()
+                       .withInstitution(institution)
+                       .withRoles(List.of(EntityUtils.createRole(roleName)))
+                       .build();
+        return databaseService.addUser(user);
+    }
+
+    private void addRoleIfMissing(RoleName roleName) throws InvalidInputException {
+        try {
+            databaseService.addRole(EntityUtils.createRole(roleName));
+        } catch (ConflictException ignored) {
+            // the role was added by an earlier call
+        }
+    }
+
     @Test
     public void getRoleLogsWarningWhenNotFoundExceptionIsThrown() throws InvalidEntryInternalException {
         var logRecorder = LogRecorder.forClass(RoleService.class);
@@ -108,4 +386,21 @@ public class IdentityServiceImplTest extends LocalIdentityService {
         var users = databaseService.listAllUsers();
         assertThat(users, hasSize(2));
     }
+
+    @Test
+    void shouldPassEveryUserButNoIndexEntriesToConsumerWhenScanningInSegments()
+        throws ConflictException, InvalidInputException {
+        var institution = randomUri();
+        var first = addUserWithRole(institution, RoleName.DOI_CURATOR);
+        var second = addUserWithRole(institution, RoleName.SUPPORT_CURATOR);
+        var users = new ConcurrentLinkedQueue<UserDto>();
+
+        databaseService.forEachUser(4, UserService.USERNAME_AND_ROLES, users::add);
+
+        assertThat(users.stream().map(UserDto::getUsername).toList(),
+                   containsInAnyOrder(first.getUsername(), second.getUsername()));
+        assertThat(users.stream().map(UserDto::getRoles).toList(),
+                   containsInAnyOrder(first.getRoles(), second.getRoles()));
+        assertThat(users.stream().map(UserDto::getInstitution).filter(Objects::nonNull).toList(), is(empty()));
+    }
 }
\ No newline at end of file
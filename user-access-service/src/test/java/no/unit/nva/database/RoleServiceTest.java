@@ -0,0 +1,176 @@
+package no.unit.nva.database;
+
+import no.unit.nva.database.IdentityService.Constants;
+import no.unit.nva.useraccessservice.dao.RoleDb;
+import no.unit.nva.useraccessservice.exceptions.InvalidInputException;
+import no.unit.nva.useraccessservice.model.RoleName;
+import nva.commons.apigateway.exceptions.ConflictException;
+import nva.commons.apigateway.exceptions.NotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static no.unit.nva.database.BatchOperations.MAX_BATCH_ATTEMPTS;
+import static no.unit.nva.database.EntityUtils.createRole;
+import static no.unit.nva.useraccessservice.constants.DatabaseIndexDetails.PRIMARY_KEY_HASH_KEY;
+import static no.unit.nva.useraccessservice.constants.DatabaseIndexDetails.PRIMARY_KEY_RANGE_KEY;
+import static nva.commons.apigateway.AccessRight.MANAGE_DOI;
+import static nva.commons.apigateway.AccessRight.MANAGE_PUBLISHING_REQUESTS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RoleServiceTest extends LocalIdentityService {
+
+    private RoleService roleService;
+
+    @BeforeEach
+    public void init() {
+        roleService = new RoleService(initializeTestDatabase());
+    }
+
+    @Test
+    void shouldFetchAllExistingRolesAndLeaveOutMissingRoles() {
+        var storedRoles = Arrays.stream(RoleName.values()).skip(1).map(this::addRole).toList();
+        var queryObjects = Arrays.stream(RoleName.values())
+                               .map(roleName -> RoleDb.newBuilder().withName(roleName).build())
+                               .toList();
+
+        var roles = roleService.readRoleDbs(queryObjects);
+
+        assertThat(roles, containsInAnyOrder(storedRoles.toArray(RoleDb[]::new)));
+    }
+
+    @Test
+    void shouldReturnEmptyListWhenNoRolesExist() {
+        var roles = roleService.readRoleDbs(List.of(roleDb(RoleName.values()[0])));
+
+        assertThat(roles, is(empty()));
+    }
+
+    @Test
+    void shouldRetryUnprocessedKeys() {
+        var first = roleDb(RoleName.values()[0]);
+        var second = roleDb(RoleName.values()[1]);
+        var client = mock(DynamoDbClient.class);
+        when(client.batchGetItem(any(BatchGetItemRequest.class)))
+            .thenReturn(response(List.of(first), List.of(second)))
+            .thenReturn(response(List.of(second), List.of()));
+
+        var roles = new RoleService(client).readRoleDbs(List.of(first, second));
+
+        assertThat(roles, containsInAnyOrder(first, second));
+        verify(client, times(2)).batchGetItem(any(BatchGetItemRequest.class));
+    }
+
+    @Test
+    void shouldFailWhenKeysRemainUnprocessedAfterAllAttempts() {
+        var role = roleDb(RoleName.values()[0]);
+        var client = mock(DynamoDbClient.class);
+        when(client.batchGetItem(any(BatchGetItemRequest.class))).thenReturn(response(List.of(), List.of(role)));
+        var service = new RoleService(client);
+
+        assertThrows(IllegalStateException.class, () -> service.readRoleDbs(List.of(role)));
+        verify(client, times(MAX_BATCH_ATTEMPTS)).batchGetItem(any(BatchGetItemRequest.class));
+    }
+
+    @Test
+    void shouldServeRoleFromCatalogueWithUpdatesMadeInSameContainer() throws InvalidInputException, NotFoundException {
+        var role = addRole(RoleName.values()[0]);
+        var cachedRole = roleService.fetchRoleDb(role);
+
+        var updatedRole = createRole(role.getName(), MANAGE_DOI, MANAGE_PUBLISHING_REQUESTS);
+        roleService.updateRole(updatedRole);
+
+        assertThat(cachedRole, is(equalTo(role)));
+        assertThat(roleService.fetchRoleDb(role), is(equalTo(RoleDb.fromRoleDto(updatedRole))));
+    }
+
+    @Test
+    void shouldKeepServingCachedRoleWithinTimeToLiveWhenRoleIsChangedElsewhere()
+        throws InvalidInputException, NotFoundException {
+        var role = addRole(RoleName.values()[0]);
+        var otherContainer = new RoleService(localDynamo, new RoleCatalogue(Duration.ofHours(1), Clock.systemUTC()));
+        otherContainer.fetchRoleDb(role);
+
+        roleService.updateRole(createRole(role.getName(), MANAGE_DOI, MANAGE_PUBLISHING_REQUESTS));
+
+        assertThat(otherContainer.fetchRoleDb(role), is(equalTo(role)));
+    }
+
+    @Test
+    void shouldReloadCatalogueWhenVersionStampHasChangedElsewhere() throws InvalidInputException, NotFoundException {
+        var role = addRole(RoleName.values()[0]);
+        var otherContainer = new RoleService(localDynamo, new RoleCatalogue(Duration.ZERO, Clock.systemUTC()));
+        otherContainer.fetchRoleDb(role);
+
+        var updatedRole = createRole(role.getName(), MANAGE_DOI, MANAGE_PUBLISHING_REQUESTS);
+        roleService.updateRole(updatedRole);
+
+        assertThat(otherContainer.fetchRoleDb(role), is(equalTo(RoleDb.fromRoleDto(updatedRole))));
+    }
+
+    @Test
+    void shouldNotReloadRolesWhenVersionStampIsUnchanged() {
+        var role = addRole(RoleName.values()[0]);
+        var client = spy(localDynamo);
+        var service = new RoleService(client, new RoleCatalogue(Duration.ZERO, Clock.systemUTC()));
+
+        service.fetchRoleDb(role);
+        service.fetchRoleDb(role);
+
+        verify(client, times(1)).batchGetItem(any(BatchGetItemRequest.class));
+    }
+
+    private RoleDb addRole(RoleName roleName) {
+        var role = createRole(roleName);
+        try {
+            new IdentityServiceImpl(localDynamo).addRole(role);
+        } catch (InvalidInputException | ConflictException e) {
+            throw new IllegalStateException(e);
+        }
+        return RoleDb.fromRoleDto(role);
+    }
+
+    private static RoleDb roleDb(RoleName roleName) {
+        return RoleDb.fromRoleDto(createRole(roleName));
+    }
+
+    private static BatchGetItemResponse response(List<RoleDb> found, List<RoleDb> unprocessed) {
+        var items = found.stream().map(RoleServiceTest::item).toList();
+        var builder = BatchGetItemResponse.builder().responses(Map.of(Constants.USERS_AND_ROLES_TABLE, items));
+        if (!unprocessed.isEmpty()) {
+            var keys = unprocessed.stream().map(RoleServiceTest::key).toList();
+            builder.unprocessedKeys(Map.of(Constants.USERS_AND_ROLES_TABLE,
+                                           KeysAndAttributes.builder().keys(keys).build()));
+        }
+        return builder.build();
+    }
+
+    private static Map<String, AttributeValue> item(RoleDb role) {
+        return RoleDb.TABLE_SCHEMA.itemToMap(role, true);
+    }
+
+    private static Map<String, AttributeValue> key(RoleDb role) {
+        return RoleDb.TABLE_SCHEMA.itemToMap(role, List.of(PRIMARY_KEY_HASH_KEY, PRIMARY_KEY_RANGE_KEY));
+    }
+}
@@ -0,0 +1,36 @@
+package no.unit.nva.useraccessservice.usercreation.cache;
+
+import java.util.concurrent.atomic.AtomicReference;
+import no.unit.nva.useraccessservice.metrics.MetricsLogger;
+import no.unit.nva.useraccessservice.usercreation.cache.ExpiringCache.CacheStatistics;
+
+/**
+ * Adds the counters of an {@link ExpiringCache} to the metrics of a request. The cache outlives the request, so hits,
+ * misses and evictions are written as the change since they were last written, and can be summed in CloudWatch. The
+ * size is written as it is now.
+ */
+public class CacheMetrics {
+
+    public static final String HITS = "Hits";
+    public static final String MISSES = "Misses";
+    public static final String EVICTIONS = "Evictions";
+    public static final String SIZE = "Size";
+
+    private final String name;
+    private final ExpiringCache<?, ?> cache;
+    private final AtomicReference<CacheStatistics> written = new AtomicReference<>(new CacheStatistics(0, 0, 0, 0));
+
+    public CacheMetrics(String name, ExpiringCache<?, ?> cache) {
+        this.name = name;
+        this.cache = cache;
+    }
+
+    public void putCounts(MetricsLogger metrics) {
+        var current = cache.statistics();
+        var previous = written.getAndSet(current);
+        metrics.putCount(name + HITS, current.hits() - previous.hits())
+            .putCount(name + MISSES, current.misses() - previous.misses())
+            .putCount(name + EVICTIONS, current.evictions() - previous.evictions())
+            .putCount(name + SIZE, current.size());
+    }
+}
@@ -0,0 +1,190 @@
+package no.unit.nva.useraccessservice.usercreation.cache;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import static java.util.Objects.requireNonNullElse;
+
+/**
+ * Small in-process cache with a maximum size, time-to-live and single-flight loading.
+ *
+ * <p>Concurrent callers asking for the same missing key share one call to the loader. Empty results are cached as
+ * well, with their own (usually shorter) time-to-live, so that known negative answers are not fetched again. Loader
+ * failures are never cached. When the cache is full, the least recently used entry is evicted.
+ */
+public class ExpiringCache<K, V> {
+
+    private static final boolean ACCESS_ORDER = true;
+    private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int maximumSize;
+    private final Duration timeToLive;
+    private final Duration negativeTimeToLive;
+    private final Clock clock;
+    private final Map<K, Entry<V>> entries;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public ExpiringCache(int maximumSize, Duration timeToLive, Duration negativeTimeToLive) {
+        this(maximumSize, timeToLive, negativeTimeToLive, Clock.systemUTC());
+    }
+
+    public ExpiringCache(int maximumSize, Duration timeToLive, Duration negativeTimeToLive, Clock clock) {
+        this.maximumSize = maximumSize;
+        this.timeToLive = timeToLive;
+        this.negativeTimeToLive = negativeTimeToLive;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(INITIAL_CAPACITY, DEFAULT_LOAD_FACTOR, ACCESS_ORDER) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                var shouldEvict = size() > ExpiringCache.this.maximumSize;
+                if (shouldEvict) {
+                    evictions.incrementAndGet();
+                }
+                return shouldEvict;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached value for the key, or loads it. Only one loader call is made per key at a time; other
+     * callers wait for its result.
+     *
+     * @param key    the cache key
+     * @param loader loads the value when it is missing or expired; an empty result is cached as a negative answer
+     * @return the cached or loaded value
+     */
+    public Optional<V> get(K key, Supplier<Optional<V>> loader) {
+        var lookup = lookup(key);
+        if (lookup.isOwner()) {
+            return load(key, lookup.entry(), loader);
+        }
+        return await(lookup.entry().value());
+    }
+
+    public void invalidate(K key) {
+        lock.lock();
+        try {
+            entries.remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            entries.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public CacheStatistics statistics() {
+        lock.lock();
+        try {
+            return new CacheStatistics(hits.get(), misses.get(), evictions.get(), entries.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Lookup<V> lookup(K key) {
+        var now = clock.instant();
+        lock.lock();
+        try {
+            var existing = entries.get(key);
+            if (existing != null && !existing.isExpiredAt(now)) {
+                hits.incrementAndGet();
+                return new Lookup<>(existing, false);
+            }
+            if (existing != null) {
+                evictions.incrementAndGet();
+            }
+            misses.incrementAndGet();
+            var pending = new Entry<V>(new CompletableFuture<>());
+            entries.put(key, pending);
+            return new Lookup<>(pending, true);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @SuppressWarnings("PMD.AvoidCatchingThrowable")
+    private Optional<V> load(K key, Entry<V> entry, Supplier<Optional<V>> loader) {
+        final Optional<V> value;
+        try {
+            value = requireNonNullElse(loader.get(), Optional.empty());
+        } catch (Throwable e) {
+            // Any failure, including errors and sneaky-thrown checked exceptions, must release the pending entry, or
+            // every later caller for the key would wait for it forever.
+            lock.lock();
+            try {
+                entries.remove(key, entry);
+            } finally {
+                lock.unlock();
+            }
+            entry.value().completeExceptionally(e);
+            throw e;
+        }
+        entry.expireAt(clock.instant().plus(value.isPresent() ? timeToLive : negativeTimeToLive));
+        entry.value().complete(value);
+        return value;
+    }
+
+    private static <V> Optional<V> await(CompletableFuture<Optional<V>> value) {
+        try {
+            return value.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e.getCause() instanceof RuntimeException runtimeException
+                      ? runtimeException
+                      : e;
+        }
+    }
+
+    public record CacheStatistics(long hits, long misses, long evictions, int size) {
+
+    }
+
+    private record Lookup<V>(Entry<V> entry, boolean isOwner) {
+
+    }
+
+    private static final class Entry<V> {
+
+        private final CompletableFuture<Optional<V>> value;
+        // Entries being loaded never expire, so that concurrent callers join the load in flight.
+        private volatile Instant expiresAt = Instant.MAX;
+
+        private Entry(CompletableFuture<Optional<V>> value) {
+            this.value = value;
+        }
+
+        private CompletableFuture<Optional<V>> value() {
+            return value;
+        }
+
+        private void expireAt(Instant expiresAt) {
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpiredAt(Instant now) {
+            return !now.isBefore(expiresAt);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package no.unit.nva.useraccessservice.usercreation.person;
+
+import no.unit.nva.useraccessservice.metrics.MetricsLogger;
+import no.unit.nva.useraccessservice.usercreation.cache.CacheMetrics;
+import no.unit.nva.useraccessservice.usercreation.cache.ExpiringCache;
+import no.unit.nva.useraccessservice.usercreation.cache.ExpiringCache.CacheStatistics;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * {@link PersonRegistry} that keeps persons fetched by national identity number in memory for a short while, so
+ * that repeated token generations for the same user do not call the registry every time. Concurrent fetches for the
+ * same person share one call to the underlying registry.
+ *
+ * <p>Cache keys are keyed hashes of the national identity number, using a random key generated per instance, so
+ * the raw number is never kept in the cache. Persons that are not found are not cached.
+ */
+public class CachingPersonRegistry implements PersonRegistry {
+
+    public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofMinutes(1);
+    public static final int DEFAULT_MAXIMUM_SIZE = 1000;
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final int HMAC_KEY_LENGTH = 32;
+    private static final String PERSON_CACHE_METRIC = "PersonCache";
+
+    private final PersonRegistry personRegistry;
+    private final ExpiringCache<String, Person> personsByNin;
+    private final SecretKeySpec ninHashKey;
+    private final CacheMetrics personCacheMetrics;
+
+    public CachingPersonRegistry(PersonRegistry personRegistry) {
+        this(personRegistry, DEFAULT_TIME_TO_LIVE, DEFAULT_MAXIMUM_SIZE, Clock.systemUTC());
+    }
+
+    public CachingPersonRegistry(PersonRegistry personRegistry, Duration timeToLive, int maximumSize, Clock clock) {
+        this.personRegistry = personRegistry;
+        this.personsByNin = new ExpiringCache<>(maximumSize, timeToLive, Duration.ZERO, clock);
+        this.ninHashKey = new SecretKeySpec(randomKey(), HMAC_ALGORITHM);
+        this.personCacheMetrics = new CacheMetrics(PERSON_CACHE_METRIC, personsByNin);
+    }
+
+    @Override
+    public Optional<Person> fetchPersonByNin(NationalIdentityNumber nin) {
+        return personsByNin.get(cacheKey(nin), () -> personRegistry.fetchPersonByNin(nin));
+    }
+
+    @Override
+    public Optional<Person> fetchPersonByIdentifier(String cristinIdentifier) {
+        return personRegistry.fetchPersonByIdentifier(cristinIdentifier);
+    }
+
+    @Override
+    public Optional<Person> createPerson(NationalIdentityNumber nin, String firstName, String lastName) {
+        invalidate(nin);
+        return personRegistry.createPerson(nin, firstName, lastName);
+    }
+
+    @Override
+    public void putCacheMetrics(MetricsLogger metrics) {
+        personCacheMetrics.putCounts(metrics);
+        personRegistry.putCacheMetrics(metrics);
+    }
+
+    public void invalidate(NationalIdentityNumber nin) {
+        personsByNin.invalidate(cacheKey(nin));
+    }
+
+    public void invalidateAll() {
+        personsByNin.invalidateAll();
+    }
+
+    public CacheStatistics statistics() {
+        return personsByNin.statistics();
+    }
+
+    private String cacheKey(NationalIdentityNumber nin) {
+        try {
+            var mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(ninHashKey);
+            return HexFormat.of().formatHex(mac.doFinal(nin.getNin().getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not hash national identity number", e);
+        }
+    }
+
+    private static byte[] randomKey() {
+        var key = new byte[HMAC_KEY_LENGTH];
+        new SecureRandom().nextBytes(key);
+        return key;
+    }
+}
@@ -1,5 +1,7 @@
 package no.unit.nva.useraccessservice.usercreation.person;
 
+import no.unit.nva.useraccessservice.metrics.MetricsLogger;
+
 import java.util.Optional;
 
 public interface PersonRegistry {
@@ -9,4 +11,11 @@ public interface PersonRegistry {
     Optional<Person> fetchPersonByIdentifier(String cristinIdentifier);
 
     Optional<Person> createPerson(NationalIdentityNumber nin, String firstName, String lastName);
+
+    /**
+     * Adds the counters of the caches of the registry, if it has any, to the metrics of the current request.
+     */
+    default void putCacheMetrics(MetricsLogger metrics) {
+        // No caches by default
+    }
 }
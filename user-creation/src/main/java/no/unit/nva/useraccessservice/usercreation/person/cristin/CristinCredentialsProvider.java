@@ -0,0 +1,97 @@
+package no.unit.nva.useraccessservice.usercreation.person.cristin;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the Cristin credentials in memory as a ready-made Basic {@code Authorization} header value, and reads them
+ * again from the source when the refresh interval has passed or when Cristin rejects the current value.
+ */
+public class CristinCredentialsProvider {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CristinCredentialsProvider.class);
+    private static final String BASIC_AUTHORIZATION_PREFIX = "Basic ";
+
+    private final Supplier<CristinCredentials> credentialsSource;
+    private final Duration refreshInterval;
+    private final Clock clock;
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile Authorization current;
+
+    public CristinCredentialsProvider(Supplier<CristinCredentials> credentialsSource, Duration refreshInterval) {
+        this(credentialsSource, refreshInterval, Clock.systemUTC());
+    }
+
+    public CristinCredentialsProvider(Supplier<CristinCredentials> credentialsSource,
+                                      Duration refreshInterval,
+                                      Clock clock) {
+        this.credentialsSource = credentialsSource;
+        this.refreshInterval = refreshInterval;
+        this.clock = clock;
+    }
+
+    public String authorizationHeader() {
+        var authorization = current;
+        if (authorization != null && !authorization.isStaleAt(clock.instant())) {
+            return authorization.headerValue();
+        }
+        lock.lock();
+        try {
+            if (current == null || current.isStaleAt(clock.instant())) {
+                current = loadAuthorization();
+            }
+            return current.headerValue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Makes the next call to {@link #authorizationHeader()} read the credentials again, unless they have already
+     * been refreshed since the rejected header value was handed out.
+     *
+     * @param rejectedHeaderValue the header value Cristin responded to with 401 Unauthorized
+     */
+    public void refreshIfCurrent(String rejectedHeaderValue) {
+        lock.lock();
+        try {
+            if (current != null && current.headerValue().equals(rejectedHeaderValue)) {
+                current = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Authorization loadAuthorization() {
+        var start = Instant.now();
+        var credentials = credentialsSource.get();
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Read cristin credentials from secrets manager in {} ms.",
+                         Instant.now().toEpochMilli() - start.toEpochMilli());
+        }
+        return new Authorization(generateBasicAuthorization(credentials), clock.instant().plus(refreshInterval));
+    }
+
+    private static String generateBasicAuthorization(CristinCredentials cristinCredentials) {
+        var toBeEncoded =
+            (cristinCredentials.getUsername() + ":" + new String(cristinCredentials.getPassword()))
+                .getBytes(StandardCharsets.UTF_8);
+        return BASIC_AUTHORIZATION_PREFIX + Base64.getEncoder().encodeToString(toBeEncoded);
+    }
+
+    private record Authorization(String headerValue, Instant refreshAt) {
+
+        private boolean isStaleAt(Instant now) {
+            return !now.isBefore(refreshAt);
+        }
+    }
+}
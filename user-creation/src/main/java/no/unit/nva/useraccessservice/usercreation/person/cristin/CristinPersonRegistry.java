@@ -2,6 +2,10 @@ package no.unit.nva.useraccessservice.usercreation.person.cristin;
 
 import no.unit.nva.commons.json.JsonUtils;
 import no.unit.nva.useraccessservice.constants.ServiceConstants;
+import no.unit.nva.useraccessservice.metrics.MetricsLogger;
+import no.unit.nva.useraccessservice.usercreation.cache.CacheMetrics;
+import no.unit.nva.useraccessservice.usercreation.cache.ExpiringCache;
+import no.unit.nva.useraccessservice.usercreation.cache.ExpiringCache.CacheStatistics;
 import no.unit.nva.useraccessservice.usercreation.person.Affiliation;
 import no.unit.nva.useraccessservice.usercreation.person.NationalIdentityNumber;
 import no.unit.nva.useraccessservice.usercreation.person.Person;
@@ -34,9 +38,15 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.net.http.HttpResponse.BodyHandlers;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
-import java.util.Base64;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.function.Supplier;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -45,6 +55,7 @@ import static java.net.HttpURLConnection.HTTP_BAD_REQUEST;
 import static java.net.HttpURLConnection.HTTP_CONFLICT;
 import static java.net.HttpURLConnection.HTTP_INTERNAL_ERROR;
 import static java.net.HttpURLConnection.HTTP_NOT_FOUND;
+import static java.net.HttpURLConnection.HTTP_UNAUTHORIZED;
 import static java.util.Objects.requireNonNullElse;
 import static java.util.stream.Collectors.mapping;
 import static java.util.stream.Collectors.toList;
@@ -73,22 +84,41 @@ public final class CristinPersonRegistry implements PersonRegistry {
     private static final int ONE_HUNDRED = 100;
     private static final int SUCCESS_FAMILY = 2;
     private static final int REDIRECT_FAMILY = 3;
+    private static final int ONE = 1;
+    private static final String INTERRUPTED_WHILE_RESOLVING_INSTITUTIONS
+        = "Interrupted while resolving institutions in Cristin";
+    private static final String FAILED_TO_RESOLVE_INSTITUTION = "Failed to resolve institution in Cristin";
+    private static final int MAX_CONCURRENT_INSTITUTION_REQUESTS = 8;
+    private static final int MAX_CACHED_INSTITUTIONS = 5000;
+    private static final String INSTITUTION_CACHE_METRIC = "InstitutionCache";
+    private static final Duration INSTITUTION_CACHE_TIME_TO_LIVE = Duration.ofHours(6);
+    private static final Duration REDIRECTED_INSTITUTION_CACHE_TIME_TO_LIVE = Duration.ofMinutes(30);
+    private static final String CREDENTIALS_REFRESH_INTERVAL_ENV_NAME = "CRISTIN_CREDENTIALS_REFRESH_INTERVAL";
+    private static final Duration DEFAULT_CREDENTIALS_REFRESH_INTERVAL = Duration.ofMinutes(15);
+    @SuppressWarnings("PMD.DoNotUseThreads")
+    private static final ExecutorService AFFILIATION_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
     private final HttpClient httpClient;
     private final URI cristinBaseUri;
     private final String apiDomain;
     private final HttpHeaders defaultRequestHeaders;
-    private final Supplier<CristinCredentials> cristinCredentialsSupplier;
+    private final CristinCredentialsProvider credentialsProvider;
+    private final Semaphore institutionRequestPermits = new Semaphore(MAX_CONCURRENT_INSTITUTION_REQUESTS);
+    private final ExpiringCache<URI, CristinInstitution> institutionCache
+        = new ExpiringCache<>(MAX_CACHED_INSTITUTIONS,
+                              INSTITUTION_CACHE_TIME_TO_LIVE,
+                              REDIRECTED_INSTITUTION_CACHE_TIME_TO_LIVE);
+    private final CacheMetrics institutionCacheMetrics = new CacheMetrics(INSTITUTION_CACHE_METRIC, institutionCache);
 
     private CristinPersonRegistry(HttpClient httpClient,
                                   URI cristinBaseUri,
                                   String apiDomain,
                                   HttpHeaders defaultRequestHeaders,
-                                  Supplier<CristinCredentials> credentialsSupplier) {
+                                  CristinCredentialsProvider credentialsProvider) {
         this.httpClient = httpClient;
         this.cristinBaseUri = cristinBaseUri;
         this.apiDomain = apiDomain;
         this.defaultRequestHeaders = defaultRequestHeaders;
-        this.cristinCredentialsSupplier = credentialsSupplier;
+        this.credentialsProvider = credentialsProvider;
     }
 
     @JacocoGenerated
@@ -102,19 +132,25 @@ public final class CristinPersonRegistry implements PersonRegistry {
                               ServiceConstants.CRISTIN_BASE_URI,
                               ServiceConstants.API_DOMAIN,
                               defaultRequestHeaders,
-                              new SecretsReader());
+                              new SecretsReader(),
+                              ServiceConstants.ENVIRONMENT.readEnvOpt(CREDENTIALS_REFRESH_INTERVAL_ENV_NAME)
+                                  .map(Duration::parse)
+                                  .orElse(DEFAULT_CREDENTIALS_REFRESH_INTERVAL));
     }
 
     private static PersonRegistry personRegistry(HttpClient httpClient,
                                                  URI cristinBaseUri,
                                                  String apiDomain,
                                                  HttpHeaders defaultRequestHeaders,
-                                                 SecretsReader secretsReader) {
+                                                 SecretsReader secretsReader,
+                                                 Duration credentialsRefreshInterval) {
+        var credentialsProvider = new CristinCredentialsProvider(secretsReaderCristinCredentialsSupplier(secretsReader),
+                                                                 credentialsRefreshInterval);
         return new CristinPersonRegistry(httpClient,
                                          cristinBaseUri,
                                          apiDomain,
                                          defaultRequestHeaders,
-                                         secretsReaderCristinCredentialsSupplier(secretsReader));
+                                         credentialsProvider);
     }
 
     private static Supplier<CristinCredentials> secretsReaderCristinCredentialsSupplier(SecretsReader secretsReader) {
@@ -126,11 +162,26 @@ public final class CristinPersonRegistry implements PersonRegistry {
                                                       String apiDomain,
                                                       HttpHeaders defaultRequestHeaders,
                                                       SecretsReader secretsReader) {
+        return customPersonRegistry(httpClient,
+                                    cristinBaseUri,
+                                    apiDomain,
+                                    defaultRequestHeaders,
+                                    secretsReader,
+                                    DEFAULT_CREDENTIALS_REFRESH_INTERVAL);
+    }
+
+    public static PersonRegistry customPersonRegistry(HttpClient httpClient,
+                                                      URI cristinBaseUri,
+                                                      String apiDomain,
+                                                      HttpHeaders defaultRequestHeaders,
+                                                      SecretsReader secretsReader,
+                                                      Duration credentialsRefreshInterval) {
         return personRegistry(httpClient,
                               cristinBaseUri,
                               apiDomain,
                               defaultRequestHeaders,
-                              secretsReader);
+                              secretsReader,
+                              credentialsRefreshInterval);
     }
 
     private static <T> T fromJson(String responseAsString, Class<T> type) {
@@ -154,50 +205,40 @@ public final class CristinPersonRegistry implements PersonRegistry {
 
     @Override
     public Optional<Person> fetchPersonByNin(NationalIdentityNumber nin) {
-        var start = Instant.now();
-        var cristinCredentials = this.cristinCredentialsSupplier.get();
-
-        if (LOGGER.isDebugEnabled()) {
-            LOGGER.debug("Read cristin credentials from secrets manager in {} ms.",
-                         Instant.now().toEpochMilli() - start.toEpochMilli());
-        }
-
-        return fetchPersonByNinFromCristin(nin, cristinCredentials)
-                   .map(cristinPerson -> asPerson(cristinPerson, cristinCredentials));
+        return fetchPersonByNinFromCristin(nin).map(this::asPerson);
     }
 
     @Override
     public Optional<Person> fetchPersonByIdentifier(String cristinIdentifier) {
-        var start = Instant.now();
-        var cristinCredentials = this.cristinCredentialsSupplier.get();
-
-        if (LOGGER.isDebugEnabled()) {
-            LOGGER.debug("Read cristin credentials from secrets manager in {} ms.",
-                         Instant.now().toEpochMilli() - start.toEpochMilli());
-        }
-
-        return fetchPersonByIdentifierFromCristin(cristinIdentifier, cristinCredentials)
-                   .map(cristinPerson -> asPerson(cristinPerson, cristinCredentials));
+        return fetchPersonByIdentifierFromCristin(cristinIdentifier).map(this::asPerson);
     }
 
     @Override
     public Optional<Person> createPerson(NationalIdentityNumber nin, String firstName, String lastName) {
-        var cristinCredentials = this.cristinCredentialsSupplier.get();
-
         var person = new CristinPerson(null, firstName, lastName, null, nin.getNin());
-        return createPerson(person, cristinCredentials)
-                   .map(cristinPerson -> asPerson(cristinPerson, cristinCredentials));
+        return createPerson(person).map(this::asPerson);
     }
 
-    private Optional<CristinPerson> createPerson(CristinPerson person,
-                                                 CristinCredentials cristinCredentials) {
-        var request = createPostRequest(creatNewPersonQueryUri(), generatePersonPayload(person), cristinCredentials);
+    private Optional<CristinPerson> createPerson(CristinPerson person) {
+        var request = createPostRequest(creatNewPersonQueryUri(), generatePersonPayload(person));
         return Optional.ofNullable(executeRequest(request, CristinPerson.class));
     }
 
-    private Optional<CristinInstitution> fetchInstitutionFromCristin(URI institutionUri,
-                                                                      CristinCredentials cristinCredentials) {
-        var request = createGetRequest(institutionUri, cristinCredentials);
+    public CacheStatistics getInstitutionCacheStatistics() {
+        return institutionCache.statistics();
+    }
+
+    @Override
+    public void putCacheMetrics(MetricsLogger metrics) {
+        institutionCacheMetrics.putCounts(metrics);
+    }
+
+    private Optional<CristinInstitution> fetchInstitution(URI institutionUri) {
+        return institutionCache.get(institutionUri, () -> fetchInstitutionFromCristin(institutionUri));
+    }
+
+    private Optional<CristinInstitution> fetchInstitutionFromCristin(URI institutionUri) {
+        var request = createGetRequest(institutionUri);
         try {
             return Optional.of(executeRequest(request, CristinInstitution.class));
         } catch (IdentityServiceRedirectException e) {
@@ -206,35 +247,34 @@ public final class CristinPersonRegistry implements PersonRegistry {
         }
     }
 
-    private HttpRequest createGetRequest(URI uri, CristinCredentials cristinCredentials) {
+    private HttpRequest.Builder createGetRequest(URI uri) {
         var requestBuilder = HttpRequest.newBuilder(uri)
-                                 .GET()
-                                 .header(AUTHORIZATION, generateBasicAuthorization(cristinCredentials));
+                                 .GET();
 
         defaultRequestHeaders.stream()
             .forEach(entry -> requestBuilder.header(entry.getKey(), entry.getValue()));
 
-        return requestBuilder.build();
+        return requestBuilder;
     }
 
-    private HttpRequest createPostRequest(URI uri, String body, CristinCredentials cristinCredentials) {
+    private HttpRequest.Builder createPostRequest(URI uri, String body) {
         var requestBuilder = HttpRequest.newBuilder(uri)
                                  .POST(HttpRequest.BodyPublishers.ofString(body))
-                                 .header(CONTENT_TYPE, APPLICATION_JSON)
-                                 .header(AUTHORIZATION, generateBasicAuthorization(cristinCredentials));
+                                 .header(CONTENT_TYPE, APPLICATION_JSON);
 
         defaultRequestHeaders.stream()
             .forEach(entry -> requestBuilder.header(entry.getKey(), entry.getValue()));
 
-        return requestBuilder.build();
+        return requestBuilder;
     }
 
-    private Person asPerson(CristinPerson cristinPerson, CristinCredentials cristinCredentials) {
+    private Person asPerson(CristinPerson cristinPerson) {
 
+        var activeAffiliations = cristinPerson.getAffiliations().stream()
+                                     .filter(CristinAffiliation::isActive)
+                                     .toList();
         var personAffiliations
-            = cristinPerson.getAffiliations().stream()
-                  .filter(CristinAffiliation::isActive)
-                  .map(activeAffiliation -> collectAffiliation(activeAffiliation, cristinCredentials))
+            = collectAffiliations(activeAffiliations).stream()
                   .flatMap(Optional::stream)
                   .collect(Collectors.groupingBy(GenericPair::getLeft, mapping(GenericPair::getRight, toList())))
                   .entrySet().stream()
@@ -275,10 +315,56 @@ public final class CristinPersonRegistry implements PersonRegistry {
                    .getUri();
     }
 
-    private Optional<GenericPair<URI>> collectAffiliation(CristinAffiliation cristinAffiliation,
-                                                          CristinCredentials cristinCredentials) {
+    /**
+     * Resolves the institution of every affiliation concurrently on virtual threads, limited by
+     * {@link #MAX_CONCURRENT_INSTITUTION_REQUESTS} requests in flight towards Cristin. The results keep the order of
+     * the affiliations. If a lookup fails, the remaining lookups are cancelled and the failure is rethrown as is.
+     */
+    private List<Optional<GenericPair<URI>>> collectAffiliations(List<CristinAffiliation> cristinAffiliations) {
+        if (cristinAffiliations.size() <= ONE) {
+            return cristinAffiliations.stream()
+                       .map(this::collectAffiliation)
+                       .toList();
+        }
+        var lookups = cristinAffiliations.stream()
+                          .map(affiliation -> AFFILIATION_EXECUTOR.submit(
+                              () -> collectAffiliationWithinConcurrencyLimit(affiliation)))
+                          .toList();
+        return lookups.stream()
+                   .map(lookup -> awaitAffiliation(lookup, lookups))
+                   .toList();
+    }
+
+    private Optional<GenericPair<URI>> collectAffiliationWithinConcurrencyLimit(CristinAffiliation cristinAffiliation)
+        throws InterruptedException {
+        institutionRequestPermits.acquire();
+        try {
+            return collectAffiliation(cristinAffiliation);
+        } finally {
+            institutionRequestPermits.release();
+        }
+    }
+
+    @SuppressWarnings("PMD.DoNotUseThreads")
+    private static Optional<GenericPair<URI>> awaitAffiliation(Future<Optional<GenericPair<URI>>> lookup,
+                                                              List<Future<Optional<GenericPair<URI>>>> allLookups) {
+        try {
+            return lookup.get();
+        } catch (InterruptedException e) {
+            allLookups.forEach(pending -> pending.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IdentityServiceUnavailableException(INTERRUPTED_WHILE_RESOLVING_INSTITUTIONS, e);
+        } catch (ExecutionException e) {
+            allLookups.forEach(pending -> pending.cancel(true));
+            throw e.getCause() instanceof RuntimeException runtimeException
+                      ? runtimeException
+                      : new IdentityServiceUnavailableException(FAILED_TO_RESOLVE_INSTITUTION, e.getCause());
+        }
+    }
+
+    private Optional<GenericPair<URI>> collectAffiliation(CristinAffiliation cristinAffiliation) {
         var institutionUri = URI.create(cristinAffiliation.getInstitution().getUrl());
-        return fetchInstitutionFromCristin(institutionUri, cristinCredentials)
+        return fetchInstitution(institutionUri)
                    .map(cristinInstitution -> {
                        var institutionId = cristinInstitution.getCorrespondingUnit().getId();
                        return new GenericPair<>(
@@ -287,10 +373,9 @@ public final class CristinPersonRegistry implements PersonRegistry {
                    });
     }
 
-    private Optional<CristinPerson> fetchPersonByNinFromCristin(NationalIdentityNumber nin,
-                                                                CristinCredentials cristinCredentials) {
+    private Optional<CristinPerson> fetchPersonByNinFromCristin(NationalIdentityNumber nin) {
 
-        var request = createGetRequest(createByNationalIdentityNumberQueryUri(nin), cristinCredentials);
+        var request = createGetRequest(createByNationalIdentityNumberQueryUri(nin));
         
         try {
             var person = executeRequest(request, CristinPerson.class);
@@ -301,9 +386,8 @@ public final class CristinPersonRegistry implements PersonRegistry {
         }
     }
 
-    private Optional<CristinPerson> fetchPersonByIdentifierFromCristin(String identifier,
-                                                                       CristinCredentials cristinCredentials) {
-        var request = createGetRequest(creatByIdentifierQueryUri(identifier), cristinCredentials);
+    private Optional<CristinPerson> fetchPersonByIdentifierFromCristin(String identifier) {
+        var request = createGetRequest(creatByIdentifierQueryUri(identifier));
         return attempt(() -> executeRequest(request, CristinPerson.class)).toOptional();
     }
 
@@ -333,11 +417,27 @@ public final class CristinPersonRegistry implements PersonRegistry {
                    .orElseThrow();
     }
 
-    private <T> T executeRequest(HttpRequest request, Class<T> type) {
-        final HttpResponse<String> response;
+    private <T> T executeRequest(HttpRequest.Builder requestBuilder, Class<T> type) {
+        var authorization = credentialsProvider.authorizationHeader();
+        var request = requestBuilder.setHeader(AUTHORIZATION, authorization).build();
+        var response = sendRequest(request);
+        if (HTTP_UNAUTHORIZED == response.statusCode()) {
+            LOGGER.warn("Cristin rejected the credentials for {}, reading them again and retrying.",
+                        maskSensitiveData(request.uri()));
+            credentialsProvider.refreshIfCurrent(authorization);
+            request = requestBuilder.setHeader(AUTHORIZATION, credentialsProvider.authorizationHeader()).build();
+            response = sendRequest(request);
+        }
+
+        assertSuccessResponse(request, response);
+
+        return fromJson(response.body(), type);
+    }
+
+    private HttpResponse<String> sendRequest(HttpRequest request) {
         var start = Instant.now();
         try {
-            response = this.httpClient.send(request, BodyHandlers.ofString(StandardCharsets.UTF_8));
+            return this.httpClient.send(request, BodyHandlers.ofString(StandardCharsets.UTF_8));
         } catch (IOException | InterruptedException e) {
             var maskedUri = maskSensitiveData(request.uri());
             LOGGER.error("Failed to connect to Cristin at {}: {}", maskedUri, e.getMessage(), e);
@@ -350,10 +450,6 @@ public final class CristinPersonRegistry implements PersonRegistry {
                              Instant.now().toEpochMilli() - start.toEpochMilli());
             }
         }
-
-        assertSuccessResponse(request, response);
-
-        return fromJson(response.body(), type);
     }
 
     private void assertSuccessResponse(HttpRequest request, HttpResponse<String> response) {
@@ -392,13 +488,6 @@ public final class CristinPersonRegistry implements PersonRegistry {
                              response.body());
     }
 
-    private String generateBasicAuthorization(CristinCredentials cristinCredentials) {
-        var toBeEncoded =
-            (cristinCredentials.getUsername() + ":" + new String(cristinCredentials.getPassword()))
-                .getBytes(StandardCharsets.UTF_8);
-        return "Basic " + Base64.getEncoder().encodeToString(toBeEncoded);
-    }
-
     private String maskSensitiveData(URI uri) {
         var pattern = Pattern.compile(NATIONAL_IDENTITY_PATTERN);
         var matcher = pattern.matcher(uri.toString());
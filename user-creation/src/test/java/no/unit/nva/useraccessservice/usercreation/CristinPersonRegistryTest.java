@@ -10,8 +10,10 @@ import no.unit.nva.stubs.FakeSecretsManagerClient;
 import no.unit.nva.stubs.WiremockHttpClient;
 import no.unit.nva.useraccessservice.constants.ServiceConstants;
 import no.unit.nva.useraccessservice.exceptions.InvalidInputException;
+import no.unit.nva.useraccessservice.metrics.MetricsLogger;
 import no.unit.nva.useraccessservice.userceation.testing.cristin.AuthenticationScenarios;
 import no.unit.nva.useraccessservice.userceation.testing.cristin.MockPersonRegistry;
+import no.unit.nva.useraccessservice.usercreation.person.Affiliation;
 import no.unit.nva.useraccessservice.usercreation.person.NationalIdentityNumber;
 import no.unit.nva.useraccessservice.usercreation.person.PersonRegistry;
 import no.unit.nva.useraccessservice.usercreation.person.cristin.exceptions.IdentityServiceException;
@@ -28,6 +30,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.net.URI;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.stream.Collectors;
 
 import static no.unit.nva.testutils.RandomDataGenerator.randomString;
 import static no.unit.nva.useraccessservice.constants.ServiceConstants.BOT_FILTER_BYPASS_HEADER_VALUE;
@@ -184,6 +189,68 @@ class CristinPersonRegistryTest {
         assertThat(fetchedPerson.get().getAffiliations(), emptyIterable());
     }
 
+    @Test
+    void shouldResolveInstitutionsForAllActiveAffiliationsWhenPersonHasSeveralAffiliations() {
+        var person = mockPersonRegistry.personWithTwoActiveEmploymentsInDifferentInstitutions();
+        var nin = NationalIdentityNumber.fromString(person.nin());
+
+        var fetchedPerson = personRegistry.fetchPersonByNin(nin).orElseThrow();
+
+        var institutions = fetchedPerson.getAffiliations().stream()
+                               .map(Affiliation::getInstitutionId)
+                               .collect(Collectors.toSet());
+        assertThat(institutions, is(equalTo(mockPersonRegistry.getInstitutionUnitCristinUris(person.nin()))));
+    }
+
+    @Test
+    void shouldServeInstitutionsFromCacheWhenSamePersonIsFetchedAgain() {
+        var person = mockPersonRegistry.personWithTwoActiveEmploymentsInDifferentInstitutions();
+        var nin = NationalIdentityNumber.fromString(person.nin());
+
+        var firstFetch = personRegistry.fetchPersonByNin(nin).orElseThrow();
+        var secondFetch = personRegistry.fetchPersonByNin(nin).orElseThrow();
+
+        var statistics = ((CristinPersonRegistry) personRegistry).getInstitutionCacheStatistics();
+        assertThat(secondFetch.getAffiliations(), is(equalTo(firstFetch.getAffiliations())));
+        assertThat(statistics.misses(), is(equalTo(2L)));
+        assertThat(statistics.hits(), is(equalTo(2L)));
+    }
+
+    @Test
+    void shouldWriteInstitutionCacheCountsSinceTheyWereLastWrittenToMetrics() {
+        var person = mockPersonRegistry.personWithTwoActiveEmploymentsInDifferentInstitutions();
+        var nin = NationalIdentityNumber.fromString(person.nin());
+        var lines = new ArrayList<String>();
+        var metrics = new MetricsLogger(MetricsLogger.DEFAULT_NAMESPACE, lines::add, Clock.systemUTC());
+
+        personRegistry.fetchPersonByNin(nin);
+        personRegistry.fetchPersonByNin(nin);
+        personRegistry.putCacheMetrics(metrics);
+        metrics.flush();
+        personRegistry.putCacheMetrics(metrics);
+        metrics.flush();
+
+        assertThat(lines.getFirst(), containsString("\"InstitutionCacheHits\":2"));
+        assertThat(lines.getFirst(), containsString("\"InstitutionCacheMisses\":2"));
+        assertThat(lines.getFirst(), containsString("\"InstitutionCacheSize\":2"));
+        assertThat(lines.getLast(), containsString("\"InstitutionCacheHits\":0"));
+        assertThat(lines.getLast(), containsString("\"InstitutionCacheSize\":2"));
+    }
+
+    @Test
+    void shouldCacheRedirectingInstitutionAsMissingInstitution() {
+        var person = mockPersonRegistry.personWithActiveAffiliationAtRedirectingInstitution();
+        var nin = NationalIdentityNumber.fromString(person.nin());
+
+        personRegistry.fetchPersonByNin(nin);
+        var fetchedPerson = personRegistry.fetchPersonByNin(nin).orElseThrow();
+
+        var statistics = ((CristinPersonRegistry) personRegistry).getInstitutionCacheStatistics();
+        assertThat(fetchedPerson.getAffiliations(), emptyIterable());
+        assertThat(statistics.misses(), is(equalTo(1L)));
+        assertThat(statistics.hits(), is(equalTo(1L)));
+    }
+
     @Test
     void shouldReturnEmptyListOfAffiliationsIfFieldIsMissingInCristinOnGetPerson() {
         var personNin = scenarios.personWithoutAffiliations().nin();
@@ -0,0 +1,202 @@
+package no.unit.nva.useraccessservice.usercreation.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static no.unit.nva.testutils.RandomDataGenerator.randomString;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class ExpiringCacheTest {
+
+    private static final Duration TIME_TO_LIVE = Duration.ofMinutes(10);
+    private static final Duration NEGATIVE_TIME_TO_LIVE = Duration.ofMinutes(1);
+    private static final int MAXIMUM_SIZE = 2;
+
+    private MutableClock clock;
+    private ExpiringCache<String, String> cache;
+    private AtomicInteger loaderCalls;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.now());
+        cache = new ExpiringCache<>(MAXIMUM_SIZE, TIME_TO_LIVE, NEGATIVE_TIME_TO_LIVE, clock);
+        loaderCalls = new AtomicInteger();
+    }
+
+    @Test
+    void shouldLoadValueOnceAndServeItFromCacheAfterwards() {
+        var key = randomString();
+        var value = randomString();
+
+        cache.get(key, () -> countedLoad(value));
+        var cached = cache.get(key, () -> countedLoad(randomString()));
+
+        assertThat(cached, is(equalTo(Optional.of(value))));
+        assertThat(loaderCalls.get(), is(equalTo(1)));
+        assertThat(cache.statistics(), is(equalTo(new ExpiringCache.CacheStatistics(1, 1, 0, 1))));
+    }
+
+    @Test
+    void shouldLoadValueAgainWhenTimeToLiveHasPassed() {
+        var key = randomString();
+        var refreshedValue = randomString();
+
+        cache.get(key, () -> countedLoad(randomString()));
+        clock.advance(TIME_TO_LIVE);
+        var refreshed = cache.get(key, () -> countedLoad(refreshedValue));
+
+        assertThat(refreshed, is(equalTo(Optional.of(refreshedValue))));
+        assertThat(loaderCalls.get(), is(equalTo(2)));
+        assertThat(cache.statistics().evictions(), is(equalTo(1L)));
+    }
+
+    @Test
+    void shouldCacheEmptyResultsWithNegativeTimeToLive() {
+        var key = randomString();
+
+        cache.get(key, this::countedEmptyLoad);
+        cache.get(key, this::countedEmptyLoad);
+        assertThat(loaderCalls.get(), is(equalTo(1)));
+
+        clock.advance(NEGATIVE_TIME_TO_LIVE);
+        cache.get(key, this::countedEmptyLoad);
+        assertThat(loaderCalls.get(), is(equalTo(2)));
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedEntryWhenMaximumSizeIsExceeded() {
+        var leastRecentlyUsed = randomString();
+        var recentlyUsed = randomString();
+
+        cache.get(leastRecentlyUsed, () -> countedLoad(randomString()));
+        cache.get(recentlyUsed, () -> countedLoad(randomString()));
+        cache.get(recentlyUsed, () -> countedLoad(randomString()));
+        cache.get(randomString(), () -> countedLoad(randomString()));
+        cache.get(recentlyUsed, () -> countedLoad(randomString()));
+
+        assertThat(loaderCalls.get(), is(equalTo(3)));
+        assertThat(cache.statistics().evictions(), is(equalTo(1L)));
+        assertThat(cache.statistics().size(), is(equalTo(MAXIMUM_SIZE)));
+    }
+
+    @Test
+    void shouldNotCacheLoaderFailures() {
+        var key = randomString();
+        var value = randomString();
+
+        assertThrows(IllegalStateException.class, () -> cache.get(key, () -> {
+            loaderCalls.incrementAndGet();
+            throw new IllegalStateException();
+        }));
+        var loaded = cache.get(key, () -> countedLoad(value));
+
+        assertThat(loaded, is(equalTo(Optional.of(value))));
+        assertThat(loaderCalls.get(), is(equalTo(2)));
+    }
+
+    @Test
+    void shouldNotLeaveKeyPendingWhenLoaderThrowsError() {
+        var key = randomString();
+        var value = randomString();
+
+        assertThrows(StackOverflowError.class, () -> cache.get(key, () -> {
+            loaderCalls.incrementAndGet();
+            throw new StackOverflowError();
+        }));
+        var loaded = assertTimeoutPreemptively(Duration.ofSeconds(1), () -> cache.get(key, () -> countedLoad(value)));
+
+        assertThat(loaded, is(equalTo(Optional.of(value))));
+        assertThat(loaderCalls.get(), is(equalTo(2)));
+    }
+
+    @Test
+    void shouldLetConcurrentCallersForSameKeyShareOneLoad() throws Exception {
+        var key = randomString();
+        var value = randomString();
+        var callers = 10;
+        var loadStarted = new CountDownLatch(1);
+        var releaseLoad = new CountDownLatch(1);
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var owner = executor.submit(() -> cache.get(key, () -> {
+                loadStarted.countDown();
+                awaitQuietly(releaseLoad);
+                return countedLoad(value);
+            }));
+            loadStarted.await(1, TimeUnit.SECONDS);
+            var joiners = IntStream.range(0, callers)
+                              .mapToObj(i -> executor.submit(() -> cache.get(key, () -> countedLoad(value))))
+                              .toList();
+            releaseLoad.countDown();
+
+            assertThat(owner.get(), is(equalTo(Optional.of(value))));
+            for (Future<Optional<String>> joiner : joiners) {
+                assertThat(joiner.get(), is(equalTo(Optional.of(value))));
+            }
+        }
+        assertThat(loaderCalls.get(), is(equalTo(1)));
+    }
+
+    private Optional<String> countedLoad(String value) {
+        loaderCalls.incrementAndGet();
+        return Optional.of(value);
+    }
+
+    private Optional<String> countedEmptyLoad() {
+        loaderCalls.incrementAndGet();
+        return Optional.empty();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        private void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
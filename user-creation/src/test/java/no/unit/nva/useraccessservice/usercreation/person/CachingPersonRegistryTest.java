@@ -0,0 +1,137 @@
+package no.unit.nva.useraccessservice.usercreation.person;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static no.unit.nva.testutils.RandomDataGenerator.randomString;
+import static no.unit.nva.testutils.RandomDataGenerator.randomUri;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+
+class CachingPersonRegistryTest {
+
+    private static final Duration TIME_TO_LIVE = Duration.ofMinutes(1);
+    private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+    private static final int MAXIMUM_SIZE = 10;
+
+    private CountingPersonRegistry personRegistry;
+    private NationalIdentityNumber nin;
+
+    @BeforeEach
+    void setUp() {
+        personRegistry = new CountingPersonRegistry();
+        nin = NationalIdentityNumber.fromString(randomString());
+    }
+
+    @Test
+    void shouldFetchPersonFromRegistryOnlyOnceWithinTimeToLive() {
+        var cachingRegistry = cachingRegistryAt(NOW);
+
+        var first = cachingRegistry.fetchPersonByNin(nin);
+        var second = cachingRegistry.fetchPersonByNin(nin);
+
+        assertThat(second, is(equalTo(first)));
+        assertThat(personRegistry.fetchesByNin.get(), is(equalTo(1)));
+    }
+
+    @Test
+    void shouldFetchPersonAgainWhenTimeToLiveHasPassed() {
+        var now = new AtomicReference<>(NOW);
+        var cachingRegistry = new CachingPersonRegistry(personRegistry, TIME_TO_LIVE, MAXIMUM_SIZE, new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return now.get();
+            }
+        });
+        cachingRegistry.fetchPersonByNin(nin);
+
+        now.set(NOW.plus(TIME_TO_LIVE));
+        cachingRegistry.fetchPersonByNin(nin);
+
+        assertThat(personRegistry.fetchesByNin.get(), is(equalTo(2)));
+    }
+
+    @Test
+    void shouldFetchPersonAgainAfterInvalidation() {
+        var cachingRegistry = cachingRegistryAt(NOW);
+        cachingRegistry.fetchPersonByNin(nin);
+
+        cachingRegistry.invalidate(nin);
+        cachingRegistry.fetchPersonByNin(nin);
+
+        assertThat(personRegistry.fetchesByNin.get(), is(equalTo(2)));
+    }
+
+    @Test
+    void shouldNotCachePersonsThatAreNotFound() {
+        personRegistry.personExists = false;
+        var cachingRegistry = cachingRegistryAt(NOW);
+
+        cachingRegistry.fetchPersonByNin(nin);
+        cachingRegistry.fetchPersonByNin(nin);
+
+        assertThat(personRegistry.fetchesByNin.get(), is(equalTo(2)));
+    }
+
+    @Test
+    void shouldFetchPersonFromRegistryAfterPersonIsCreated() {
+        var cachingRegistry = cachingRegistryAt(NOW);
+        cachingRegistry.fetchPersonByNin(nin);
+
+        cachingRegistry.createPerson(nin, randomString(), randomString());
+        cachingRegistry.fetchPersonByNin(nin);
+
+        assertThat(personRegistry.fetchesByNin.get(), is(equalTo(2)));
+    }
+
+    private CachingPersonRegistry cachingRegistryAt(Instant now) {
+        return new CachingPersonRegistry(personRegistry, TIME_TO_LIVE, MAXIMUM_SIZE, Clock.fixed(now, ZoneOffset.UTC));
+    }
+
+    private static final class CountingPersonRegistry implements PersonRegistry {
+
+        private final AtomicInteger fetchesByNin = new AtomicInteger();
+        private boolean personExists = true;
+
+        @Override
+        public Optional<Person> fetchPersonByNin(NationalIdentityNumber nin) {
+            fetchesByNin.incrementAndGet();
+            return personExists ? Optional.of(randomPerson()) : Optional.empty();
+        }
+
+        @Override
+        public Optional<Person> fetchPersonByIdentifier(String cristinIdentifier) {
+            return Optional.of(randomPerson());
+        }
+
+        @Override
+        public Optional<Person> createPerson(NationalIdentityNumber nin, String firstName, String lastName) {
+            return Optional.of(randomPerson());
+        }
+
+        private static Person randomPerson() {
+            return new Person(randomUri(), randomString(), randomString(), randomString(), List.of());
+        }
+    }
+}
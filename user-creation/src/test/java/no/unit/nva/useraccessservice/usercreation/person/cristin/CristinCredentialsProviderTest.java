@@ -0,0 +1,118 @@
+package no.unit.nva.useraccessservice.usercreation.person.cristin;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static no.unit.nva.testutils.RandomDataGenerator.randomString;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNot.not;
+
+class CristinCredentialsProviderTest {
+
+    private static final Duration REFRESH_INTERVAL = Duration.ofMinutes(15);
+    private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+
+    private AtomicInteger secretReads;
+
+    @BeforeEach
+    void setUp() {
+        secretReads = new AtomicInteger();
+    }
+
+    @Test
+    void shouldReturnBasicAuthorizationHeaderForCredentials() {
+        var username = randomString();
+        var password = randomString();
+        var provider = new CristinCredentialsProvider(() -> new CristinCredentials(username, password.toCharArray()),
+                                                      REFRESH_INTERVAL);
+
+        var expected = "Basic " + Base64.getEncoder()
+                                      .encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+        assertThat(provider.authorizationHeader(), is(equalTo(expected)));
+    }
+
+    @Test
+    void shouldReadCredentialsOnlyOnceWithinRefreshInterval() {
+        var provider = providerAt(Clock.fixed(NOW, ZoneOffset.UTC));
+
+        var first = provider.authorizationHeader();
+        var second = provider.authorizationHeader();
+
+        assertThat(second, is(equalTo(first)));
+        assertThat(secretReads.get(), is(equalTo(1)));
+    }
+
+    @Test
+    void shouldReadCredentialsAgainWhenRefreshIntervalHasPassed() {
+        var now = new AtomicReference<>(NOW);
+        var provider = providerAt(new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return now.get();
+            }
+        });
+        var first = provider.authorizationHeader();
+
+        now.set(NOW.plus(REFRESH_INTERVAL));
+        var refreshed = provider.authorizationHeader();
+
+        assertThat(refreshed, is(not(equalTo(first))));
+        assertThat(secretReads.get(), is(equalTo(2)));
+    }
+
+    @Test
+    void shouldReadCredentialsAgainWhenCurrentHeaderIsRejected() {
+        var provider = providerAt(Clock.fixed(NOW, ZoneOffset.UTC));
+        var rejected = provider.authorizationHeader();
+
+        provider.refreshIfCurrent(rejected);
+        var refreshed = provider.authorizationHeader();
+
+        assertThat(refreshed, is(not(equalTo(rejected))));
+        assertThat(secretReads.get(), is(equalTo(2)));
+    }
+
+    @Test
+    void shouldKeepCredentialsWhenRejectedHeaderIsNoLongerCurrent() {
+        var provider = providerAt(Clock.fixed(NOW, ZoneOffset.UTC));
+        var rejected = provider.authorizationHeader();
+        provider.refreshIfCurrent(rejected);
+        var current = provider.authorizationHeader();
+
+        provider.refreshIfCurrent(rejected);
+
+        assertThat(provider.authorizationHeader(), is(equalTo(current)));
+        assertThat(secretReads.get(), is(equalTo(2)));
+    }
+
+    private CristinCredentialsProvider providerAt(Clock clock) {
+        return new CristinCredentialsProvider(this::countedCredentials, REFRESH_INTERVAL, clock);
+    }
+
+    private CristinCredentials countedCredentials() {
+        secretReads.incrementAndGet();
+        return new CristinCredentials(randomString(), randomString().toCharArray());
+    }
+}